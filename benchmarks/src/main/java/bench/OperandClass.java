@@ -0,0 +1,105 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * 基准测试使用的操作数类别
+ * 每个类别生成成对的32位位模式，FPU按IEEE-754解释，ALU按补码整数解释
+ */
+public enum OperandClass {
+
+    /**
+     * 规格化数，两操作数阶码相差不超过8
+     */
+    NORMAL {
+        @Override
+        void fill(Random random, int[] src, int[] dest, int i) {
+            int exp = 64 + random.nextInt(128);
+            dest[i] = normal(random, exp);
+            src[i] = normal(random, exp + random.nextInt(17) - 8);
+        }
+    },
+
+    /**
+     * 两个非规格化数
+     */
+    SUBNORMAL {
+        @Override
+        void fill(Random random, int[] src, int[] dest, int i) {
+            dest[i] = (random.nextInt() & 0x807FFFFF) | 1;
+            src[i] = (random.nextInt() & 0x807FFFFF) | 1;
+        }
+    },
+
+    /**
+     * 阶码相差30到120，对阶时需要大距离右移
+     */
+    LARGE_GAP {
+        @Override
+        void fill(Random random, int[] src, int[] dest, int i) {
+            int exp = 140 + random.nextInt(100);
+            dest[i] = normal(random, exp);
+            src[i] = normal(random, exp - 30 - random.nextInt(91));
+        }
+    },
+
+    /**
+     * dest + src恰好落在两个可表示数的正中间，舍入时需要判断奇偶
+     */
+    TIE {
+        @Override
+        void fill(Random random, int[] src, int[] dest, int i) {
+            int exp = 64 + random.nextInt(128);
+            dest[i] = normal(random, exp) & 0x7FFFFFFF;
+            src[i] = (exp - 24) << 23;
+        }
+    },
+
+    /**
+     * ±0、±Inf、NaN与规格化数的组合
+     */
+    SPECIAL {
+        @Override
+        void fill(Random random, int[] src, int[] dest, int i) {
+            dest[i] = random.nextBoolean() ? SPECIALS[random.nextInt(SPECIALS.length)] : normal(random, 127);
+            src[i] = SPECIALS[random.nextInt(SPECIALS.length)];
+        }
+    };
+
+    private static final int[] SPECIALS = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000};
+
+    abstract void fill(Random random, int[] src, int[] dest, int i);
+
+    /**
+     * @param size 操作数对的个数，必须是2的幂
+     * @param seed 随机种子，保证每次运行的操作数相同
+     * @return {src, dest}
+     */
+    public int[][] pairs(int size, long seed) {
+        Random random = new Random(seed);
+        int[] src = new int[size];
+        int[] dest = new int[size];
+        for (int i = 0; i < size; i++) {
+            fill(random, src, dest, i);
+        }
+        return new int[][]{src, dest};
+    }
+
+    /**
+     * 除法使用的操作数对：除数为0时换成1.0，避免抛出ArithmeticException
+     */
+    public int[][] divisionPairs(int size, long seed) {
+        int[][] pairs = pairs(size, seed);
+        for (int i = 0; i < size; i++) {
+            if ((pairs[0][i] & 0x7FFFFFFF) == 0) {
+                pairs[0][i] = 0x3F800000;
+            }
+        }
+        return pairs;
+    }
+
+    private static int normal(Random random, int exp) {
+        return (random.nextInt() & 0x807FFFFF) | (exp << 23);
+    }
+
+}
@@ -0,0 +1,91 @@
+package cpu.alu;
+
+import bench.OperandClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.DataType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 操作数按补码整数解释，类别只决定位模式的分布
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ALUBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"BIT_SERIAL", "NATIVE"})
+    public ALU.Engine engine;
+
+    @Param({"NORMAL", "SUBNORMAL", "LARGE_GAP", "TIE", "SPECIAL"})
+    public OperandClass operands;
+
+    private ALU alu;
+
+    private DataType[] src;
+
+    private DataType[] dest;
+
+    private DataType[] divSrc;
+
+    private DataType[] divDest;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        alu = new ALU(engine);
+        int[][] pairs = operands.pairs(SIZE, 2023);
+        int[][] divPairs = operands.divisionPairs(SIZE, 2023);
+        src = new DataType[SIZE];
+        dest = new DataType[SIZE];
+        divSrc = new DataType[SIZE];
+        divDest = new DataType[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            src[i] = DataType.ofBits(pairs[0][i]);
+            dest[i] = DataType.ofBits(pairs[1][i]);
+            divSrc[i] = DataType.ofBits(divPairs[0][i]);
+            divDest[i] = DataType.ofBits(divPairs[1][i]);
+        }
+    }
+
+    @Benchmark
+    public DataType add() {
+        int i = cursor++ & (SIZE - 1);
+        return alu.add(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType sub() {
+        int i = cursor++ & (SIZE - 1);
+        return alu.sub(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType mul() {
+        int i = cursor++ & (SIZE - 1);
+        return alu.mul(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType div() {
+        int i = cursor++ & (SIZE - 1);
+        return alu.div(divSrc[i], divDest[i]);
+    }
+
+}
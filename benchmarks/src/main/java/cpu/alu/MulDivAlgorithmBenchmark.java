@@ -0,0 +1,74 @@
+package cpu.alu;
+
+import bench.OperandClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直接调用乘除法数据通路，比较各算法的吞吐量；模拟的周期数见CycleCounter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MulDivAlgorithmBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"BOOTH_RADIX2", "BOOTH_RADIX4", "WALLACE_TREE"})
+    public MultiplierAlgorithm multiplier;
+
+    @Param({"NON_RESTORING", "SRT_RADIX4"})
+    public DividerAlgorithm divider;
+
+    @Param({"NORMAL", "SPECIAL"})
+    public OperandClass operands;
+
+    private final CycleCounter counter = new CycleCounter();
+
+    private int[] src;
+
+    private int[] dest;
+
+    private int[] divSrc;
+
+    private int[] divDest;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        int[][] pairs = operands.pairs(SIZE, 2023);
+        int[][] divPairs = operands.divisionPairs(SIZE, 2023);
+        src = pairs[0];
+        dest = pairs[1];
+        divSrc = divPairs[0];
+        divDest = divPairs[1];
+    }
+
+    @Benchmark
+    public long mul() {
+        int i = cursor++ & (SIZE - 1);
+        return multiplier.multiply(src[i], dest[i], counter);
+    }
+
+    @Benchmark
+    public long div() {
+        int i = cursor++ & (SIZE - 1);
+        return divider.divide(divSrc[i], divDest[i], counter);
+    }
+
+}
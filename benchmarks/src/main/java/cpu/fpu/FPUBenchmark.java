@@ -0,0 +1,124 @@
+package cpu.fpu;
+
+import bench.OperandClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.DataType;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FPUBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"BIT_SERIAL", "NATIVE"})
+    public FPU.Engine engine;
+
+    @Param({"NORMAL", "SUBNORMAL", "LARGE_GAP", "TIE", "SPECIAL"})
+    public OperandClass operands;
+
+    private FPU fpu;
+
+    private FPU newtonRaphson;
+
+    private FPU goldschmidt;
+
+    private DataType[] src;
+
+    private DataType[] dest;
+
+    private DataType[] divSrc;
+
+    private DataType[] divDest;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        fpu = new FPU(engine);
+        newtonRaphson = new FPU(engine, null, DivisionAlgorithm.NEWTON_RAPHSON);
+        goldschmidt = new FPU(engine, null, DivisionAlgorithm.GOLDSCHMIDT);
+        int[][] pairs = operands.pairs(SIZE, 2023);
+        int[][] divPairs = operands.divisionPairs(SIZE, 2023);
+        src = new DataType[SIZE];
+        dest = new DataType[SIZE];
+        divSrc = new DataType[SIZE];
+        divDest = new DataType[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            src[i] = DataType.ofBits(pairs[0][i]);
+            dest[i] = DataType.ofBits(pairs[1][i]);
+            divSrc[i] = DataType.ofBits(divPairs[0][i]);
+            divDest[i] = DataType.ofBits(divPairs[1][i]);
+        }
+    }
+
+    @Benchmark
+    public DataType add() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.add(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType sub() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.sub(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType mul() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.mul(src[i], dest[i]);
+    }
+
+    @Benchmark
+    public DataType div() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.div(divSrc[i], divDest[i]);
+    }
+
+    /**
+     * 查倒数初值表后迭代求商，结果与div相同
+     */
+    @Benchmark
+    public DataType divNewtonRaphson() {
+        int i = cursor++ & (SIZE - 1);
+        return newtonRaphson.div(divSrc[i], divDest[i]);
+    }
+
+    @Benchmark
+    public DataType divGoldschmidt() {
+        int i = cursor++ & (SIZE - 1);
+        return goldschmidt.div(divSrc[i], divDest[i]);
+    }
+
+    /**
+     * 乘加：fma与先乘后加对比，加数取下一对的dest
+     */
+    @Benchmark
+    public DataType fma() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.fma(src[i], dest[i], dest[(i + 1) & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public DataType mulAdd() {
+        int i = cursor++ & (SIZE - 1);
+        return fpu.add(dest[(i + 1) & (SIZE - 1)], fpu.mul(src[i], dest[i]));
+    }
+
+}
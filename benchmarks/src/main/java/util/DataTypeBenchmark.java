@@ -0,0 +1,67 @@
+package util;
+
+import bench.OperandClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataTypeBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"NORMAL", "SUBNORMAL", "LARGE_GAP", "TIE", "SPECIAL"})
+    public OperandClass operands;
+
+    private int[] bits;
+
+    private String[] binStr;
+
+    private DataType[] values;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        int[][] pairs = operands.pairs(SIZE, 2023);
+        bits = new int[SIZE];
+        binStr = new String[SIZE];
+        values = new DataType[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            bits[i] = (i & 1) == 0 ? pairs[0][i] : pairs[1][i];
+            binStr[i] = DataType.ofBits(bits[i]).toString();
+            values[i] = DataType.ofBits(bits[i]);
+        }
+    }
+
+    @Benchmark
+    public DataType ofBits() {
+        return DataType.ofBits(bits[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public DataType fromString() {
+        return new DataType(binStr[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public String toBinaryString() {
+        return values[cursor++ & (SIZE - 1)].toString();
+    }
+
+}
@@ -0,0 +1,92 @@
+package util;
+
+import bench.OperandClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"NORMAL", "SUBNORMAL", "LARGE_GAP", "TIE", "SPECIAL"})
+    public OperandClass operands;
+
+    private String[] intStr;
+
+    private String[] floatStr;
+
+    private String[] binStr;
+
+    private int[] bits;
+
+    private final char[] chars = new char[32];
+
+    private final StringBuilder sb = new StringBuilder(64);
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        int[][] pairs = operands.pairs(SIZE, 2023);
+        intStr = new String[SIZE];
+        floatStr = new String[SIZE];
+        binStr = new String[SIZE];
+        bits = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            bits[i] = (i & 1) == 0 ? pairs[0][i] : pairs[1][i];
+            intStr[i] = String.valueOf(bits[i]);
+            floatStr[i] = String.valueOf(Float.intBitsToFloat(bits[i]));
+            binStr[i] = DataType.ofBits(bits[i]).toString();
+        }
+    }
+
+    @Benchmark
+    public String intToBinary() {
+        return Transformer.intToBinary(intStr[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public String floatToBinary() {
+        return Transformer.floatToBinary(floatStr[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int parseBits() {
+        return FloatParser.parseBits(floatStr[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public String binaryToFloat() {
+        return Transformer.binaryToFloat(binStr[cursor++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public char[] formatBinary() {
+        Transformer.formatBinary(bits[cursor++ & (SIZE - 1)], 32, chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public StringBuilder appendHex() {
+        sb.setLength(0);
+        return Transformer.appendHex(sb, bits[cursor++ & (SIZE - 1)], 32);
+    }
+
+}
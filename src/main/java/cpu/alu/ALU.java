@@ -1,9 +1,116 @@
 package cpu.alu;
 
+import util.ArithmeticContext;
+import util.ArithmeticMetrics;
 import util.DataType;
+import util.ResultCache;
 import util.Transformer;
+import util.WorkloadRecorder;
 
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * 32位补码整数运算单元
+ * 所有方法只读取构造时确定的final字段，不修改实例状态，一个ALU可以在多个线程之间共享，不需要加锁；
+ * 带ArithmeticContext的ALU会修改上下文中的标志，只能在一个线程中使用
+ */
 public class ALU {
+
+    /**
+     * ALU的运算实现方式
+     */
+    public enum Engine {
+        /**
+         * 逐位模拟，每一位用一个int表示
+         */
+        BIT_SERIAL,
+        /**
+         * 直接使用32位int运算，结果（包括余数）与BIT_SERIAL一致
+         */
+        NATIVE
+    }
+
+    private final Engine engine;
+
+    /**
+     * 乘除法的结果缓存，为null时不缓存；加减法比查缓存更快，不经过缓存
+     */
+    private final ResultCache cache;
+
+    /**
+     * 是否向ArithmeticMetrics报告运算指标、是否被WorkloadRecorder录制
+     */
+    private final boolean metered;
+
+    /**
+     * 除以0时设置DIVIDE_BY_ZERO标志，为null时直接抛出异常
+     */
+    private final ArithmeticContext context;
+
+    /**
+     * 乘除法的数据通路，为null时按engine计算
+     */
+    private final Multiplier multiplier;
+
+    private final Divider divider;
+
+    /**
+     * multiplier、divider的开销计数器
+     */
+    private final CycleCounter counter;
+
+    public ALU() {
+        this(Engine.BIT_SERIAL);
+    }
+
+    public ALU(Engine engine) {
+        this(engine, null);
+    }
+
+    /**
+     * @param cache 乘除法的结果缓存，可以在多个ALU之间共享；批量接口在NATIVE引擎下不经过缓存
+     */
+    public ALU(Engine engine, ResultCache cache) {
+        this(engine, cache, true);
+    }
+
+    /**
+     * @param metered 是否报告运算指标并接受WorkloadRecorder录制，作为其他部件（如FPU）内部的ALU时应为false，避免重复计数
+     */
+    public ALU(Engine engine, ResultCache cache, boolean metered) {
+        this(engine, cache, metered, null);
+    }
+
+    /**
+     * @param context 除以0时设置DIVIDE_BY_ZERO标志；上下文不抛出异常时商为-1（全1）、余数为被除数
+     */
+    public ALU(Engine engine, ResultCache cache, boolean metered, ArithmeticContext context) {
+        this(engine, cache, metered, context, null, null, null);
+    }
+
+    /**
+     * 乘除法使用给定的数据通路，加减法使用NATIVE引擎，不经过缓存；计数器不是线程安全的，这样的ALU只能在一个线程中使用
+     *
+     * @param multiplier 例如MultiplierAlgorithm.BOOTH_RADIX4
+     * @param divider    例如DividerAlgorithm.SRT_RADIX4
+     * @param counter    累加每次乘除法模拟的周期数和加法器使用次数，不能为null
+     */
+    public ALU(Multiplier multiplier, Divider divider, CycleCounter counter) {
+        this(Engine.NATIVE, null, true, null, multiplier, divider, Objects.requireNonNull(counter, "counter"));
+    }
+
+    private ALU(Engine engine, ResultCache cache, boolean metered, ArithmeticContext context,
+                Multiplier multiplier, Divider divider, CycleCounter counter) {
+        this.engine = engine;
+        this.cache = cache;
+        this.metered = metered;
+        this.context = context;
+        this.multiplier = multiplier;
+        this.divider = divider;
+        this.counter = counter;
+    }
+
     /**
      * 返回两个二进制整数的和
      * dest + src
@@ -13,6 +120,16 @@ public class ALU {
      * @return 32-bits
      */
     public DataType add(DataType src, DataType dest) {
+        if (metered && (ArithmeticMetrics.active() || WorkloadRecorder.active())) {
+            return measure(ArithmeticMetrics.ALU_ADD, src, dest, this::computeAdd);
+        }
+        return computeAdd(src, dest);
+    }
+
+    private DataType computeAdd(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(dest.bits() + src.bits());
+        }
         String srcStr = src.toString();
         String destStr = dest.toString();
         String ans = "";
@@ -44,7 +161,7 @@ public class ALU {
         for (int i = 0; i <= 31; i++) {
             ans += num1[i];
         }
-        return new DataType(ans);
+        return DataType.valueOf(ans);
     }
 
     /**
@@ -56,6 +173,16 @@ public class ALU {
      * @return 32-bits
      */
     public DataType sub(DataType src, DataType dest) {
+        if (metered && (ArithmeticMetrics.active() || WorkloadRecorder.active())) {
+            return measure(ArithmeticMetrics.ALU_SUB, src, dest, this::computeSub);
+        }
+        return computeSub(src, dest);
+    }
+
+    private DataType computeSub(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(dest.bits() - src.bits());
+        }
         String srcStr = src.toString();
         int[] num1 = new int[32];
         for (int i = 0; i <= 31; i++) {
@@ -78,7 +205,7 @@ public class ALU {
         for (int i = 0; i <= 31; i++) {
             ans += num1[i];
         }
-        return add(new DataType(ans), dest);
+        return computeAdd(new DataType(ans), dest);
     }
 
     /**
@@ -90,73 +217,84 @@ public class ALU {
      * @return 32-bits
      */
     public DataType mul(DataType src, DataType dest) {
-        String tail1 = src.toString();
-        String tail2 = dest.toString();
-        int offset = 0;
-
-        int[] N1 = new int[54];
-        int[] N2 = new int[55];
-        int[] N3 = new int[54];
-        N2[54] = 0;
-        for (int i = 27; i < 54; i++) {
-            N1[i] = tail1.charAt(i - 27) - '0';
-            N2[i] = tail2.charAt(i - 27) - '0';
-            N3[i] = 1 - N1[i];
-        }
-
-        N3[53] += 1; // 取反加一 （不清楚如何调用已有的方法）
-        for (int i = 53; i > 26; i--) {
-            if (N3[i] == 2) {
-                N3[i] = 0;
-                N3[i - 1]++;
+        if (metered && (ArithmeticMetrics.active() || WorkloadRecorder.active())) {
+            return measure(ArithmeticMetrics.ALU_MUL, src, dest, this::cachedMul);
+        }
+        return cachedMul(src, dest);
+    }
+
+    private DataType cachedMul(DataType src, DataType dest) {
+        if (cache == null) {
+            return computeMul(src, dest);
+        }
+        long cached = cache.get(ResultCache.ALU_MUL, src.bits(), dest.bits());
+        if (cached != ResultCache.MISS) {
+            return DataType.ofBits((int) cached);
+        }
+        DataType ans = computeMul(src, dest);
+        cache.put(ResultCache.ALU_MUL, src.bits(), dest.bits(), ans.bits());
+        return ans;
+    }
+
+    private DataType computeMul(DataType src, DataType dest) {
+        if (multiplier != null) {
+            return DataType.ofBits((int) multiplier.multiply(src.bits(), dest.bits(), counter));
+        }
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(dest.bits() * src.bits());
+        }
+        String x = src.toString(); // 被乘数
+        String y = dest.toString(); // 乘数
+
+        int[] X = new int[32];
+        int[] negX = new int[32];
+        int[] P = new int[65]; // 高32位部分积 + 32位乘数 + 附加位y(-1)
+        for (int i = 0; i < 32; i++) {
+            X[i] = x.charAt(i) - '0';
+            negX[i] = 1 - X[i];
+            P[i + 32] = y.charAt(i) - '0';
+        }
+        negX[31]++; // 取反加一得到[-X]补
+        for (int i = 31; i > 0; i--) {
+            if (negX[i] == 2) {
+                negX[i] = 0;
+                negX[i - 1]++;
             }
         }
-        if (N3[26] == 2) {
-            N3[26] = 0;
+        if (negX[0] == 2) {
+            negX[0] = 0;
         }
 
-        int[] ans = new int[54];
-        for (int i = 54; i > 27; i--) {
-            if (N2[i] == 0 && N2[i - 1] == 1) {
-                for (int j = 27; j < 54; j++) {
-                    ans[j - offset] += N3[j];
-                }
-            } else if (N2[i] == 1 && N2[i - 1] == 0) {
-                for (int j = 27; j < 54; j++) {
-                    ans[j - offset] += N1[j];
-                }
+        for (int step = 0; step < 32; step++) { // Booth: 比较y(i)与y(i-1)
+            int[] addend = null;
+            if (P[63] == 0 && P[64] == 1) {
+                addend = X;
+            } else if (P[63] == 1 && P[64] == 0) {
+                addend = negX;
             }
-            for (int j = 53 - offset; j > 27 - offset; j--) {
-                if (ans[j] == 2) {
-                    ans[j] = 0;
-                    ans[j - 1]++;
-                } else if (ans[j] == 3) {
-                    ans[j] = 1;
-                    ans[j - 1]++;
+            if (addend != null) {
+                for (int i = 31; i >= 0; i--) {
+                    P[i] += addend[i];
+                    if (P[i] >= 2) {
+                        P[i] -= 2;
+                        if (i != 0) {
+                            P[i - 1]++;
+                        }
+                    }
                 }
             }
-            if (ans[27 - offset] == 2) {
-                ans[0] = 0;
-            } else if (ans[27 - offset] == 3) {
-                ans[0] = 1;
-            }
-            if (ans[27 - offset] == 1) {
-                ans[27 - offset - 1] = 1;
-            } else {
-                ans[27 - offset - 1] = 0;
+            for (int i = 64; i > 0; i--) { // 算术右移
+                P[i] = P[i - 1];
             }
-            offset++;
-        }
-        String out = "";
-        for (int i = 0; i <= 53; i++) {
-            out += ans[i];
         }
 
-        return new DataType(out);
+        StringBuilder out = new StringBuilder();
+        for (int i = 32; i < 64; i++) {
+            out.append(P[i]);
+        }
+        return DataType.valueOf(out.toString());
     }
 
-    DataType remainderReg = new DataType("00000000000000000000000000000000");
-
     public boolean isZero(String s) {
         for (int i = 0; i < 32; i++) {
             if (s.charAt(i) == '1') {
@@ -175,9 +313,56 @@ public class ALU {
      * @return 32-bits
      */
     public DataType div(DataType src, DataType dest) {
+        return divRem(src, dest).quotient();
+    }
+
+    /**
+     * 返回两个二进制整数相除的商和余数
+     * dest ÷ src
+     *
+     * @param src  32-bits
+     * @param dest 32-bits
+     * @return 商和余数，余数与被除数同号
+     */
+    public DivRem divRem(DataType src, DataType dest) {
+        if (context != null && src.bits() == 0) {
+            context.raise(ArithmeticContext.DIVIDE_BY_ZERO);
+            if (!context.throwing()) {
+                return new DivRem(DataType.ofBits(-1), dest);
+            }
+        }
+        if (metered && (ArithmeticMetrics.active() || WorkloadRecorder.active())) {
+            return measure(ArithmeticMetrics.ALU_DIV, src, dest, this::cachedDiv);
+        }
+        return cachedDiv(src, dest);
+    }
+
+    private DivRem cachedDiv(DataType src, DataType dest) {
+        if (cache == null) {
+            return computeDiv(src, dest);
+        }
+        long cached = cache.get(ResultCache.ALU_DIV, src.bits(), dest.bits());
+        if (cached != ResultCache.MISS) { // 只缓存商，余数由dest - 商 * src得到
+            return new DivRem(DataType.ofBits((int) cached), DataType.ofBits(dest.bits() - (int) cached * src.bits()));
+        }
+        DivRem ans = computeDiv(src, dest);
+        cache.put(ResultCache.ALU_DIV, src.bits(), dest.bits(), ans.quotient().bits());
+        return ans;
+    }
+
+    private DivRem computeDiv(DataType src, DataType dest) {
+        if (divider != null) {
+            long ans = divider.divide(src.bits(), dest.bits(), counter);
+            return new DivRem(DataType.ofBits(Divider.quotient(ans)), DataType.ofBits(Divider.remainder(ans)));
+        }
+        if (engine == Engine.NATIVE) {
+            if (src.bits() == 0) {
+                throw new ArithmeticException();
+            }
+            return new DivRem(DataType.ofBits(dest.bits() / src.bits()), DataType.ofBits(dest.bits() % src.bits()));
+        }
         StringBuilder y = new StringBuilder(src.toString());
         StringBuilder s2 = new StringBuilder(dest.toString());
-        remainderReg = new DataType(s2.toString());
         if (!isZero(y.toString())) {
             if (s2.charAt(0) == '1') {
                 for (int i = 0; i <= 31; i++) {
@@ -189,29 +374,30 @@ public class ALU {
                 }
             }
             if (s2.charAt(0) != y.charAt(0)) {
-                s2 = new StringBuilder(add(new DataType(s2.substring(0, 32)), new DataType(y.toString())).toString() + s2.substring(32, 64));
+                s2 = new StringBuilder(computeAdd(new DataType(s2.substring(0, 32)), new DataType(y.toString())).toString() + s2.substring(32, 64));
             } else {
-                s2 = new StringBuilder(sub(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
+                s2 = new StringBuilder(computeSub(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
             }
             for (int i = 0; i < 32; i++) {
                 if (s2.charAt(0) == y.charAt(0)) { // 同号
                     s2.append('1');
                     s2.deleteCharAt(0);
-                    s2 = new StringBuilder(sub(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
+                    s2 = new StringBuilder(computeSub(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
                 } else {
                     s2.append('0');
                     s2.deleteCharAt(0);
-                    s2 = new StringBuilder(add(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
+                    s2 = new StringBuilder(computeAdd(new DataType(y.toString()), new DataType(s2.substring(0, 32))).toString() + s2.substring(32, 64));
                 }
             }
-            remainderReg = new DataType(s2.substring(0, 32));
+            DataType remainder = DataType.valueOf(s2.substring(0, 32));
             StringBuilder z = new StringBuilder(s2.substring(32, 64));
-            if (Integer.parseInt(Transformer.binaryToInt(dest.toString())) == -Integer.parseInt(Transformer.binaryToInt(src.toString()))) {
-                return new DataType(z.toString());
+            if (!dest.toString().equals(src.toString()) // 0x80000000取负仍为自身，不能算作互为相反数
+                    && Integer.parseInt(Transformer.binaryToInt(dest.toString())) == -Integer.parseInt(Transformer.binaryToInt(src.toString()))) {
+                return new DivRem(DataType.valueOf(z.toString()), remainder);
             }
             //以下为商修正
             z.deleteCharAt(0); // 左移
-            if (remainderReg.toString().charAt(0) == y.charAt(0)) {
+            if (remainder.toString().charAt(0) == y.charAt(0)) {
                 z.append('1');
             } else {
                 z.append('0');
@@ -238,32 +424,167 @@ public class ALU {
             }
 
             // 以下为余数修正
-            if (remainderReg.toString().charAt(0) != dest.toString().charAt(0)) {
+            if (remainder.toString().charAt(0) != dest.toString().charAt(0)) {
                 if (dest.toString().charAt(0) == y.charAt(0)) {
-                    remainderReg = add(remainderReg, new DataType(y.toString()));
+                    remainder = computeAdd(remainder, new DataType(y.toString()));
                 } else {
-                    remainderReg = sub(new DataType(y.toString()), remainderReg);
+                    remainder = computeSub(new DataType(y.toString()), remainder);
                 }
             }
-            if (Math.abs(Integer.parseInt(Transformer.binaryToInt(remainderReg.toString()))) == Math.abs(Integer.parseInt(Transformer.binaryToInt(y.toString())))) {
-                if (remainderReg.toString().charAt(0) == y.charAt(0)) { // 余数和除数同号
+            if (Math.abs(Integer.parseInt(Transformer.binaryToInt(remainder.toString()))) == Math.abs(Integer.parseInt(Transformer.binaryToInt(y.toString())))) {
+                if (remainder.toString().charAt(0) == y.charAt(0)) { // 余数和除数同号
                     if (z.toString().charAt(0) == '0') {
-                        z = new StringBuilder(add(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
+                        z = new StringBuilder(computeAdd(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
                     } else {
-                        z = new StringBuilder(sub(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
+                        z = new StringBuilder(computeSub(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
                     }
                 } else { // 余数和除数异号
                     if (z.toString().charAt(0) == '0') {
-                        z = new StringBuilder(add(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
+                        z = new StringBuilder(computeAdd(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
                     } else {
-                        z = new StringBuilder(sub(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
+                        z = new StringBuilder(computeSub(new DataType(Transformer.intToBinary(String.valueOf(1))), new DataType(z.toString())).toString());
                     }
                 }
-                remainderReg = new DataType("00000000000000000000000000000000");
+                remainder = DataType.ZERO;
             }
-            return new DataType(z.toString());
+            return new DivRem(DataType.valueOf(z.toString()), remainder);
         } else {
             throw new ArithmeticException();
         }
     }
+
+    /**
+     * 计时并记录一次运算（ArithmeticMetrics和WorkloadRecorder中打开的那些），抛出的ArithmeticException单独计数
+     * 除法录制的结果为商
+     */
+    private <T> T measure(int operation, DataType src, DataType dest, BiFunction<DataType, DataType, T> compute) {
+        boolean metrics = ArithmeticMetrics.active();
+        long start = metrics ? System.nanoTime() : 0;
+        T ans;
+        try {
+            ans = compute.apply(src, dest);
+        } catch (ArithmeticException e) {
+            ArithmeticMetrics.exception(operation);
+            WorkloadRecorder.recordThrown(operation, src.bits(), dest.bits());
+            throw e;
+        }
+        if (metrics) {
+            ArithmeticMetrics.recordInteger(operation, src.bits(), dest.bits(), System.nanoTime() - start);
+        }
+        if (WorkloadRecorder.active()) {
+            DataType result = ans instanceof DivRem ? ((DivRem) ans).quotient() : (DataType) ans;
+            WorkloadRecorder.record(operation, src.bits(), dest.bits(), result.bits());
+        }
+        return ans;
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] + src[i]，i取遍[from, to)
+     *
+     * @param src  32位补码整数数组
+     * @param dest 32位补码整数数组
+     * @param out  结果数组，可以与src或dest相同
+     * @param from 起始下标（包含）
+     * @param to   结束下标（不包含）
+     */
+    public void add(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && !(metered && WorkloadRecorder.active())) { // 录制时逐个计算，以便录制每个元素
+            if (metered) {
+                ArithmeticMetrics.recordBatch(ArithmeticMetrics.ALU_ADD, to - from);
+            }
+            for (int i = from; i < to; i++) {
+                out[i] = dest[i] + src[i];
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = add(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] - src[i]
+     */
+    public void sub(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && !(metered && WorkloadRecorder.active())) { // 录制时逐个计算，以便录制每个元素
+            if (metered) {
+                ArithmeticMetrics.recordBatch(ArithmeticMetrics.ALU_SUB, to - from);
+            }
+            for (int i = from; i < to; i++) {
+                out[i] = dest[i] - src[i];
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = sub(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] * src[i]（结果低位截取后32位）
+     */
+    public void mul(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && !(metered && WorkloadRecorder.active())) { // 录制时逐个计算，以便录制每个元素
+            if (metered) {
+                ArithmeticMetrics.recordBatch(ArithmeticMetrics.ALU_MUL, to - from);
+            }
+            if (multiplier != null) {
+                for (int i = from; i < to; i++) {
+                    out[i] = (int) multiplier.multiply(src[i], dest[i], counter);
+                }
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                out[i] = dest[i] * src[i];
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = mul(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量计算quotient[i] = dest[i] ÷ src[i]，余数写入remainder[i]
+     * 遇到除数为0的通道时抛出ArithmeticException，此前的通道已经写入结果；上下文不抛出异常时按divRem的约定写入
+     *
+     * @param remainder 余数数组，不需要余数时可以为null
+     */
+    public void div(int[] src, int[] dest, int[] quotient, int[] remainder, int from, int to) {
+        if (engine == Engine.NATIVE && context == null && !(metered && WorkloadRecorder.active())) { // 录制时逐个计算，以便录制每个元素
+            if (metered) {
+                ArithmeticMetrics.recordBatch(ArithmeticMetrics.ALU_DIV, to - from);
+            }
+            for (int i = from; i < to; i++) {
+                int divisor = src[i];
+                int dividend = dest[i];
+                if (divisor == 0) {
+                    if (metered) {
+                        ArithmeticMetrics.exception(ArithmeticMetrics.ALU_DIV);
+                    }
+                    throw new ArithmeticException();
+                }
+                if (divider != null) {
+                    long ans = divider.divide(divisor, dividend, counter);
+                    quotient[i] = Divider.quotient(ans);
+                    if (remainder != null) {
+                        remainder[i] = Divider.remainder(ans);
+                    }
+                    continue;
+                }
+                quotient[i] = dividend / divisor;
+                if (remainder != null) {
+                    remainder[i] = dividend % divisor;
+                }
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            DivRem ans = divRem(DataType.ofBits(src[i]), DataType.ofBits(dest[i]));
+            quotient[i] = ans.quotient().bits();
+            if (remainder != null) {
+                remainder[i] = ans.remainder().bits();
+            }
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package cpu.alu;
+
+/**
+ * 乘除法数据通路的模拟开销：周期数和加法器（包括3:2压缩器行）的使用次数
+ * 由Multiplier、Divider在每次运算后累加；不是线程安全的，每个线程应使用自己的计数器
+ */
+public final class CycleCounter {
+
+    private long operations;
+
+    private long cycles;
+
+    private long adders;
+
+    /**
+     * 记录一次运算的开销
+     */
+    public void record(int cycles, int adders) {
+        this.operations++;
+        this.cycles += cycles;
+        this.adders += adders;
+    }
+
+    public long operations() {
+        return operations;
+    }
+
+    public long cycles() {
+        return cycles;
+    }
+
+    public long adders() {
+        return adders;
+    }
+
+    public void reset() {
+        operations = 0;
+        cycles = 0;
+        adders = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("operations=%d cycles=%d (%.2f/op) adders=%d (%.2f/op)", operations, cycles,
+                operations == 0 ? 0 : (double) cycles / operations, adders, operations == 0 ? 0 : (double) adders / operations);
+    }
+
+}
@@ -0,0 +1,50 @@
+package cpu.alu;
+
+import util.DataType;
+
+/**
+ * 整数除法的结果：商和余数，不可变
+ * 余数与被除数同号，满足 dest = quotient * src + remainder
+ */
+public final class DivRem {
+
+    private final DataType quotient;
+
+    private final DataType remainder;
+
+    public DivRem(DataType quotient, DataType remainder) {
+        this.quotient = quotient;
+        this.remainder = remainder;
+    }
+
+    public DataType quotient() {
+        return quotient;
+    }
+
+    public DataType remainder() {
+        return remainder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DivRem)) {
+            return false;
+        }
+        DivRem other = (DivRem) o;
+        return quotient.equals(other.quotient) && remainder.equals(other.remainder);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * quotient.hashCode() + remainder.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "DivRem{quotient=" + quotient + ", remainder=" + remainder + "}";
+    }
+
+}
@@ -0,0 +1,32 @@
+package cpu.alu;
+
+/**
+ * 整数除法的数据通路
+ * 实现不应保存每次运算的状态，同一个实例可以在多个线程之间共享（每个线程使用自己的CycleCounter）
+ */
+public interface Divider {
+
+    /**
+     * dest ÷ src，商向0截断，余数与被除数同号（与Java的/、%相同），并把模拟的开销记入counter
+     *
+     * @return 高32位为商，低32位为余数，分别由quotient、remainder取出
+     * @throws ArithmeticException src为0
+     */
+    long divide(int src, int dest, CycleCounter counter);
+
+    static int quotient(long result) {
+        return (int) (result >>> 32);
+    }
+
+    static int remainder(long result) {
+        return (int) result;
+    }
+
+    /**
+     * 把商和余数合成divide的返回值
+     */
+    static long pack(int quotient, int remainder) {
+        return ((long) quotient << 32) | (remainder & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,144 @@
+package cpu.alu;
+
+/**
+ * 内置的除法器
+ * 周期数按每个周期完成一次部分余数的加减（或一步商位选择）计算，加法器使用次数只计实际做了加减的步骤
+ */
+public enum DividerAlgorithm implements Divider {
+
+    /**
+     * 不恢复余数除法（ALU的BIT_SERIAL实现）：被除数符号扩展到64位，余数与除数同号时左移上商1并减除数，
+     * 否则左移上商0并加除数，最后修正商和余数
+     * 初始一步加32步迭代共33个周期，商修正、余数修正各占一个周期和一次加法器
+     */
+    NON_RESTORING {
+        @Override
+        public long divide(int src, int dest, CycleCounter counter) {
+            if (src == 0) {
+                throw new ArithmeticException();
+            }
+            int divisor = src;
+            int high = dest < 0 ? -1 : 0;
+            int low = dest;
+            high = (high ^ divisor) < 0 ? high + divisor : high - divisor;
+            int steps = 1;
+            for (int i = 0; i < 32; i++) {
+                boolean same = (high ^ divisor) >= 0;
+                high = (high << 1) | (low >>> 31);
+                low = (low << 1) | (same ? 1 : 0);
+                high = same ? high - divisor : high + divisor;
+                steps++;
+            }
+            int remainder = high;
+            int quotient = low;
+            if (dest != src && dest == -src) { // 互为相反数时商为-1，余数为0，不需要修正
+                counter.record(steps, steps);
+                return Divider.pack(quotient, remainder);
+            }
+            quotient = (quotient << 1) | ((remainder ^ divisor) >= 0 ? 1 : 0);
+            if ((dest ^ divisor) < 0) {
+                quotient++;
+                steps++;
+            }
+            if ((remainder ^ dest) < 0) {
+                remainder = (dest ^ divisor) >= 0 ? remainder + divisor : remainder - divisor;
+                steps++;
+            }
+            if (Math.abs(remainder) == Math.abs(divisor)) { // 余数的绝对值等于除数，商再调整1
+                quotient = quotient >= 0 ? quotient + 1 : quotient - 1;
+                remainder = 0;
+                steps++;
+            }
+            counter.record(steps, steps);
+            return Divider.pack(quotient, remainder);
+        }
+    },
+
+    /**
+     * 基4 SRT除法：商位取{-2, -1, 0, 1, 2}，冗余度为2/3，每步只根据部分余数高位（3位小数）和
+     * 规格化除数的前4位查表选择商位，不需要精确比较；商位可以为负，最后一步把余数修正为非负
+     * 除数先规格化（1个周期），16步迭代，最后修正1个周期，共18个周期；每个非0商位和修正各使用一次加法器
+     */
+    SRT_RADIX4 {
+        @Override
+        public long divide(int src, int dest, CycleCounter counter) {
+            if (src == 0) {
+                throw new ArithmeticException();
+            }
+            long magnitude = Math.abs((long) src);
+            long x = Math.abs((long) dest);
+            int shift = Long.numberOfLeadingZeros(magnitude) - 32; // 除数规格化到[2^31, 2^32)
+            long d = magnitude << shift;
+            long rem = x << shift; // 不超过2^62，部分余数w = rem / 2^64
+            int index = (int) (d >>> 28) & 7;
+            long quotient = 0;
+            int adders = 0;
+            for (int j = 15; j >= 0; j--) { // 本步商位的权重为4^j
+                int estimate = (int) (rem >> (29 + 2 * j)); // 4w的估计值，单位为1/8，截断误差在[0, 1/8)之内
+                int digit = SRT_DIGITS[index * SRT_COLUMNS + estimate + SRT_OFFSET];
+                if (digit != 0) {
+                    rem -= (digit * d) << (2 * j);
+                    adders++;
+                }
+                quotient = (quotient << 2) + digit;
+            }
+            if (rem < 0) { // 余数在(-d, d)之间，为负时商减1
+                rem += d;
+                quotient--;
+                adders++;
+            }
+            counter.record(18, adders);
+            int q = (int) quotient; // -2^31 / -1溢出为-2^31，与Java相同
+            int r = (int) (rem >>> shift);
+            return Divider.pack((src ^ dest) < 0 ? -q : q, dest < 0 ? -r : r);
+        }
+    };
+
+    /**
+     * 商位选择表的列数：4w的估计值在[-24, 24)之间（单位1/8）
+     */
+    private static final int SRT_COLUMNS = 48;
+
+    private static final int SRT_OFFSET = 24;
+
+    /**
+     * 商位选择表，行为规格化除数d的第2~4位（d在[1/2 + i/16, 1/2 + (i+1)/16)之间），列为4w的估计值y
+     * 商位k可选当且仅当对区间内所有d和[y, y + 1/8)内所有4w都有(k - 2/3)d &lt;= 4w &lt;= (k + 2/3)d，
+     * 以上不等式乘以384后全部是整数运算；类加载时检查每个可能出现的格子都有可选的商位
+     */
+    private static final byte[] SRT_DIGITS = new byte[8 * SRT_COLUMNS];
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            int dMin = 8 + i; // 16d的下界
+            int dMax = 9 + i;
+            for (int y = -SRT_OFFSET; y < SRT_COLUMNS - SRT_OFFSET; y++) {
+                int digit;
+                if (3 * y >= 2 * dMax) { // y >= (4/3)d，上界由|4w| <= (8/3)d保证
+                    digit = 2;
+                } else if (3 * (y + 1) <= -2 * dMax) {
+                    digit = -2;
+                } else {
+                    digit = Integer.MIN_VALUE;
+                    for (int k = -1; k <= 1; k++) {
+                        int lower = 3 * k - 2;
+                        int upper = 3 * k + 2;
+                        if (6 * y >= lower * (lower > 0 ? dMax : dMin) && 6 * (y + 1) <= upper * (upper > 0 ? dMin : dMax)) {
+                            digit = k;
+                            break;
+                        }
+                    }
+                    boolean reachable = 3 * (y + 1) > -4 * dMax && 3 * y <= 4 * dMax;
+                    if (digit == Integer.MIN_VALUE) {
+                        if (reachable) {
+                            throw new IllegalStateException("No SRT digit for d=" + dMin + "/16, y=" + y + "/8");
+                        }
+                        digit = y < 0 ? -2 : 2;
+                    }
+                }
+                SRT_DIGITS[i * SRT_COLUMNS + y + SRT_OFFSET] = (byte) digit;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package cpu.alu;
+
+/**
+ * 整数乘法的数据通路
+ * 实现不应保存每次运算的状态，同一个实例可以在多个线程之间共享（每个线程使用自己的CycleCounter）
+ */
+public interface Multiplier {
+
+    /**
+     * dest * src，并把模拟的周期数和加法器使用次数记入counter
+     *
+     * @return 64位补码乘积，ALU取其低32位
+     */
+    long multiply(int src, int dest, CycleCounter counter);
+
+}
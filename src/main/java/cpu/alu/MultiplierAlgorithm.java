@@ -0,0 +1,138 @@
+package cpu.alu;
+
+/**
+ * 内置的乘法器
+ * 周期数按每个周期完成一次部分积相加（或一级3:2压缩）计算，加法器使用次数只计实际做了加减的部分积
+ */
+public enum MultiplierAlgorithm implements Multiplier {
+
+    /**
+     * 基2 Booth（ALU的BIT_SERIAL实现）：逐位比较y(i)与y(i-1)，01加被乘数、10减被乘数
+     * 32个周期，每个非0的Booth位使用一次加法器
+     */
+    BOOTH_RADIX2 {
+        @Override
+        public long multiply(int src, int dest, CycleCounter counter) {
+            long multiplicand = src;
+            long product = 0;
+            int transitions = dest ^ (dest << 1); // 第i位为1表示y(i)与y(i-1)不同，只有这些周期需要加减
+            int adders = Integer.bitCount(transitions);
+            while (transitions != 0) {
+                int i = Integer.numberOfTrailingZeros(transitions);
+                product += ((dest >>> i) & 1) == 0 ? multiplicand << i : -(multiplicand << i);
+                transitions &= transitions - 1;
+            }
+            counter.record(32, adders);
+            return product;
+        }
+    },
+
+    /**
+     * 基4 Booth：每次考察y(2k+1)、y(2k)、y(2k-1)三位，部分积为被乘数的0、±1、±2倍
+     * 16个周期，每个非0的Booth位使用一次加法器
+     */
+    BOOTH_RADIX4 {
+        @Override
+        public long multiply(int src, int dest, CycleCounter counter) {
+            long multiplicand = src;
+            long extended = (long) dest << 1; // 最低位之后补y(-1) = 0
+            long product = 0;
+            int adders = 0;
+            for (int k = 0; k < 16; k++) {
+                int triplet = (int) (extended >>> (2 * k)) & 7;
+                int digit = BOOTH4[triplet];
+                product += (digit * multiplicand) << (2 * k);
+                adders += (digit | -digit) >>> 31; // 非0的Booth位
+            }
+            counter.record(16, adders);
+            return product;
+        }
+    },
+
+    /**
+     * Wallace树：32行部分积（乘数最高位对应的行取负）逐级用3:2压缩器归约到2行，再由一个进位传播加法器相加
+     * 8级压缩加1次相加共9个周期；30行压缩器和1个加法器，与操作数无关
+     * 树的连线是固定的，按级展开为局部变量，每3行一组压缩，剩余的行直接进入下一级，不分配数组
+     */
+    WALLACE_TREE {
+        @Override
+        public long multiply(int src, int dest, CycleCounter counter) {
+            // 32行部分积，乘数最高位对应的行取负
+            long p0 = row(src, dest, 0), p1 = row(src, dest, 1), p2 = row(src, dest, 2), p3 = row(src, dest, 3);
+            long p4 = row(src, dest, 4), p5 = row(src, dest, 5), p6 = row(src, dest, 6), p7 = row(src, dest, 7);
+            long p8 = row(src, dest, 8), p9 = row(src, dest, 9), p10 = row(src, dest, 10), p11 = row(src, dest, 11);
+            long p12 = row(src, dest, 12), p13 = row(src, dest, 13), p14 = row(src, dest, 14), p15 = row(src, dest, 15);
+            long p16 = row(src, dest, 16), p17 = row(src, dest, 17), p18 = row(src, dest, 18), p19 = row(src, dest, 19);
+            long p20 = row(src, dest, 20), p21 = row(src, dest, 21), p22 = row(src, dest, 22), p23 = row(src, dest, 23);
+            long p24 = row(src, dest, 24), p25 = row(src, dest, 25), p26 = row(src, dest, 26), p27 = row(src, dest, 27);
+            long p28 = row(src, dest, 28), p29 = row(src, dest, 29), p30 = row(src, dest, 30), p31 = dest < 0 ? -((long) src << 31) : 0;
+            // 第1级：32行压缩为22行，p30、p31直接进入下一级
+            long a0 = sum(p0, p1, p2), a1 = carry(p0, p1, p2);
+            long a2 = sum(p3, p4, p5), a3 = carry(p3, p4, p5);
+            long a4 = sum(p6, p7, p8), a5 = carry(p6, p7, p8);
+            long a6 = sum(p9, p10, p11), a7 = carry(p9, p10, p11);
+            long a8 = sum(p12, p13, p14), a9 = carry(p12, p13, p14);
+            long a10 = sum(p15, p16, p17), a11 = carry(p15, p16, p17);
+            long a12 = sum(p18, p19, p20), a13 = carry(p18, p19, p20);
+            long a14 = sum(p21, p22, p23), a15 = carry(p21, p22, p23);
+            long a16 = sum(p24, p25, p26), a17 = carry(p24, p25, p26);
+            long a18 = sum(p27, p28, p29), a19 = carry(p27, p28, p29);
+            // 第2级：22行压缩为15行，p31直接进入下一级
+            long b0 = sum(a0, a1, a2), b1 = carry(a0, a1, a2);
+            long b2 = sum(a3, a4, a5), b3 = carry(a3, a4, a5);
+            long b4 = sum(a6, a7, a8), b5 = carry(a6, a7, a8);
+            long b6 = sum(a9, a10, a11), b7 = carry(a9, a10, a11);
+            long b8 = sum(a12, a13, a14), b9 = carry(a12, a13, a14);
+            long b10 = sum(a15, a16, a17), b11 = carry(a15, a16, a17);
+            long b12 = sum(a18, a19, p30), b13 = carry(a18, a19, p30);
+            // 第3级：15行压缩为10行
+            long c0 = sum(b0, b1, b2), c1 = carry(b0, b1, b2);
+            long c2 = sum(b3, b4, b5), c3 = carry(b3, b4, b5);
+            long c4 = sum(b6, b7, b8), c5 = carry(b6, b7, b8);
+            long c6 = sum(b9, b10, b11), c7 = carry(b9, b10, b11);
+            long c8 = sum(b12, b13, p31), c9 = carry(b12, b13, p31);
+            // 第4级：10行压缩为7行，c9直接进入下一级
+            long d0 = sum(c0, c1, c2), d1 = carry(c0, c1, c2);
+            long d2 = sum(c3, c4, c5), d3 = carry(c3, c4, c5);
+            long d4 = sum(c6, c7, c8), d5 = carry(c6, c7, c8);
+            // 第5级：7行压缩为5行，c9直接进入下一级
+            long e0 = sum(d0, d1, d2), e1 = carry(d0, d1, d2);
+            long e2 = sum(d3, d4, d5), e3 = carry(d3, d4, d5);
+            // 第6级：5行压缩为4行，e3、c9直接进入下一级
+            long f0 = sum(e0, e1, e2), f1 = carry(e0, e1, e2);
+            // 第7级：4行压缩为3行，c9直接进入下一级
+            long g0 = sum(f0, f1, e3), g1 = carry(f0, f1, e3);
+            // 第8级：3行压缩为2行
+            long h0 = sum(g0, g1, c9), h1 = carry(g0, g1, c9);
+            counter.record(8 + 1, 30 + 1); // 8级压缩加1次进位传播相加，30个压缩器加1个加法器
+            return h0 + h1;
+        }
+    };
+
+    /**
+     * 乘数第i位为1时部分积为被乘数左移i位，否则为0
+     */
+    private static long row(int src, int dest, int i) {
+        return ((long) src << i) & -((dest >>> i) & 1L);
+    }
+
+    /**
+     * 3:2压缩器的和
+     */
+    private static long sum(long a, long b, long c) {
+        return a ^ b ^ c;
+    }
+
+    /**
+     * 3:2压缩器的进位，左移1位与和对齐
+     */
+    private static long carry(long a, long b, long c) {
+        return ((a & b) | (a & c) | (b & c)) << 1;
+    }
+
+    /**
+     * 基4 Booth编码：(y(2k+1), y(2k), y(2k-1)) -> 部分积的倍数
+     */
+    private static final int[] BOOTH4 = {0, 1, 1, 2, -2, -1, -1, 0};
+
+}
@@ -0,0 +1,103 @@
+package cpu.alu;
+
+import util.DataType;
+import util.NBCD;
+
+/**
+ * NBCD码（8421码）的加减运算单元
+ * 操作数为压缩的NBCD码（见util.NBCD），7位数字在一次32位加法中并行相加，每一位的+6修正也并行完成
+ * 结果超出7位时舍去最高位的进位，与ALU的溢出处理一致
+ */
+public class NBCDU {
+
+    /**
+     * 每一位数字预先加6，使十进制进位与二进制进位发生在同一位置
+     */
+    private static final int SIX = 0x06666666;
+
+    /**
+     * 每一位数字的最低位（第0位除外）以及第7位数字的进位位
+     */
+    private static final int CARRY_BITS = 0x11111110;
+
+    private static final int NINES = 0x09999999;
+
+    /**
+     * dest + src
+     *
+     * @param src  32-bits NBCD
+     * @param dest 32-bits NBCD
+     * @return 32-bits NBCD
+     */
+    public DataType add(DataType src, DataType dest) {
+        return DataType.ofBits(add(src.bits(), dest.bits()));
+    }
+
+    /**
+     * dest - src
+     *
+     * @param src  32-bits NBCD
+     * @param dest 32-bits NBCD
+     * @return 32-bits NBCD
+     */
+    public DataType sub(DataType src, DataType dest) {
+        return DataType.ofBits(sub(src.bits(), dest.bits()));
+    }
+
+    /**
+     * dest + src，操作数和结果都是压缩的NBCD码
+     */
+    public int add(int src, int dest) {
+        check(src);
+        check(dest);
+        int srcDigits = NBCD.digits(src);
+        int destDigits = NBCD.digits(dest);
+        int sign = NBCD.sign(dest);
+        int digits;
+        if (NBCD.sign(src) == sign) {
+            digits = NBCD.digits(addDigits(srcDigits, destDigits));
+        } else {
+            // |dest| - |src|，用十进制补码相加：|dest| + (9999999 - |src|) + 1，最高位有进位说明差不小于0
+            int sum = addDigits(addDigits(destDigits, NINES - srcDigits), 1);
+            if ((sum & (1 << 28)) != 0) {
+                digits = NBCD.digits(sum);
+            } else { // 差为负数，结果取十进制补码并变号
+                digits = NBCD.digits(addDigits(NINES - sum, 1));
+                sign = sign == NBCD.POSITIVE ? NBCD.NEGATIVE : NBCD.POSITIVE;
+            }
+        }
+        if (digits == 0) { // 0的符号为正
+            sign = NBCD.POSITIVE;
+        }
+        return (sign << 28) | digits;
+    }
+
+    /**
+     * dest - src，操作数和结果都是压缩的NBCD码
+     */
+    public int sub(int src, int dest) {
+        check(src);
+        return add(src ^ (1 << 28), dest); // 1100与1101只差最低位
+    }
+
+    /**
+     * 7位BCD数字相加，第28位为最高位的进位
+     * 先给每一位加6，相加后没有产生进位的位再减去6
+     */
+    static int addDigits(int a, int b) {
+        int t1 = a + SIX;
+        int t2 = t1 + b;
+        int t3 = t1 ^ b;
+        int t4 = t2 ^ t3; // 每一位接收到的进位
+        int t5 = ~t4 & CARRY_BITS; // 没有向高位进位的数字
+        int t6 = (t5 >>> 2) | (t5 >>> 3); // 对应数字的6
+        return t2 - t6;
+    }
+
+    private static void check(int nbcd) {
+        if (!NBCD.isValid(nbcd)) {
+            throw new IllegalArgumentException("Illegal NBCD: " + Integer.toHexString(nbcd));
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package cpu.fpu;
+
+/**
+ * BIT_SERIAL引擎的移位单元：二进制字符串的桶形移位和前导0计数
+ * 移位结果由两段子串拼接而成，开销只与字符串长度有关，与移位位数无关；
+ * 规格化时先数出前导0的个数，再一次移到位，不再逐位移动
+ */
+final class BarrelShifter {
+
+    /**
+     * 移入的0，比所有操作数都长
+     */
+    private static final String ZEROS = "0000000000000000000000000000000000000000000000000000000000000000";
+
+    private BarrelShifter() {
+    }
+
+    /**
+     * 逻辑右移，长度不变，移出的位或到最低位（粘位）
+     *
+     * @param n 不小于0，不小于长度时结果只剩粘位
+     */
+    static String shiftRightJam(String operand, int n) {
+        int length = operand.length();
+        if (n <= 0) {
+            return operand;
+        }
+        if (n >= length) {
+            return ZEROS.substring(0, length - 1) + (operand.indexOf('1') >= 0 ? '1' : '0');
+        }
+        boolean sticky = operand.indexOf('1', length - n) >= 0;
+        String shifted = ZEROS.substring(0, n) + operand.substring(0, length - n);
+        return sticky ? shifted.substring(0, length - 1) + '1' : shifted;
+    }
+
+    /**
+     * 逻辑左移，长度不变
+     *
+     * @param n 0到长度之间
+     */
+    static String shiftLeft(String operand, int n) {
+        if (n <= 0) {
+            return operand;
+        }
+        return operand.substring(n) + ZEROS.substring(0, n);
+    }
+
+    /**
+     * @return 前导0的个数，全为0时为长度
+     */
+    static int leadingZeros(String operand) {
+        int first = operand.indexOf('1');
+        return first < 0 ? operand.length() : first;
+    }
+
+}
@@ -0,0 +1,287 @@
+package cpu.fpu;
+
+import util.ArithmeticMetrics;
+import util.FloatFormat;
+import util.IEEE754Float;
+import util.UnpackedFloat;
+
+/**
+ * 特殊操作数（0、Inf、NaN）的处理
+ * 以两个操作数的分类（IEEE754Float.classify）为下标查表，表在类加载时构建一次
+ */
+final class CornerCases {
+
+    /**
+     * 不是特殊情况，交给数据通路计算
+     */
+    static final byte COMPUTE = 0;
+
+    static final byte NaN = 1;
+
+    static final byte P_ZERO = 2;
+
+    static final byte N_ZERO = 3;
+
+    /**
+     * 返回src本身
+     */
+    static final byte SRC = 4;
+
+    /**
+     * 返回dest本身
+     */
+    static final byte DEST = 5;
+
+    /**
+     * 返回-src
+     */
+    static final byte NEG_SRC = 6;
+
+    /**
+     * 符号为两操作数符号异或的0
+     */
+    static final byte SIGNED_ZERO = 7;
+
+    /**
+     * 符号为两操作数符号异或的Inf
+     */
+    static final byte SIGNED_INF = 8;
+
+    /**
+     * 除数为0且被除数不为0，抛出ArithmeticException
+     */
+    static final byte DIV_BY_ZERO = 9;
+
+    static final byte[] ADD = new byte[IEEE754Float.CLASS_COUNT * IEEE754Float.CLASS_COUNT];
+
+    static final byte[] SUB = new byte[IEEE754Float.CLASS_COUNT * IEEE754Float.CLASS_COUNT];
+
+    static final byte[] MUL = new byte[IEEE754Float.CLASS_COUNT * IEEE754Float.CLASS_COUNT];
+
+    static final byte[] DIV = new byte[IEEE754Float.CLASS_COUNT * IEEE754Float.CLASS_COUNT];
+
+    /**
+     * sqrt(src)，以操作数的类别为下标；负的有限数另外由checkSqrt处理
+     */
+    static final byte[] SQRT = new byte[IEEE754Float.CLASS_COUNT];
+
+    private static final int[] ZEROS = {IEEE754Float.CLASS_P_ZERO, IEEE754Float.CLASS_N_ZERO};
+
+    private static final int[] INFS = {IEEE754Float.CLASS_P_INF, IEEE754Float.CLASS_N_INF};
+
+    private static final int[] FINITES = {IEEE754Float.CLASS_SUBNORMAL, IEEE754Float.CLASS_NORMAL};
+
+    static {
+        // dest + src
+        set(ADD, IEEE754Float.CLASS_P_ZERO, IEEE754Float.CLASS_P_ZERO, P_ZERO);
+        set(ADD, IEEE754Float.CLASS_N_ZERO, IEEE754Float.CLASS_P_ZERO, P_ZERO);
+        set(ADD, IEEE754Float.CLASS_P_ZERO, IEEE754Float.CLASS_N_ZERO, P_ZERO);
+        set(ADD, IEEE754Float.CLASS_N_ZERO, IEEE754Float.CLASS_N_ZERO, N_ZERO);
+        set(ADD, IEEE754Float.CLASS_P_INF, IEEE754Float.CLASS_N_INF, NaN);
+        set(ADD, IEEE754Float.CLASS_N_INF, IEEE754Float.CLASS_P_INF, NaN);
+        for (int inf : INFS) {
+            set(ADD, inf, inf, SRC);
+            set(ADD, inf, ZEROS, SRC);
+            set(ADD, inf, FINITES, SRC);
+            set(ADD, ZEROS, inf, DEST);
+            set(ADD, FINITES, inf, DEST);
+        }
+        set(ADD, ZEROS, FINITES, DEST);
+        set(ADD, FINITES, ZEROS, SRC);
+
+        // dest - src
+        set(SUB, IEEE754Float.CLASS_P_ZERO, IEEE754Float.CLASS_P_ZERO, P_ZERO);
+        set(SUB, IEEE754Float.CLASS_N_ZERO, IEEE754Float.CLASS_P_ZERO, P_ZERO);
+        set(SUB, IEEE754Float.CLASS_P_ZERO, IEEE754Float.CLASS_N_ZERO, N_ZERO);
+        set(SUB, IEEE754Float.CLASS_N_ZERO, IEEE754Float.CLASS_N_ZERO, P_ZERO);
+        set(SUB, IEEE754Float.CLASS_P_INF, IEEE754Float.CLASS_P_INF, NaN);
+        set(SUB, IEEE754Float.CLASS_N_INF, IEEE754Float.CLASS_N_INF, NaN);
+        set(SUB, IEEE754Float.CLASS_P_INF, IEEE754Float.CLASS_N_INF, DEST);
+        set(SUB, IEEE754Float.CLASS_N_INF, IEEE754Float.CLASS_P_INF, DEST);
+        for (int inf : INFS) {
+            set(SUB, inf, ZEROS, NEG_SRC);
+            set(SUB, inf, FINITES, NEG_SRC);
+            set(SUB, ZEROS, inf, DEST);
+            set(SUB, FINITES, inf, DEST);
+        }
+        set(SUB, ZEROS, FINITES, DEST);
+        set(SUB, FINITES, ZEROS, NEG_SRC);
+
+        // dest * src
+        set(MUL, ZEROS, ZEROS, SIGNED_ZERO);
+        set(MUL, ZEROS, FINITES, SIGNED_ZERO);
+        set(MUL, FINITES, ZEROS, SIGNED_ZERO);
+        set(MUL, ZEROS, INFS, NaN);
+        set(MUL, INFS, ZEROS, NaN);
+        set(MUL, INFS, INFS, SIGNED_INF);
+        set(MUL, INFS, FINITES, SIGNED_INF);
+        set(MUL, FINITES, INFS, SIGNED_INF);
+
+        // dest / src
+        set(DIV, ZEROS, ZEROS, NaN);
+        set(DIV, INFS, INFS, NaN);
+        set(DIV, ZEROS, FINITES, DIV_BY_ZERO);
+        set(DIV, ZEROS, INFS, DIV_BY_ZERO);
+        set(DIV, FINITES, ZEROS, SIGNED_ZERO);
+        set(DIV, INFS, ZEROS, SIGNED_ZERO);
+        set(DIV, INFS, FINITES, SIGNED_ZERO);
+        set(DIV, FINITES, INFS, SIGNED_INF);
+
+        // sqrt(±0) = ±0，sqrt(+Inf) = +Inf，sqrt(-Inf) = NaN
+        SQRT[IEEE754Float.CLASS_P_ZERO] = SRC;
+        SQRT[IEEE754Float.CLASS_N_ZERO] = SRC;
+        SQRT[IEEE754Float.CLASS_P_INF] = SRC;
+        SQRT[IEEE754Float.CLASS_N_INF] = NaN;
+        SQRT[IEEE754Float.CLASS_NaN] = NaN;
+
+        for (byte[] table : new byte[][]{ADD, SUB, MUL, DIV}) { // 有NaN时结果都是NaN
+            for (int i = 0; i < IEEE754Float.CLASS_COUNT; i++) {
+                set(table, IEEE754Float.CLASS_NaN, i, NaN);
+                set(table, i, IEEE754Float.CLASS_NaN, NaN);
+            }
+        }
+    }
+
+    private CornerCases() {
+    }
+
+    /**
+     * @param table ADD、SUB、MUL或DIV
+     * @return 对应的处理方式，COMPUTE表示需要正常计算
+     */
+    static byte check(byte[] table, int src, int dest) {
+        return record(table, table[IEEE754Float.classify(src) * IEEE754Float.CLASS_COUNT + IEEE754Float.classify(dest)]);
+    }
+
+    /**
+     * 同check(byte[], int, int)，使用解码时已经求出的类别
+     */
+    static byte check(byte[] table, UnpackedFloat src, UnpackedFloat dest) {
+        return record(table, table[src.category() * IEEE754Float.CLASS_COUNT + dest.category()]);
+    }
+
+    private static byte record(byte[] table, byte action) {
+        if (action != COMPUTE && ArithmeticMetrics.active()) {
+            ArithmeticMetrics.corner(operation(table));
+        }
+        return action;
+    }
+
+    /**
+     * @return sqrt的处理方式，除了查SQRT表，负的非0有限数也得到NaN
+     */
+    static byte checkSqrt(int src) {
+        byte action = SQRT[IEEE754Float.classify(src)];
+        return action == COMPUTE && src < 0 ? NaN : action;
+    }
+
+    /**
+     * 按两个操作数的类别查表，不记录指标，用于其他浮点格式
+     *
+     * @param srcClass  IEEE754Float.CLASS_*
+     * @param destClass IEEE754Float.CLASS_*
+     */
+    static byte lookup(byte[] table, int srcClass, int destClass) {
+        return table[srcClass * IEEE754Float.CLASS_COUNT + destClass];
+    }
+
+    /**
+     * @return 表对应的ArithmeticMetrics运算编号
+     */
+    private static int operation(byte[] table) {
+        if (table == ADD) {
+            return ArithmeticMetrics.FPU_ADD;
+        } else if (table == SUB) {
+            return ArithmeticMetrics.FPU_SUB;
+        } else if (table == MUL) {
+            return ArithmeticMetrics.FPU_MUL;
+        }
+        return ArithmeticMetrics.FPU_DIV;
+    }
+
+    /**
+     * 给出特殊情况下的运算结果
+     *
+     * @param action check返回的处理方式（不为COMPUTE）
+     * @return 32位结果
+     */
+    static int result(byte action, int src, int dest) {
+        switch (action) {
+            case NaN:
+                return 0x7FC00000;
+            case P_ZERO:
+                return 0x00000000;
+            case N_ZERO:
+                return 0x80000000;
+            case SRC:
+                return src;
+            case DEST:
+                return dest;
+            case NEG_SRC:
+                return src ^ 0x80000000;
+            case SIGNED_ZERO:
+                return (src ^ dest) & 0x80000000;
+            case SIGNED_INF:
+                return ((src ^ dest) & 0x80000000) | 0x7F800000;
+            case DIV_BY_ZERO:
+                throw new ArithmeticException();
+            default:
+                throw new IllegalArgumentException("Not a corner case: " + action);
+        }
+    }
+
+    /**
+     * 给出format格式下特殊情况的运算结果
+     *
+     * @param action lookup返回的处理方式（不为COMPUTE）
+     * @return format格式的位模式
+     */
+    static long result(byte action, FloatFormat format, long src, long dest) {
+        long signMask = format.signMask();
+        switch (action) {
+            case NaN:
+                return format.quietNaN();
+            case P_ZERO:
+                return format.zero(0);
+            case N_ZERO:
+                return format.zero(1);
+            case SRC:
+                return src;
+            case DEST:
+                return dest;
+            case NEG_SRC:
+                return src ^ signMask;
+            case SIGNED_ZERO:
+                return (src ^ dest) & signMask;
+            case SIGNED_INF:
+                return ((src ^ dest) & signMask) | format.infinity(0);
+            case DIV_BY_ZERO:
+                throw new ArithmeticException();
+            default:
+                throw new IllegalArgumentException("Not a corner case: " + action);
+        }
+    }
+
+    private static void set(byte[] table, int srcClass, int destClass, byte action) {
+        table[srcClass * IEEE754Float.CLASS_COUNT + destClass] = action;
+    }
+
+    private static void set(byte[] table, int srcClass, int[] destClasses, byte action) {
+        for (int destClass : destClasses) {
+            set(table, srcClass, destClass, action);
+        }
+    }
+
+    private static void set(byte[] table, int[] srcClasses, int destClass, byte action) {
+        for (int srcClass : srcClasses) {
+            set(table, srcClass, destClass, action);
+        }
+    }
+
+    private static void set(byte[] table, int[] srcClasses, int[] destClasses, byte action) {
+        for (int srcClass : srcClasses) {
+            set(table, srcClass, destClasses, action);
+        }
+    }
+
+}
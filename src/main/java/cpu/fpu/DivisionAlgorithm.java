@@ -0,0 +1,116 @@
+package cpu.fpu;
+
+/**
+ * 浮点除法求商的方式
+ * 所有方式求出的都是与恢复余数法相同的27位截断商（隐藏位+23位尾数+GRS保护位），之后的规格化和舍入完全相同，
+ * 因此结果逐位一致，可以共享同一个ResultCache
+ * 迭代法先查倒数初值表（规格化除数的前8位小数，相对误差不超过2^-9），迭代两次后误差远小于商的1个单位，
+ * 最后用一次乘法求出余数，把估计的商修正为精确的截断商
+ * 余数是否为0也一并给出，带ArithmeticContext的除法把它作为粘位，不带上下文时与原来一样忽略
+ */
+public enum DivisionAlgorithm {
+
+    /**
+     * 恢复余数法：BIT_SERIAL引擎每次求1位商；NATIVE引擎用整数除法指令，结果相同
+     */
+    RESTORING {
+        @Override
+        long quotient(int divisor, int dividend) {
+            long n = (long) dividend << 26;
+            long q = n / divisor;
+            return pack(q, n - q * divisor);
+        }
+    },
+
+    /**
+     * 牛顿迭代求倒数r = r(2 - dr)，每次迭代精度翻倍，再乘以被除数得到商
+     */
+    NEWTON_RAPHSON {
+        @Override
+        long quotient(int divisor, int dividend) {
+            int shift = Integer.numberOfLeadingZeros(divisor) - 5; // 非规格化的除数也规格化到[2^26, 2^27)
+            long d = (long) divisor << shift; // 值为d / 2^26，在[1, 2)之间
+            long n = (long) dividend << shift;
+            long r = RECIPROCAL_SEEDS[(int) (d >>> 18) & 0xFF]; // 2^56 / d的估计值
+            for (int i = 0; i < ITERATIONS; i++) {
+                r = (r * (TWO - (d * r >>> 26))) >>> 30;
+            }
+            return correct(n, d, (n * r) >>> 30);
+        }
+    },
+
+    /**
+     * Goldschmidt迭代：被除数和除数同乘f = 2 - d，除数趋于1时被除数趋于商；两个乘法互不依赖，可以并行
+     */
+    GOLDSCHMIDT {
+        @Override
+        long quotient(int divisor, int dividend) {
+            int shift = Integer.numberOfLeadingZeros(divisor) - 5;
+            long d = (long) divisor << shift;
+            long n = (long) dividend << shift;
+            long f = RECIPROCAL_SEEDS[(int) (d >>> 18) & 0xFF];
+            long den = d * f >>> 26; // 2^30为1
+            long num = n * f >>> 26;
+            for (int i = 0; i < ITERATIONS; i++) {
+                f = TWO - den;
+                den = den * f >>> 30;
+                num = num * f >>> 30;
+            }
+            return correct(n, d, num >>> 4);
+        }
+    };
+
+    /**
+     * 初值误差2^-9，两次迭代后为2^-36，受30位定点数截断误差限制，估计的商与精确值最多相差几个单位
+     */
+    private static final int ITERATIONS = 2;
+
+    /**
+     * 定点数2（2^30为1）
+     */
+    private static final long TWO = 1L << 31;
+
+    /**
+     * 倒数初值表：下标i对应规格化除数在[1 + i/256, 1 + (i+1)/256)之间，值为区间中点的倒数乘以2^30
+     */
+    private static final int[] RECIPROCAL_SEEDS = new int[256];
+
+    static {
+        for (int i = 0; i < RECIPROCAL_SEEDS.length; i++) {
+            RECIPROCAL_SEEDS[i] = (int) ((1L << 39) / (513 + 2 * i));
+        }
+    }
+
+    /**
+     * 求dividend / divisor的商，左移26位后截断
+     *
+     * @param divisor  不为0的27位尾数（低3位为0）
+     * @param dividend 27位尾数，小于2 * divisor，因此商不超过27位
+     * @return floor(dividend * 2^26 / divisor)左移1位，最低位为1表示余数不为0
+     */
+    abstract long quotient(int divisor, int dividend);
+
+    /**
+     * @return 商左移1位，最低位为余数是否不为0
+     */
+    static long pack(long quotient, long remainder) {
+        return quotient << 1 | (remainder != 0 ? 1 : 0);
+    }
+
+    /**
+     * 由余数n * 2^26 - q * d修正估计的商
+     */
+    private static long correct(long n, long d, long q) {
+        long rem = (n << 26) - q * d;
+        while (rem < 0) {
+            q--;
+            rem += d;
+        }
+        while (rem >= d) {
+            q++;
+            rem -= d;
+        }
+        return pack(q, rem);
+    }
+
+}
@@ -1,109 +1,138 @@
 package cpu.fpu;
 
 import cpu.alu.ALU;
+import util.ArithmeticContext;
+import util.ArithmeticMetrics;
 import util.DataType;
+import util.FloatFormat;
 import util.IEEE754Float;
+import util.ResultCache;
 import util.Transformer;
+import util.UnpackedFloat;
+import util.WorkloadRecorder;
+
+import java.util.function.BinaryOperator;
 
 /**
  * floating point unit
  * 执行浮点运算的抽象单元
  * 浮点数精度：使用3位保护位进行计算
+ * 与ALU一样不修改实例状态（内部的ALU只用到加减法），一个FPU可以在多个线程之间共享；
+ * 带ArithmeticContext的FPU会修改上下文中的标志，只能在一个线程中使用
  */
 public class FPU {
 
-    private final String[][] addCorner = new String[][]{
-            {IEEE754Float.P_ZERO, IEEE754Float.P_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.P_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.P_ZERO, IEEE754Float.N_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.N_ZERO, IEEE754Float.N_ZERO},
-            {IEEE754Float.P_INF, IEEE754Float.N_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.P_INF, IEEE754Float.NaN}
-    };
-
-    private final String[][] subCorner = new String[][]{
-            {IEEE754Float.P_ZERO, IEEE754Float.P_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.P_ZERO, IEEE754Float.N_ZERO},
-            {IEEE754Float.P_ZERO, IEEE754Float.N_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.N_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.P_INF, IEEE754Float.P_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.N_INF, IEEE754Float.NaN}
-    };
-
-    private final String[][] mulCorner = new String[][]{
-            {IEEE754Float.P_ZERO, IEEE754Float.N_ZERO, IEEE754Float.N_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.P_ZERO, IEEE754Float.N_ZERO},
-            {IEEE754Float.P_ZERO, IEEE754Float.P_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.N_ZERO, IEEE754Float.N_ZERO, IEEE754Float.P_ZERO},
-            {IEEE754Float.P_ZERO, IEEE754Float.P_INF, IEEE754Float.NaN},
-            {IEEE754Float.P_ZERO, IEEE754Float.N_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_ZERO, IEEE754Float.P_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_ZERO, IEEE754Float.N_INF, IEEE754Float.NaN},
-            {IEEE754Float.P_INF, IEEE754Float.P_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.P_INF, IEEE754Float.N_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.P_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.N_ZERO, IEEE754Float.NaN}
-    };
-
-    private final String[][] divCorner = new String[][]{
-            {IEEE754Float.P_ZERO, IEEE754Float.P_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.N_ZERO, IEEE754Float.N_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.P_ZERO, IEEE754Float.N_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.N_ZERO, IEEE754Float.P_ZERO, IEEE754Float.NaN},
-            {IEEE754Float.P_INF, IEEE754Float.P_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.N_INF, IEEE754Float.NaN},
-            {IEEE754Float.P_INF, IEEE754Float.N_INF, IEEE754Float.NaN},
-            {IEEE754Float.N_INF, IEEE754Float.P_INF, IEEE754Float.NaN},
-    };
-    ALU alu = new ALU();
+    /**
+     * 阶码加1时的加数：阶码放在高8位
+     */
+    private static final DataType EXPONENT_ONE = DataType.ofBits(0x01000000);
+
+    private final ALU alu = new ALU(ALU.Engine.BIT_SERIAL, null, false);
+
+    /**
+     * FPU的运算实现方式
+     */
+    public enum Engine {
+        /**
+         * 以二进制字符串逐位模拟
+         */
+        BIT_SERIAL,
+        /**
+         * 在int/long寄存器中完成，结果与BIT_SERIAL逐位一致
+         */
+        NATIVE
+    }
+
+    private final Engine engine;
+
+    /**
+     * 结果缓存，为null时不缓存
+     */
+    private final ResultCache cache;
+
+    /**
+     * 舍入模式和状态标志，为null时就近舍入到偶数、不记录标志、除以0时抛出异常
+     */
+    private final ArithmeticContext context;
+
+    /**
+     * 除法求商的方式
+     */
+    private final DivisionAlgorithm division;
+
+    public FPU() {
+        this(Engine.BIT_SERIAL);
+    }
+
+    public FPU(Engine engine) {
+        this(engine, null);
+    }
+
+    /**
+     * @param cache 四则运算的结果缓存，可以在多个FPU之间共享；批量接口在NATIVE引擎下不经过缓存
+     */
+    public FPU(Engine engine, ResultCache cache) {
+        this(engine, cache, null, DivisionAlgorithm.RESTORING);
+    }
+
+    /**
+     * @param context 运算的舍入模式和状态标志；不为null时两种引擎都使用整数数据通路，
+     *                不经过缓存、运行指标和录制，fma、rsqrt以及binary32以外的格式不受影响
+     */
+    public FPU(Engine engine, ResultCache cache, ArithmeticContext context) {
+        this(engine, cache, context, DivisionAlgorithm.RESTORING);
+    }
+
+    /**
+     * @param division div的求商方式；RESTORING以外的方式在两种引擎下都使用整数数据通路，
+     *                 结果与RESTORING逐位一致，仍然经过缓存、运行指标和录制
+     */
+    public FPU(Engine engine, ResultCache cache, DivisionAlgorithm division) {
+        this(engine, cache, null, division);
+    }
+
+    private FPU(Engine engine, ResultCache cache, ArithmeticContext context, DivisionAlgorithm division) {
+        this.engine = engine;
+        this.cache = cache;
+        this.context = context;
+        this.division = division;
+    }
 
     /**
      * compute the float add of (dest + src)
      */
     public DataType add(DataType src, DataType dest) {
-        String a = dest.toString(); // 首先排除是NaN的情况
-        String b = src.toString();
-        if (a.matches(IEEE754Float.NaN_Regular) || b.matches(IEEE754Float.NaN_Regular)) {
-            return new DataType(IEEE754Float.NaN);
+        if (context != null) {
+            return DataType.ofBits(FloatDatapath.add(src.bits(), dest.bits(), context));
         }
-        String tmpAns = cornerCheck(addCorner, src.toString(), dest.toString()); // 然后排除0和Inf的情况
-        if (tmpAns != null) {
-            return new DataType(tmpAns);
+        if (ArithmeticMetrics.active() || WorkloadRecorder.active()) {
+            return measure(ArithmeticMetrics.FPU_ADD, ResultCache.FPU_ADD, src, dest, this::computeAdd);
         }
-        String n1 = src.toString();
-        String n2 = dest.toString();
+        return cache == null ? computeAdd(src, dest) : cached(ResultCache.FPU_ADD, src, dest, this::computeAdd);
+    }
 
-        if (n1.equals(IEEE754Float.N_ZERO) || n1.equals(IEEE754Float.P_ZERO)) {
-            return new DataType(n2);
-        }
-        if (n2.equals(IEEE754Float.N_ZERO) || n2.equals(IEEE754Float.P_ZERO)) {
-            return new DataType(n1);
+    private DataType computeAdd(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(FloatDatapath.add(src.bits(), dest.bits()));
         }
-
-        char sign1 = n1.charAt(0); // 符号
-        char sign2 = n2.charAt(0);
-        String exp1 = n1.substring(1, 9); // 阶码
-        String exp2 = n2.substring(1, 9);
-        String tail1 = n1.substring(9, 32); // 尾数
-        String tail2 = n2.substring(9, 32);
-
-        if (exp1.equals("11111111")) { // 其中一个数是+/-Inf
-            return new DataType(n1);
-        } else if (exp2.equals("11111111")) {
-            return new DataType(n2);
+        DataType tmpAns = cornerCheck(CornerCases.ADD, src, dest); // 首先排除NaN、0和Inf的情况
+        if (tmpAns != null) {
+            return tmpAns;
         }
+        UnpackedFloat a = src.unpack(); // 解码结果缓存在DataType中
+        UnpackedFloat b = dest.unpack();
 
-        if (exp1.equals("00000000")) { // 处理非规格数
-            exp1 = "00000001";
-            tail1 = "0" + tail1 + "000";
-        } else {
-            tail1 = "1" + tail1 + "000";
+        char sign1 = (char) ('0' + a.sign()); // 符号
+        char sign2 = (char) ('0' + b.sign());
+        String exp1 = a.exponentString(); // 阶码，非规格数为00000001
+        String exp2 = b.exponentString();
+        String tail1 = a.significandString(); // 隐藏位+尾数+GRS
+        String tail2 = b.significandString();
+        if (a.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
-        if (exp2.equals("00000000")) {
-            exp2 = "00000001";
-            tail2 = "0" + tail2 + "000";
-        } else {
-            tail2 = "1" + tail2 + "000";
+        if (b.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
 
         // 以下是对阶的过程
@@ -112,55 +141,43 @@ public class FPU {
         String ansExp = ""; // 最后的阶码
         char ansSign = 0;
 
-        if (exp1.equals(exp2)) { // 不需要对阶
+        if (a.exponent() == b.exponent()) { // 不需要对阶
             ansExp = exp1;
-            if (tail1.equals(tail2)) {
+            if (a.significand() == b.significand()) {
                 if (sign1 != sign2) {
-                    return new DataType("00000000000000000000000000000000");
+                    return DataType.ZERO;
                 } else {
                     ansSign = sign1;
                 }
+            } else if (a.significand() > b.significand()) {
+                ansSign = sign1;
+                op = 2;
             } else {
-                for (int i = 0; ;i++) {
-                    if (tail1.charAt(i) != tail2.charAt(i)) {
-                        if (tail1.charAt(i) == '1') {
-                            ansSign = sign1;
-                            op = 2;
-                        } else {
-                            ansSign = sign2;
-                            op = 1;
-                        }
-                        break;
-                    }
-                }
+                ansSign = sign2;
+                op = 1;
             }
         } else {
-            for (int i = 0; i < 9; i++) {
-                if (exp1.charAt(i) == exp2.charAt(i)) {
-                    continue;
-                } else if (exp1.charAt(i) == '1') { // n1 比较大
-                    op = 2;
-                    ansSign = sign1;
-                    ansExp = exp1;
-                    String tmp = alu.sub(new DataType(exp2 + "000000000000000000000000"), new DataType(exp1 + "000000000000000000000000")).toString().substring(0, 8);
-                    cnt = Integer.parseInt(Transformer.binaryToInt(tmp));
-                    break;
-                } else if (exp2.charAt(i) == '1') {
-                    op = 1;
-                    ansSign = sign2;
-                    ansExp = exp2;
-                    String tmp = alu.sub(new DataType(exp1 + "000000000000000000000000"), new DataType(exp2 + "000000000000000000000000")).toString().substring(0, 8);
-                    cnt = Integer.parseInt(Transformer.binaryToInt(tmp));
-                    break;
-                }
+            if (a.exponent() > b.exponent()) { // n1 比较大
+                op = 2;
+                ansSign = sign1;
+                ansExp = exp1;
+                String tmp = alu.sub(new DataType(exp2 + "000000000000000000000000"), new DataType(exp1 + "000000000000000000000000")).toString().substring(0, 8);
+                cnt = Integer.parseInt(Transformer.binaryToInt(tmp));
+            } else {
+                op = 1;
+                ansSign = sign2;
+                ansExp = exp2;
+                String tmp = alu.sub(new DataType(exp1 + "000000000000000000000000"), new DataType(exp2 + "000000000000000000000000")).toString().substring(0, 8);
+                cnt = Integer.parseInt(Transformer.binaryToInt(tmp));
             }
             if (op == 1) { // 移位
-                tail1 = rightShift(tail1, cnt);
+                tail1 = BarrelShifter.shiftRightJam(tail1, cnt);
             } else {
-                tail2 = rightShift(tail2, cnt);
+                tail2 = BarrelShifter.shiftRightJam(tail2, cnt);
             }
         }
 
+        ArithmeticMetrics.alignShift(cnt);
         tail1 = "0" + tail1 + "0000";
         tail2 = "0" + tail2 + "0000";
         String ansTail = "";
@@ -174,16 +191,15 @@ public class FPU {
             }
         }
         if (ansTail.charAt(0) == '1') {
-            ansTail = '1' + rightShift(ansTail.substring(1, 28), 1).substring(1, 27);
-            ansExp = alu.add(new DataType(ansExp + "000000000000000000000000"), new DataType("00000001" + "000000000000000000000000")).toString().substring(0, 8);
+            ArithmeticMetrics.normalizeShift(1);
+            ansTail = '1' + BarrelShifter.shiftRightJam(ansTail.substring(1, 28), 1).substring(1, 27);
+            ansExp = alu.add(new DataType(ansExp + "000000000000000000000000"), EXPONENT_ONE).toString().substring(0, 8);
         } else {
             ansTail = ansTail.substring(1, 28);
-            int n = 0;
             int t = Integer.parseInt(Transformer.binaryToInt(ansExp));
-            while (ansTail.charAt(0) == '0' && n < t) {
-                n++;
-                ansTail = ansTail.substring(1, 27) + '0';
-            }
+            int n = Math.min(BarrelShifter.leadingZeros(ansTail), t); // 规格化，阶码最多减到0
+            ansTail = BarrelShifter.shiftLeft(ansTail, n);
+            ArithmeticMetrics.normalizeShift(n);
             t -= n;
             ansExp = Transformer.intToBinary(String.valueOf(t)).substring(24, 32);
             if (ansExp.equals("00000000")) {
@@ -191,24 +207,31 @@ public class FPU {
             }
         }
 
-        return new DataType(round(ansSign, ansExp, ansTail));
+        return DataType.valueOf(round(ansSign, ansExp, ansTail));
     }
 
     /**
      * compute the float add of (dest - src)
      */
     public DataType sub(DataType src, DataType dest) {
-        String a = dest.toString(); // 首先排除是NaN的情况
-        String b = src.toString();
-        if (a.matches(IEEE754Float.NaN_Regular) || b.matches(IEEE754Float.NaN_Regular)) {
-            return new DataType(IEEE754Float.NaN);
+        if (context != null) {
+            return DataType.ofBits(FloatDatapath.sub(src.bits(), dest.bits(), context));
+        }
+        if (ArithmeticMetrics.active() || WorkloadRecorder.active()) {
+            return measure(ArithmeticMetrics.FPU_SUB, ResultCache.FPU_SUB, src, dest, this::computeSub);
+        }
+        return cache == null ? computeSub(src, dest) : cached(ResultCache.FPU_SUB, src, dest, this::computeSub);
+    }
+
+    private DataType computeSub(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(FloatDatapath.sub(src.bits(), dest.bits()));
         }
-        String tmpAns = cornerCheck(subCorner, src.toString(), dest.toString()); // 然后排除0和Inf的情况
+        DataType tmpAns = cornerCheck(CornerCases.SUB, src, dest); // 首先排除NaN、0和Inf的情况
         if (tmpAns != null) {
-            return new DataType(tmpAns);
+            return tmpAns;
         }
-        b = (b.charAt(0) == '1' ? '0' : '1') + b.substring(1,32);
-        return this.add(new DataType(a), new DataType(b));
+        return computeAdd(dest, DataType.ofBits(src.bits() ^ 0x80000000)); // dest的解码结果可以复用
     }
 
 
@@ -223,49 +246,40 @@ public class FPU {
     /**
      * compute the float mul of (dest * src)
      */
-    public DataType mul(DataType src,DataType dest) {
-        String a = dest.toString(); // 首先排除是NaN的情况
-        String b = src.toString();
-        if (a.matches(IEEE754Float.NaN_Regular) || b.matches(IEEE754Float.NaN_Regular)) {
-            return new DataType(IEEE754Float.NaN);
+    public DataType mul(DataType src, DataType dest) {
+        if (context != null) {
+            return DataType.ofBits(FloatDatapath.mul(src.bits(), dest.bits(), context));
         }
-        String tmpAns = cornerCheck(mulCorner, src.toString(), dest.toString()); // 然后排除0和Inf的情况
-        if (tmpAns != null) {
-            return new DataType(tmpAns);
+        if (ArithmeticMetrics.active() || WorkloadRecorder.active()) {
+            return measure(ArithmeticMetrics.FPU_MUL, ResultCache.FPU_MUL, src, dest, this::computeMul);
         }
+        return cache == null ? computeMul(src, dest) : cached(ResultCache.FPU_MUL, src, dest, this::computeMul);
+    }
 
-        String n1 = src.toString();
-        String n2 = dest.toString();
+    private DataType computeMul(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE) {
+            return DataType.ofBits(FloatDatapath.mul(src.bits(), dest.bits()));
+        }
+        DataType tmpAns = cornerCheck(CornerCases.MUL, src, dest); // 首先排除NaN、0和Inf的情况
+        if (tmpAns != null) {
+            return tmpAns;
+        }
 
-        char sign1 = n1.charAt(0); // 符号
-        char sign2 = n2.charAt(0);
-        String exp1 = n1.substring(1, 9); // 阶码
-        String exp2 = n2.substring(1, 9);
-        String tail1 = n1.substring(9, 32); // 尾数
-        String tail2 = n2.substring(9, 32);
+        UnpackedFloat a = src.unpack();
+        UnpackedFloat b = dest.unpack();
+        String tail1 = a.significandString(); // 隐藏位+尾数+GRS
+        String tail2 = b.significandString();
 
-        char ansSign = sign1 == sign2 ? '0' : '1';
+        char ansSign = a.sign() == b.sign() ? '0' : '1';
 
-        if (exp1.equals("11111111")) { // 其中一个数是+/-Inf
-            return new DataType(ansSign + n1.substring(1, 32));
-        } else if (exp2.equals("11111111")) {
-            return new DataType(ansSign + n2.substring(1, 32));
+        if (a.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
-
-        if (exp1.equals("00000000")) { // 处理非规格数
-            exp1 = "00000001";
-            tail1 = "0" + tail1 + "000";
-        } else {
-            tail1 = "1" + tail1 + "000";
-        }
-        if (exp2.equals("00000000")) {
-            exp2 = "00000001";
-            tail2 = "0" + tail2 + "000";
-        } else {
-            tail2 = "1" + tail2 + "000";
+        if (b.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
         String ansExp = "";
-        int n = Integer.parseInt(Transformer.binaryToInt(exp1)) + Integer.parseInt(Transformer.binaryToInt(exp2)) - 126;
+        int n = a.biasedExponent() + b.biasedExponent() - 126;
 
         String ansTail = "";
         int[] N1 = new int[27];
@@ -298,25 +312,28 @@ public class FPU {
             ansTail += ans[i];
         }
 
-        while (ansTail.charAt(0) == '0' && n > 0) {
-            ansTail = ansTail.substring(1, 54) + '0';
-            n--;
+        if (n > 0) { // 左规，阶码最多减到0
+            int shift = Math.min(BarrelShifter.leadingZeros(ansTail), n);
+            ansTail = BarrelShifter.shiftLeft(ansTail, shift);
+            n -= shift;
         }
-        while (judgeTail(ansTail.substring(0, 27)) && n < 0) {
-            ansTail = rightShift(ansTail, 1);
-            n++;
+        if (n < 0) { // 右移到阶码为0，或者高27位全为0（之后结果为0）
+            int shift = Math.min(-n, Math.max(27 - BarrelShifter.leadingZeros(ansTail), 0));
+            ansTail = BarrelShifter.shiftRightJam(ansTail, shift);
+            n += shift;
         }
 
         if (n >= 255) {
-            return new DataType(ansSign + IEEE754Float.P_INF.substring(1, 32));
+            ArithmeticMetrics.overflow();
+            return ansSign == '0' ? DataType.P_INF : DataType.N_INF;
         } else if (n < 0) {
-            return new DataType(ansSign + IEEE754Float.P_ZERO.substring(1, 32));
+            return ansSign == '0' ? DataType.ZERO : DataType.N_ZERO;
         } else if (n == 0) {
-            ansTail = rightShift(ansTail, 1);
+            ansTail = BarrelShifter.shiftRightJam(ansTail, 1);
         }
         ansExp = Transformer.intToBinary(String.valueOf(n)).substring(24, 32);
 
-        return new DataType(round(ansSign, ansExp, ansTail));
+        return DataType.valueOf(round(ansSign, ansExp, ansTail));
     }
     boolean judge (int[] a, int[] b, int n) {
         for (int i = 0; i < 28; i++) {
@@ -332,49 +349,36 @@ public class FPU {
     /**
      * compute the float mul of (dest / src)
      */
-    public DataType div(DataType src,DataType dest) {
-        String a = dest.toString(); // 首先排除是NaN的情况
-        String b = src.toString();
-        if (a.matches(IEEE754Float.NaN_Regular) || b.matches(IEEE754Float.NaN_Regular)) {
-            return new DataType(IEEE754Float.NaN);
+    public DataType div(DataType src, DataType dest) {
+        if (context != null) {
+            return DataType.ofBits(FloatDatapath.div(src.bits(), dest.bits(), context));
         }
-        String tmpAns = cornerCheck(divCorner, src.toString(), dest.toString()); // 然后排除0和Inf的情况
-        if (tmpAns != null) {
-            return new DataType(tmpAns);
+        if (ArithmeticMetrics.active() || WorkloadRecorder.active()) {
+            return measure(ArithmeticMetrics.FPU_DIV, ResultCache.FPU_DIV, src, dest, this::computeDiv);
         }
-        if (b.equals(IEEE754Float.N_ZERO) || b.equals(IEEE754Float.P_ZERO)) {
-            throw new ArithmeticException();
-        }
-
-        String n1 = src.toString();
-        String n2 = dest.toString();
-
-        char sign1 = n1.charAt(0); // 符号
-        char sign2 = n2.charAt(0);
-        String exp1 = n1.substring(1, 9); // 阶码
-        String exp2 = n2.substring(1, 9);
-        String tail1 = n1.substring(9, 32); // 尾数
-        StringBuilder tail2 = new StringBuilder(n2.substring(9, 32));
-
-        char ansSign = sign1 == sign2 ? '0' : '1';
+        return cache == null ? computeDiv(src, dest) : cached(ResultCache.FPU_DIV, src, dest, this::computeDiv);
+    }
 
-        if (exp1.equals("11111111")) { // 其中一个数是+/-Inf
-            return new DataType(ansSign + n1.substring(1, 32));
-        } else if (exp2.equals("11111111")) {
-            return new DataType(ansSign + n2.substring(1, 32));
+    private DataType computeDiv(DataType src, DataType dest) {
+        if (engine == Engine.NATIVE || division != DivisionAlgorithm.RESTORING) {
+            return DataType.ofBits(FloatDatapath.div(src.bits(), dest.bits(), division));
         }
+        DataType tmpAns = cornerCheck(CornerCases.DIV, src, dest); // 首先排除NaN、0和Inf的情况
+        if (tmpAns != null) {
+            return tmpAns;
+        }
+        UnpackedFloat a = src.unpack();
+        UnpackedFloat b = dest.unpack();
+        String tail1 = a.significandString(); // 隐藏位+尾数+GRS
+        String tail2 = b.significandString();
 
-        if (exp1.equals("00000000")) { // 处理非规格数
-            exp1 = "00000001";
-            tail1 = "0" + tail1 + "000";
-        } else {
-            tail1 = "1" + tail1 + "000";
+        char ansSign = a.sign() == b.sign() ? '0' : '1';
+
+        if (a.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
-        if (exp2.equals("00000000")) {
-            exp2 = "00000001";
-            tail2 = new StringBuilder("0" + tail2 + "000");
-        } else {
-            tail2 = new StringBuilder("1" + tail2 + "000");
+        if (b.isSubnormal()) {
+            ArithmeticMetrics.subnormalOperand();
         }
 
         int[] N1 = new int[28];
@@ -423,63 +427,324 @@ public class FPU {
             }
         }
         String ansExp = "";
-        int n = Integer.parseInt(Transformer.binaryToInt(exp2)) - Integer.parseInt(Transformer.binaryToInt(exp1)) + 127;
-        while (ansTail.charAt(0) == '0' && n > 0) {
-            ansTail = new StringBuilder(ansTail.substring(1, 27) + '0');
-            n--;
+        int n = b.biasedExponent() - a.biasedExponent() + 127;
+        String quotient = ansTail.toString();
+        if (n > 0) {
+            int shift = Math.min(BarrelShifter.leadingZeros(quotient), n);
+            quotient = BarrelShifter.shiftLeft(quotient, shift);
+            n -= shift;
         }
-        while (judgeTail(ansTail.toString().substring(0, 27)) && n < 0) {
-            ansTail = new StringBuilder(rightShift(ansTail.toString(), 1));
-            n++;
+        if (n < 0 && quotient.indexOf('1') >= 0) { // 粘位保证商不会移成0，因此一直右移到阶码为0
+            quotient = BarrelShifter.shiftRightJam(quotient, -n);
+            n = 0;
         }
         if (n >= 255) {
-            return new DataType(ansSign + IEEE754Float.P_INF.substring(1, 32));
+            ArithmeticMetrics.overflow();
+            return ansSign == '0' ? DataType.P_INF : DataType.N_INF;
         } else if (n < 0) {
-            return new DataType(ansSign + IEEE754Float.P_ZERO.substring(1, 32));
+            return ansSign == '0' ? DataType.ZERO : DataType.N_ZERO;
         } else if (n == 0) {
-            ansTail = new StringBuilder(rightShift(ansTail.toString(), 1));
+            quotient = BarrelShifter.shiftRightJam(quotient, 1);
         }
 
         ansExp = Transformer.intToBinary(String.valueOf(n)).substring(24, 32);
 
-        return new DataType(round(ansSign, ansExp, ansTail.toString()));
+        return DataType.valueOf(round(ansSign, ansExp, quotient));
     }
+
     /**
-     * check corner cases of mul and div
-     *
-     * @param cornerMatrix corner cases pre-stored
-     * @param oprA first operand (String)
-     * @param oprB second operand (String)
-     * @return the result of the corner case (String)
-     */
-    private String cornerCheck(String[][] cornerMatrix, String oprA, String oprB) {
-        for (String[] matrix : cornerMatrix) {
-            if (oprA.equals(matrix[0]) && oprB.equals(matrix[1])) {
-                return matrix[2];
+     * 批量加法：对[from, to)中的每个i计算out[i] = dest[i] + src[i]，数组中是IEEE-754的位模式
+     * NATIVE引擎不带上下文且没有录制时整批在数据通路中计算，否则逐个调用add
+     */
+    public void add(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && context == null && !WorkloadRecorder.active()) { // 录制时逐个计算，以便录制每个元素
+            ArithmeticMetrics.recordBatch(ArithmeticMetrics.FPU_ADD, to - from);
+            FloatDatapath.add(src, dest, out, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = add(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量减法：out[i] = dest[i] - src[i]
+     */
+    public void sub(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && context == null && !WorkloadRecorder.active()) { // 录制时逐个计算，以便录制每个元素
+            ArithmeticMetrics.recordBatch(ArithmeticMetrics.FPU_SUB, to - from);
+            FloatDatapath.sub(src, dest, out, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = sub(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量乘法：out[i] = dest[i] * src[i]
+     */
+    public void mul(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && context == null && !WorkloadRecorder.active()) { // 录制时逐个计算，以便录制每个元素
+            ArithmeticMetrics.recordBatch(ArithmeticMetrics.FPU_MUL, to - from);
+            FloatDatapath.mul(src, dest, out, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = mul(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * 批量除法：out[i] = dest[i] / src[i]
+     * 遇到第一个非0数除以0的元素时抛出ArithmeticException，它之前的元素已经写入；上下文不抛出异常时该元素为±Inf
+     */
+    public void div(int[] src, int[] dest, int[] out, int from, int to) {
+        if (engine == Engine.NATIVE && context == null && !WorkloadRecorder.active()) { // 录制时逐个计算，以便录制每个元素
+            ArithmeticMetrics.recordBatch(ArithmeticMetrics.FPU_DIV, to - from);
+            FloatDatapath.div(src, dest, out, from, to, division);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = div(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits();
+        }
+    }
+
+    /**
+     * compute the correctly rounded square root of src
+     * sqrt(±0) = ±0, sqrt(+Inf) = +Inf, and NaN for NaN and every negative number except -0
+     */
+    public DataType sqrt(DataType src) {
+        if (engine == Engine.NATIVE || context != null) {
+            return DataType.ofBits(FloatDatapath.sqrt(src.bits(), context));
+        }
+        byte corner = CornerCases.checkSqrt(src.bits());
+        if (corner != CornerCases.COMPUTE) {
+            return corner == CornerCases.NaN ? DataType.NaN : src;
+        }
+        UnpackedFloat a = src.unpack();
+        int exp = a.biasedExponent();
+        String tail = a.significandString().substring(0, 24);
+        if (a.isSubnormal()) { // 非规格化数先规格化
+            ArithmeticMetrics.subnormalOperand();
+            int shift = BarrelShifter.leadingZeros(tail);
+            tail = BarrelShifter.shiftLeft(tail, shift);
+            exp -= shift;
+        }
+        int unbiased = exp - 127;
+        if ((unbiased & 1) != 0) { // 阶码为奇数时尾数左移一位，被开方数在[1, 4)之间
+            tail = tail + "0";
+            unbiased--;
+        } else {
+            tail = "0" + tail;
+        }
+        String radicand = tail + "00000000000000000000000000000"; // 54位，根的最低位权重为2^-26
+
+        // 逐位开方：每次移入2位，试减(root << 2) | 1，够减时商1
+        String zeros = "00000000000000000000000000000000";
+        String rem = zeros;
+        String root = zeros;
+        for (int i = 0; i < 54; i += 2) {
+            rem = rem.substring(2) + radicand.substring(i, i + 2);
+            String trial = root.substring(2) + "01";
+            root = root.substring(1) + "0";
+            String diff = alu.sub(new DataType(trial), new DataType(rem)).toString();
+            if (diff.charAt(0) == '0') {
+                rem = diff;
+                root = root.substring(0, 31) + "1";
             }
         }
-        return null;
+        String ansExp = Transformer.intToBinary(String.valueOf((unbiased >> 1) + 127)).substring(24, 32);
+        return DataType.valueOf(round('0', ansExp, root.substring(5) + (rem.contains("1") ? "1" : "")));
     }
 
     /**
-     * right shift a num without considering its sign using its string format
-     *
-     * @param operand to be moved
-     * @param n       moving nums of bits
-     * @return after moving
+     * compute an approximation of 1 / sqrt(src), whose relative error is below 4.7e-6 (about 2^-17.7)
+     * for every positive finite src; both engines share the same estimate and two Newton iterations
+     * rsqrt(±0) = ±Inf, rsqrt(+Inf) = +0, and NaN for NaN and negative numbers
+     */
+    public DataType rsqrt(DataType src) {
+        return DataType.ofBits(FloatDatapath.rsqrt(src.bits()));
+    }
+
+    /**
+     * compute a * b + c with a single rounding, as IEEE-754 fusedMultiplyAdd
+     * the 48-bit product is kept exactly and the addend is aligned against it, so the result may differ from
+     * add(c, mul(b, a)) in the last bit; the product of ±0 and ±Inf is NaN and never throws
+     * both engines share the integer datapath, fma is not cached, metered or recorded
+     */
+    public DataType fma(DataType a, DataType b, DataType c) {
+        return DataType.ofBits(FloatDatapath.fma(a.bits(), b.bits(), c.bits()));
+    }
+
+    /**
+     * 批量融合乘加：对[from, to)中的每个i计算out[i] = a[i] * b[i] + c[i]，只舍入一次
      */
-    private String rightShift(String operand, int n) {
-        StringBuilder result = new StringBuilder(operand);  //保证位数不变
-        boolean sticky = false;
-        for (int i = 0; i < n; i++) {
-            sticky = sticky || result.toString().endsWith("1");
-            result.insert(0, "0");
-            result.deleteCharAt(result.length() - 1);
+    public void fma(int[] a, int[] b, int[] c, int[] out, int from, int to) {
+        FloatDatapath.fma(a, b, c, out, from, to);
+    }
+
+    /**
+     * compute dest + src in the given format, bit patterns are kept in the low bits of a long
+     * binary32 is exactly add(DataType, DataType); other formats bypass the cache, the metrics and the recorder
+     */
+    public long add(FloatFormat format, long src, long dest) {
+        return apply(FormatDatapath.ADD, format, src, dest);
+    }
+
+    /**
+     * compute dest - src in the given format
+     */
+    public long sub(FloatFormat format, long src, long dest) {
+        return apply(FormatDatapath.SUB, format, src, dest);
+    }
+
+    /**
+     * compute dest * src in the given format
+     */
+    public long mul(FloatFormat format, long src, long dest) {
+        return apply(FormatDatapath.MUL, format, src, dest);
+    }
+
+    /**
+     * compute dest / src in the given format
+     * the quotient is correctly rounded in every format except binary32, which keeps the truncated quotient of div(DataType, DataType);
+     * dividing a non-zero number by zero throws ArithmeticException in every format
+     */
+    public long div(FloatFormat format, long src, long dest) {
+        return apply(FormatDatapath.DIV, format, src, dest);
+    }
+
+    /**
+     * 16位格式（binary16、bfloat16）的批量运算：每个值占2字节，对[from, to)中的每个i计算out[i] = dest[i] + src[i]，
+     * sub、mul、div相同
+     */
+    public void add(FloatFormat format, short[] src, short[] dest, short[] out, int from, int to) {
+        apply(FormatDatapath.ADD, format, src, dest, out, from, to);
+    }
+
+    public void sub(FloatFormat format, short[] src, short[] dest, short[] out, int from, int to) {
+        apply(FormatDatapath.SUB, format, src, dest, out, from, to);
+    }
+
+    public void mul(FloatFormat format, short[] src, short[] dest, short[] out, int from, int to) {
+        apply(FormatDatapath.MUL, format, src, dest, out, from, to);
+    }
+
+    public void div(FloatFormat format, short[] src, short[] dest, short[] out, int from, int to) {
+        apply(FormatDatapath.DIV, format, src, dest, out, from, to);
+    }
+
+    /**
+     * 任意格式的批量运算：每个值占一个long的低位（binary64占满8字节），对[from, to)中的每个i计算out[i] = dest[i] + src[i]，
+     * sub、mul、div相同
+     */
+    public void add(FloatFormat format, long[] src, long[] dest, long[] out, int from, int to) {
+        apply(FormatDatapath.ADD, format, src, dest, out, from, to);
+    }
+
+    public void sub(FloatFormat format, long[] src, long[] dest, long[] out, int from, int to) {
+        apply(FormatDatapath.SUB, format, src, dest, out, from, to);
+    }
+
+    public void mul(FloatFormat format, long[] src, long[] dest, long[] out, int from, int to) {
+        apply(FormatDatapath.MUL, format, src, dest, out, from, to);
+    }
+
+    public void div(FloatFormat format, long[] src, long[] dest, long[] out, int from, int to) {
+        apply(FormatDatapath.DIV, format, src, dest, out, from, to);
+    }
+
+    /**
+     * BIT_SERIAL使用通用的参数化数据通路，NATIVE对binary16、bfloat16、binary64使用宿主float/double的快速路径
+     */
+    private long apply(int op, FloatFormat format, long src, long dest) {
+        if (format == FloatFormat.BINARY32) {
+            DataType a = DataType.ofBits((int) src);
+            DataType b = DataType.ofBits((int) dest);
+            DataType ans;
+            switch (op) {
+                case FormatDatapath.ADD:
+                    ans = add(a, b);
+                    break;
+                case FormatDatapath.SUB:
+                    ans = sub(a, b);
+                    break;
+                case FormatDatapath.MUL:
+                    ans = mul(a, b);
+                    break;
+                default:
+                    ans = div(a, b);
+            }
+            return ans.bits() & 0xFFFFFFFFL;
         }
-        if (sticky) {
-            result.replace(operand.length() - 1, operand.length(), "1");
+        return FormatDatapath.apply(op, format, src, dest, engine == Engine.BIT_SERIAL);
+    }
+
+    private void apply(int op, FloatFormat format, short[] src, short[] dest, short[] out, int from, int to) {
+        if (format.width() != 16) {
+            throw new IllegalArgumentException(format + " is not a 16-bit format");
+        }
+        boolean generic = engine == Engine.BIT_SERIAL;
+        for (int i = from; i < to; i++) {
+            out[i] = (short) FormatDatapath.apply(op, format, src[i] & 0xFFFF, dest[i] & 0xFFFF, generic);
+        }
+    }
+
+    private void apply(int op, FloatFormat format, long[] src, long[] dest, long[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = apply(op, format, src[i], dest[i]);
+        }
+    }
+
+    /**
+     * 计时并记录一次运算（ArithmeticMetrics和WorkloadRecorder中打开的那些），抛出的ArithmeticException单独计数
+     */
+    private DataType measure(int operation, int cacheOp, DataType src, DataType dest, BinaryOperator<DataType> compute) {
+        boolean metrics = ArithmeticMetrics.active();
+        long start = metrics ? System.nanoTime() : 0;
+        DataType ans;
+        try {
+            ans = cache == null ? compute.apply(src, dest) : cached(cacheOp, src, dest, compute);
+        } catch (ArithmeticException e) {
+            ArithmeticMetrics.exception(operation);
+            WorkloadRecorder.recordThrown(operation, src.bits(), dest.bits());
+            throw e;
+        }
+        if (metrics) {
+            ArithmeticMetrics.recordFloat(operation, src.bits(), dest.bits(), System.nanoTime() - start);
+        }
+        WorkloadRecorder.record(operation, src.bits(), dest.bits(), ans.bits());
+        return ans;
+    }
+
+    /**
+     * 先查缓存，未命中时计算并存入缓存；抛出异常的运算不会被缓存
+     */
+    private DataType cached(int op, DataType src, DataType dest, BinaryOperator<DataType> compute) {
+        long cached = cache.get(op, src.bits(), dest.bits());
+        if (cached != ResultCache.MISS) {
+            return DataType.ofBits((int) cached);
+        }
+        DataType ans = compute.apply(src, dest);
+        cache.put(op, src.bits(), dest.bits(), ans.bits());
+        return ans;
+    }
+
+    /**
+     * check corner cases (NaN, 0 and Inf) by looking up the classes of both operands
+     *
+     * @param table CornerCases.ADD, SUB, MUL or DIV
+     * @param src   first operand
+     * @param dest  second operand
+     * @return the result of the corner case, or null if the operands have to be computed
+     */
+    private DataType cornerCheck(byte[] table, DataType src, DataType dest) {
+        byte corner = CornerCases.check(table, src.unpack(), dest.unpack());
+        if (corner == CornerCases.COMPUTE) {
+            return null;
         }
-        return result.substring(0, operand.length());
+        return DataType.ofBits(CornerCases.result(corner, src.bits(), dest.bits()));
     }
 
     /**
@@ -496,17 +761,20 @@ public class FPU {
             grs++;
         }
         String sig = sig_grs.substring(0, 24); // 隐藏位+23位
-        if (grs > 4) {
-            sig = oneAdder(sig);
-        } else if (grs == 4 && sig.endsWith("1")) {
+        if (grs > 4 || (grs == 4 && sig.endsWith("1"))) {
+            ArithmeticMetrics.roundUp();
             sig = oneAdder(sig);
         }
 
-        if (Integer.parseInt(sig.substring(0, sig.length() - 23), 2) > 1) {
-            sig = rightShift(sig, 1);
+        String carry = sig.substring(0, sig.length() - 23);
+        if (carry.equals("10")) { // 尾数进位溢出，右移一位
+            sig = BarrelShifter.shiftRightJam(sig, 1);
+            exp = oneAdder(exp).substring(1);
+        } else if (carry.equals("11")) { // 非规格化数进位成为规格化数，尾数不需要移动
             exp = oneAdder(exp).substring(1);
         }
         if (exp.equals("11111111")) {
+            ArithmeticMetrics.overflow();
             return sign == '0' ? IEEE754Float.P_INF : IEEE754Float.N_INF;
         }
 
@@ -0,0 +1,665 @@
+package cpu.fpu;
+
+import util.ArithmeticContext;
+import util.ArithmeticMetrics;
+import util.FloatFormat;
+import util.IEEE754Float;
+
+/**
+ * FPU的原生整数数据通路
+ * 符号、阶码以及带隐藏位和GRS保护位的27位尾数都保存在int/long中，
+ * 每一步（对阶、求和、规格化、舍入）都与FPU中的字符串实现逐位一致
+ */
+final class FloatDatapath {
+
+    private static final int P_ZERO = 0x00000000;
+
+    private static final int N_ZERO = 0x80000000;
+
+    private static final int P_INF = 0x7F800000;
+
+    private static final int N_INF = 0xFF800000;
+
+    private static final int MAX_FINITE = 0x7F7FFFFF;
+
+    /**
+     * 初值的相对误差不超过3.5e-2，每次牛顿迭代后误差约为原来平方的1.5倍
+     */
+    private static final long RSQRT_MAGIC = 0x5FE6EB50C7B537A9L;
+
+    /**
+     * rsqrt的相对误差上界（约2^-17.7），包括最后舍入到float的误差
+     */
+    static final double RSQRT_ERROR = 4.7e-6;
+
+    private FloatDatapath() {
+    }
+
+    /**
+     * dest + src
+     */
+    static int add(int src, int dest) {
+        return add(src, dest, null);
+    }
+
+    /**
+     * dest + src，按context的舍入模式舍入并设置标志
+     *
+     * @param context 为null时就近舍入到偶数，不设置标志
+     */
+    static int add(int src, int dest, ArithmeticContext context) {
+        byte corner = CornerCases.check(CornerCases.ADD, src, dest);
+        if (corner != CornerCases.COMPUTE) {
+            return corner(corner, src, dest, context);
+        }
+        return addFinite(src, dest, context);
+    }
+
+    /**
+     * dest - src
+     */
+    static int sub(int src, int dest) {
+        return sub(src, dest, null);
+    }
+
+    /**
+     * dest - src，按context的舍入模式舍入并设置标志
+     *
+     * @param context 为null时就近舍入到偶数，不设置标志
+     */
+    static int sub(int src, int dest, ArithmeticContext context) {
+        byte corner = CornerCases.check(CornerCases.SUB, src, dest);
+        if (corner != CornerCases.COMPUTE) {
+            return corner(corner, src, dest, context);
+        }
+        return addFinite(dest, src ^ 0x80000000, context);
+    }
+
+    /**
+     * 两个非0有限数相加
+     */
+    private static int addFinite(int src, int dest, ArithmeticContext context) {
+        int exp1 = (src >>> 23) & 0xFF;
+        int exp2 = (dest >>> 23) & 0xFF;
+        int sign1 = src >>> 31;
+        int sign2 = dest >>> 31;
+        int sig1 = significand(src);
+        int sig2 = significand(dest);
+        if (exp1 == 0) { // 非规格化数的阶码按1处理
+            exp1 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+        if (exp2 == 0) {
+            exp2 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+
+        // 对阶，小阶向大阶看齐
+        boolean srcLarger;
+        int ansSign;
+        int ansExp;
+        if (exp1 == exp2) {
+            if (sig1 == sig2 && sign1 != sign2) { // 精确抵消，只有向-Inf舍入时为-0
+                return context != null && context.roundingMode() == ArithmeticContext.RDN ? N_ZERO : P_ZERO;
+            }
+            ArithmeticMetrics.alignShift(0);
+            srcLarger = sig1 >= sig2;
+            ansSign = srcLarger ? sign1 : sign2;
+            ansExp = exp1;
+        } else if (exp1 > exp2) {
+            srcLarger = true;
+            ansSign = sign1;
+            ansExp = exp1;
+            ArithmeticMetrics.alignShift(exp1 - exp2);
+            sig2 = shiftRightJam(sig2, exp1 - exp2);
+        } else {
+            srcLarger = false;
+            ansSign = sign2;
+            ansExp = exp2;
+            ArithmeticMetrics.alignShift(exp2 - exp1);
+            sig1 = shiftRightJam(sig1, exp2 - exp1);
+        }
+
+        int sum;
+        if (sign1 == sign2) {
+            sum = sig1 + sig2;
+        } else {
+            sum = srcLarger ? sig1 - sig2 : sig2 - sig1;
+        }
+
+        if ((sum & (1 << 27)) != 0) { // 尾数进位，右规一位
+            ArithmeticMetrics.normalizeShift(1);
+            sum = (sum >>> 1) | (sum & 1);
+            ansExp++;
+        } else { // 左规，直到隐藏位为1或阶码减为0
+            int shift = Math.min(Integer.numberOfLeadingZeros(sum) - 5, ansExp);
+            ArithmeticMetrics.normalizeShift(shift);
+            sum <<= shift;
+            ansExp -= shift;
+            if (ansExp == 0) {
+                sum >>>= 1;
+            }
+        }
+        return round(ansSign, ansExp, sum, false, context);
+    }
+
+    /**
+     * dest * src
+     */
+    static int mul(int src, int dest) {
+        return mul(src, dest, null);
+    }
+
+    /**
+     * dest * src，按context的舍入模式舍入并设置标志
+     *
+     * @param context 为null时就近舍入到偶数，不设置标志
+     */
+    static int mul(int src, int dest, ArithmeticContext context) {
+        byte corner = CornerCases.check(CornerCases.MUL, src, dest);
+        if (corner != CornerCases.COMPUTE) {
+            return corner(corner, src, dest, context);
+        }
+        return mulFinite(src, dest, context);
+    }
+
+    /**
+     * 两个非0有限数相乘
+     */
+    private static int mulFinite(int src, int dest, ArithmeticContext context) {
+        int ansSign = (src ^ dest) >>> 31;
+        int exp1 = (src >>> 23) & 0xFF;
+        int exp2 = (dest >>> 23) & 0xFF;
+        int sig1 = significand(src);
+        int sig2 = significand(dest);
+        if (exp1 == 0) {
+            exp1 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+        if (exp2 == 0) {
+            exp2 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+
+        long product = (long) sig1 * sig2; // 54位乘积，最高位权重为2^53
+        int n = exp1 + exp2 - 126;
+        if (n > 0) { // 左规
+            int shift = Math.min(Long.numberOfLeadingZeros(product) - 10, n);
+            product <<= shift;
+            n -= shift;
+        }
+        if (n < 0) { // 右规，直到阶码为0或前27位全为0
+            int high = 63 - Long.numberOfLeadingZeros(product);
+            int shift = Math.min(-n, Math.max(0, high - 26));
+            product = shiftRightJam(product, shift);
+            n += shift;
+        }
+
+        if (n >= 0xFF) {
+            ArithmeticMetrics.overflow();
+            return overflow(ansSign, context);
+        } else if (n < 0) { // 只剩粘位，就近舍入时为0
+            return round(ansSign, 0, 1, false, context);
+        } else if (n == 0) {
+            product = shiftRightJam(product, 1);
+        }
+        return round(ansSign, n, (int) (product >>> 27), (product & ((1L << 27) - 1)) != 0, context);
+    }
+
+    /**
+     * dest / src
+     */
+    static int div(int src, int dest) {
+        return div(src, dest, DivisionAlgorithm.RESTORING);
+    }
+
+    /**
+     * dest / src，用division求商，结果与恢复余数法逐位一致
+     */
+    static int div(int src, int dest, DivisionAlgorithm division) {
+        byte corner = CornerCases.check(CornerCases.DIV, src, dest);
+        if (corner != CornerCases.COMPUTE) {
+            return CornerCases.result(corner, src, dest);
+        }
+        return divFinite(src, dest, null, division);
+    }
+
+    /**
+     * dest / src，按context的舍入模式舍入并设置标志
+     *
+     * @param context 为null时就近舍入到偶数，不设置标志
+     */
+    static int div(int src, int dest, ArithmeticContext context) {
+        byte corner = CornerCases.check(CornerCases.DIV, src, dest);
+        if (corner != CornerCases.COMPUTE) {
+            return corner(corner, src, dest, context);
+        }
+        return divFinite(src, dest, context, DivisionAlgorithm.RESTORING);
+    }
+
+    /**
+     * 两个非0有限数相除
+     */
+    private static int divFinite(int src, int dest, ArithmeticContext context, DivisionAlgorithm division) {
+        int ansSign = (src ^ dest) >>> 31;
+        int exp1 = (src >>> 23) & 0xFF;
+        int exp2 = (dest >>> 23) & 0xFF;
+        int sig1 = significand(src);
+        int sig2 = significand(dest);
+        if (exp1 == 0) {
+            exp1 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+        if (exp2 == 0) {
+            exp2 = 1;
+            ArithmeticMetrics.subnormalOperand();
+        }
+        if (context != null) { // 两个有效位都规格化到[2^26, 2^27)，商至少有26位，余数作为粘位，结果是正确舍入的
+            int shift1 = Integer.numberOfLeadingZeros(sig1) - 5;
+            int shift2 = Integer.numberOfLeadingZeros(sig2) - 5;
+            sig1 <<= shift1;
+            sig2 <<= shift2;
+            exp1 -= shift1;
+            exp2 -= shift2;
+        }
+
+        // 被除数不小于除数的2倍（除数为非规格化数）时只能按比较窗口逐位求商
+        long packed = sig2 < 2L * sig1 ? division.quotient(sig1, sig2) : restoringQuotient(sig1, sig2);
+        int quotient = (int) (packed >>> 1);
+        boolean sticky = context != null && (packed & 1) != 0; // 不带上下文时与字符串实现一样截断
+        int n = exp2 - exp1 + 127;
+        if (n > 0) {
+            int shift = Math.min(Integer.numberOfLeadingZeros(quotient) - 5, n);
+            quotient <<= shift;
+            n -= shift;
+        }
+        if (n < 0) { // 粘位保证商不会移成0，因此一直右移到阶码为0
+            quotient = shiftRightJam(quotient, -n);
+            n = 0;
+        }
+
+        if (n >= 0xFF) {
+            ArithmeticMetrics.overflow();
+            return overflow(ansSign, context);
+        } else if (n == 0) {
+            quotient = shiftRightJam(quotient, 1);
+        }
+        return round(ansSign, n, quotient, sticky, context);
+    }
+
+    /**
+     * sqrt(src)，逐位开方（每次从被开方数移入2位，恢复余数）求出27位根，余数不为0时置粘位，再按GRS舍入
+     * 结果总是规格化数，不会上溢或下溢
+     */
+    static int sqrt(int src) {
+        return sqrt(src, null);
+    }
+
+    /**
+     * sqrt(src)，按context的舍入模式舍入并设置标志
+     */
+    static int sqrt(int src, ArithmeticContext context) {
+        byte corner = CornerCases.checkSqrt(src);
+        if (corner != CornerCases.COMPUTE) {
+            if (corner == CornerCases.NaN && context != null && (src & 0x7FC00000) != 0x7FC00000) {
+                context.raise(ArithmeticContext.INVALID); // 负数或signaling NaN
+            }
+            return CornerCases.result(corner, src, src);
+        }
+        int exp = (src >>> 23) & 0xFF;
+        int sig = src & 0x7FFFFF;
+        if (exp == 0) { // 非规格化数先规格化，阶码可以小于1
+            ArithmeticMetrics.subnormalOperand();
+            int shift = Integer.numberOfLeadingZeros(sig) - 8;
+            sig <<= shift;
+            exp = 1 - shift;
+        } else {
+            sig |= 1 << 23;
+        }
+        int unbiased = exp - 127;
+        if ((unbiased & 1) != 0) { // 阶码为奇数时尾数左移一位，被开方数在[1, 4)之间
+            sig <<= 1;
+            unbiased--;
+        }
+        long radicand = (long) sig << 29; // 根的最低位权重为2^-26
+        long root = 0;
+        long rem = 0;
+        for (int i = 26; i >= 0; i--) {
+            rem = (rem << 2) | ((radicand >>> (2 * i)) & 3);
+            long trial = (root << 2) | 1;
+            root <<= 1;
+            if (rem >= trial) {
+                rem -= trial;
+                root |= 1;
+            }
+        }
+        return round(0, (unbiased >> 1) + 127, (int) root, rem != 0, context);
+    }
+
+    /**
+     * 1 / sqrt(src)的近似值：按位模式估计初值，在double上做两次牛顿迭代后舍入到float
+     * 对所有正的有限数，相对误差小于RSQRT_ERROR
+     * rsqrt(±0) = ±Inf，rsqrt(+Inf) = +0，负数和NaN得到NaN
+     */
+    static int rsqrt(int src) {
+        switch (IEEE754Float.classify(src)) {
+            case IEEE754Float.CLASS_P_ZERO:
+                return P_INF;
+            case IEEE754Float.CLASS_N_ZERO:
+                return N_INF;
+            case IEEE754Float.CLASS_P_INF:
+                return P_ZERO;
+            case IEEE754Float.CLASS_N_INF:
+            case IEEE754Float.CLASS_NaN:
+                return 0x7FC00000;
+            default:
+                if (src < 0) {
+                    return 0x7FC00000;
+                }
+        }
+        double x = Float.intBitsToFloat(src); // float的非规格化数在double中是规格化数，初值估计对它们同样有效
+        double y = Double.longBitsToDouble(RSQRT_MAGIC - (Double.doubleToRawLongBits(x) >>> 1));
+        double half = 0.5 * x;
+        y *= 1.5 - half * y * y;
+        y *= 1.5 - half * y * y;
+        return Float.floatToRawIntBits((float) y);
+    }
+
+    /**
+     * a * b + c，只在最后舍入一次
+     * 48位乘积不截断，加数对齐到乘积上，两者放在62位窗口中相加，移出窗口的位并入粘位
+     */
+    static int fma(int a, int b, int c) {
+        if (!isRegular(a) || !isRegular(b)) {
+            return fmaCorner(a, b, c);
+        }
+        if ((c & 0x7F800000) == 0x7F800000) { // 乘积为非0有限数，c为Inf或NaN
+            return (c & 0x7FFFFF) == 0 ? c : 0x7FC00000;
+        }
+        int productSign = (a ^ b) >>> 31;
+        long product = (long) (significand(a) >>> 3) * (significand(b) >>> 3);
+        int productScale = scale(a) + scale(b);
+        long addend = significand(c) >>> 3;
+        int addendScale = scale(c);
+        if (addend == 0) { // c为0，乘积不为0，结果就是舍入后的乘积
+            return (int) FloatFormat.BINARY32.round(productSign, product, productScale, false);
+        }
+
+        // 窗口的最高位留给进位
+        int top = Math.max(productScale + 64 - Long.numberOfLeadingZeros(product),
+                addendScale + 64 - Long.numberOfLeadingZeros(addend)) + 1;
+        int base = top - 62;
+        product = align(product, productScale - base);
+        addend = align(addend, addendScale - base);
+
+        long sum;
+        int sign;
+        if (productSign == c >>> 31) {
+            sum = product + addend;
+            sign = productSign;
+        } else if (product >= addend) {
+            sum = product - addend;
+            sign = productSign;
+        } else {
+            sum = addend - product;
+            sign = c >>> 31;
+        }
+        if (sum == 0) { // 精确抵消，就近舍入时为+0
+            return P_ZERO;
+        }
+        return (int) FloatFormat.BINARY32.round(sign, sum, base, false);
+    }
+
+    /**
+     * a或b是0、Inf或NaN时的fma：先按乘法的特殊情况得到带符号的0或Inf，再按加法的特殊情况查表
+     * 不记录ArithmeticMetrics中的特殊情况次数
+     */
+    private static int fmaCorner(int a, int b, int c) {
+        byte corner = CornerCases.lookup(CornerCases.MUL, IEEE754Float.classify(a), IEEE754Float.classify(b));
+        int product = CornerCases.result(corner, a, b);
+        if (corner == CornerCases.NaN) {
+            return product;
+        }
+        corner = CornerCases.lookup(CornerCases.ADD, IEEE754Float.classify(c), IEEE754Float.classify(product));
+        return CornerCases.result(corner, c, product);
+    }
+
+    /**
+     * @return 有限数significand >>> 3的最低位的权重（2的幂次）
+     */
+    private static int scale(int bits) {
+        return Math.max((bits >>> 23) & 0xFF, 1) - 150;
+    }
+
+    /**
+     * 左移（shift &gt; 0）或带粘位右移
+     */
+    private static long align(long operand, int shift) {
+        return shift >= 0 ? operand << shift : shiftRightJam(operand, -shift);
+    }
+
+    /**
+     * 批量计算out[i] = a[i] * b[i] + c[i]
+     */
+    static void fma(int[] a, int[] b, int[] c, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = fma(a[i], b[i], c[i]);
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] + src[i]，i取遍[from, to)
+     * 两个操作数都是非0有限数的通道直接进入数据通路，其余通道走查表的慢路径
+     */
+    static void add(int[] src, int[] dest, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int a = src[i];
+            int b = dest[i];
+            out[i] = isRegular(a) && isRegular(b) ? addFinite(a, b, null) : add(a, b);
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] - src[i]
+     */
+    static void sub(int[] src, int[] dest, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int a = src[i];
+            int b = dest[i];
+            out[i] = isRegular(a) && isRegular(b) ? addFinite(b, a ^ 0x80000000, null) : sub(a, b);
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] * src[i]
+     */
+    static void mul(int[] src, int[] dest, int[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int a = src[i];
+            int b = dest[i];
+            out[i] = isRegular(a) && isRegular(b) ? mulFinite(a, b, null) : mul(a, b);
+        }
+    }
+
+    /**
+     * 批量计算out[i] = dest[i] / src[i]
+     * 遇到除数为0且被除数不为0的通道时抛出ArithmeticException，此前的通道已经写入out
+     */
+    static void div(int[] src, int[] dest, int[] out, int from, int to, DivisionAlgorithm division) {
+        for (int i = from; i < to; i++) {
+            int a = src[i];
+            int b = dest[i];
+            out[i] = isRegular(a) && isRegular(b) ? divFinite(a, b, null, division) : div(a, b, division);
+        }
+    }
+
+    /**
+     * @return 是否为非0有限数（规格化数或非规格化数）
+     */
+    private static boolean isRegular(int bits) {
+        return (bits & 0x7FFFFFFF) != 0 && (bits & 0x7F800000) != 0x7F800000;
+    }
+
+    /**
+     * 对GRS保护位进行舍入（就近舍入到偶数）
+     *
+     * @param sign   符号位
+     * @param exp    阶码
+     * @param sigGrs 隐藏位+23位尾数+GRS保护位，共27位
+     * @param sticky 27位之后被截去的部分是否含1
+     * @return 舍入后的32位结果
+     */
+    static int round(int sign, int exp, int sigGrs, boolean sticky) {
+        return round(sign, exp, sigGrs, sticky, null);
+    }
+
+    /**
+     * 按context的舍入模式对GRS保护位进行舍入，并设置INEXACT、UNDERFLOW（舍入前判断）和OVERFLOW标志
+     *
+     * @param context 为null时就近舍入到偶数，不设置标志
+     */
+    static int round(int sign, int exp, int sigGrs, boolean sticky, ArithmeticContext context) {
+        int grs = sigGrs & 7;
+        if (sticky) {
+            grs |= 1;
+        }
+        int sig = sigGrs >>> 3; // 隐藏位+23位
+        if (context != null && grs != 0) {
+            context.raise(exp == 0 ? ArithmeticContext.UNDERFLOW | ArithmeticContext.INEXACT : ArithmeticContext.INEXACT);
+        }
+        if (context == null ? grs > 4 || (grs == 4 && (sig & 1) == 1) : roundUp(context.roundingMode(), sign, sig, grs)) {
+            ArithmeticMetrics.roundUp();
+            sig++;
+            if (sig == 1 << 24) { // 尾数进位溢出
+                sig >>>= 1;
+                exp = (exp + 1) & 0xFF;
+            } else if (sig == 1 << 23 && exp == 0) { // 非规格化数进位成为规格化数
+                exp = 1;
+            }
+        }
+        if (exp == 0xFF) {
+            ArithmeticMetrics.overflow();
+            return overflow(sign, context);
+        }
+        return (sign << 31) | (exp << 23) | (sig & 0x7FFFFF);
+    }
+
+    /**
+     * @return 尾数是否需要加1
+     */
+    private static boolean roundUp(int mode, int sign, int sig, int grs) {
+        switch (mode) {
+            case ArithmeticContext.RTZ:
+                return false;
+            case ArithmeticContext.RUP:
+                return grs != 0 && sign == 0;
+            case ArithmeticContext.RDN:
+                return grs != 0 && sign == 1;
+            default:
+                return grs > 4 || (grs == 4 && (sig & 1) == 1);
+        }
+    }
+
+    /**
+     * 上溢的结果：向0舍入以及背离舍入方向时为最大的有限数，否则为Inf
+     */
+    private static int overflow(int sign, ArithmeticContext context) {
+        if (context == null) {
+            return sign == 0 ? P_INF : N_INF;
+        }
+        context.raise(ArithmeticContext.OVERFLOW | ArithmeticContext.INEXACT);
+        int mode = context.roundingMode();
+        boolean infinite = mode == ArithmeticContext.RNE
+                || (mode == ArithmeticContext.RUP && sign == 0) || (mode == ArithmeticContext.RDN && sign == 1);
+        return (sign << 31) | (infinite ? P_INF : MAX_FINITE);
+    }
+
+    /**
+     * 特殊情况的结果；有context时设置INVALID、DIVIDE_BY_ZERO标志，
+     * 不抛出异常时除以0得到带符号的Inf，向-Inf舍入时异号0之和为-0
+     */
+    private static int corner(byte corner, int src, int dest, ArithmeticContext context) {
+        if (context != null) {
+            switch (corner) {
+                case CornerCases.NaN:
+                    if (!isNaN(src) && !isNaN(dest) || isSignaling(src) || isSignaling(dest)) {
+                        context.raise(ArithmeticContext.INVALID);
+                    }
+                    break;
+                case CornerCases.DIV_BY_ZERO:
+                    if ((dest & 0x7F800000) != 0x7F800000) { // Inf / 0不是除以0异常
+                        context.raise(ArithmeticContext.DIVIDE_BY_ZERO);
+                    }
+                    if (!context.throwing()) {
+                        return ((src ^ dest) & 0x80000000) | P_INF;
+                    }
+                    break;
+                case CornerCases.P_ZERO:
+                    if (context.roundingMode() == ArithmeticContext.RDN) {
+                        return N_ZERO;
+                    }
+                    break;
+                default:
+            }
+        }
+        return CornerCases.result(corner, src, dest);
+    }
+
+    private static boolean isNaN(int bits) {
+        return (bits & 0x7FFFFFFF) > 0x7F800000;
+    }
+
+    private static boolean isSignaling(int bits) {
+        return isNaN(bits) && (bits & 0x00400000) == 0;
+    }
+
+    /**
+     * @return 隐藏位+23位尾数+3位0保护位
+     */
+    private static int significand(int bits) {
+        int hidden = (bits & 0x7F800000) == 0 ? 0 : 1 << 23;
+        return (hidden | (bits & 0x7FFFFF)) << 3;
+    }
+
+    /**
+     * 27位尾数右移，移出的位或到最低位（粘位）
+     */
+    static int shiftRightJam(int operand, int n) {
+        if (n >= 27) {
+            return operand == 0 ? 0 : 1;
+        }
+        return (operand >>> n) | ((operand & ((1 << n) - 1)) == 0 ? 0 : 1);
+    }
+
+    /**
+     * 54位乘积右移，移出的位或到最低位（粘位）
+     */
+    static long shiftRightJam(long operand, int n) {
+        if (n >= 54) {
+            return operand == 0 ? 0 : 1;
+        }
+        return (operand >>> n) | ((operand & ((1L << n) - 1)) == 0 ? 0 : 1);
+    }
+
+    /**
+     * 逐位模拟FPU.div中的恢复余数除法
+     * 被除数远大于除数（除数为非规格化数）时，28位比较窗口外的余数会被忽略，
+     * 这里同样按窗口比较，保证结果与字符串实现一致；带上下文时有效位已经规格化，不会用到这里
+     *
+     * @return 商左移1位，最低位为窗口内的余数是否不为0
+     */
+    private static long restoringQuotient(int divisor, int dividend) {
+        long rem = (long) dividend << 27;
+        int quotient = 0;
+        for (int i = 0; i < 27; i++) {
+            int shift = 27 - i;
+            quotient <<= 1;
+            if (((rem >>> shift) & ((1L << 28) - 1)) >= divisor) {
+                quotient |= 1;
+                rem = (rem - ((long) divisor << shift) + (1L << (55 - i))) & ((1L << 55) - 1);
+            }
+        }
+        return DivisionAlgorithm.pack(quotient, rem);
+    }
+
+}
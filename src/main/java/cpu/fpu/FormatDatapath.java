@@ -0,0 +1,266 @@
+package cpu.fpu;
+
+import util.FloatFormat;
+
+/**
+ * 参数化浮点格式的数据通路，位模式保存在long的低位
+ * 特殊操作数与binary32共用CornerCases的表；非0有限数有两条路径：
+ * 1. 通用路径：有效位保存在long中，对阶、乘积、逐位求商都保留至少2位保护位和粘位，由FloatFormat.round一次舍入，
+ *    适用于所有FloatFormat（精度不超过53位）
+ * 2. 快速路径：binary16、bfloat16转为float、binary64直接用double，在宿主上运算后再舍入到目标格式。
+ *    宿主格式的精度p'不小于2p+2，两次舍入与一次舍入的结果相同，因此与通用路径逐位一致
+ * 所有格式的加减乘除都是正确舍入（就近舍入到偶数）的
+ */
+final class FormatDatapath {
+
+    static final int ADD = 0;
+
+    static final int SUB = 1;
+
+    static final int MUL = 2;
+
+    static final int DIV = 3;
+
+    private static final byte[][] TABLES = {CornerCases.ADD, CornerCases.SUB, CornerCases.MUL, CornerCases.DIV};
+
+    private FormatDatapath() {
+    }
+
+    /**
+     * dest op src
+     *
+     * @param generic 为true时总是使用通用路径
+     */
+    static long apply(int op, FloatFormat format, long src, long dest, boolean generic) {
+        byte corner = CornerCases.lookup(TABLES[op], format.classify(src), format.classify(dest));
+        if (corner != CornerCases.COMPUTE) {
+            return CornerCases.result(corner, format, src, dest);
+        }
+        if (!generic) {
+            if (format == FloatFormat.BINARY16) {
+                return floatToHalf(host(op, halfToFloat((int) src), halfToFloat((int) dest)));
+            } else if (format == FloatFormat.BFLOAT16) {
+                return floatToBfloat(host(op, bfloatToFloat((int) src), bfloatToFloat((int) dest)));
+            } else if (format == FloatFormat.BINARY64) {
+                return Double.doubleToRawLongBits(host(op, Double.longBitsToDouble(src), Double.longBitsToDouble(dest)));
+            }
+        }
+        switch (op) {
+            case ADD:
+                return add(format, src, dest);
+            case SUB:
+                return add(format, src ^ format.signMask(), dest);
+            case MUL:
+                return mul(format, src, dest);
+            default:
+                return div(format, src, dest);
+        }
+    }
+
+    private static float host(int op, float src, float dest) {
+        switch (op) {
+            case ADD:
+                return dest + src;
+            case SUB:
+                return dest - src;
+            case MUL:
+                return dest * src;
+            default:
+                return dest / src;
+        }
+    }
+
+    private static double host(int op, double src, double dest) {
+        switch (op) {
+            case ADD:
+                return dest + src;
+            case SUB:
+                return dest - src;
+            case MUL:
+                return dest * src;
+            default:
+                return dest / src;
+        }
+    }
+
+    /**
+     * 两个非0有限数相加
+     */
+    private static long add(FloatFormat format, long src, long dest) {
+        long sigA = format.significand(src);
+        long sigB = format.significand(dest);
+        int scaleA = format.scale(src);
+        int scaleB = format.scale(dest);
+        int signA = format.sign(src);
+        int signB = format.sign(dest);
+        if (scaleA < scaleB) { // 保证A的阶不小于B
+            long sig = sigA;
+            sigA = sigB;
+            sigB = sig;
+            int scale = scaleA;
+            scaleA = scaleB;
+            scaleB = scale;
+            int sign = signA;
+            signA = signB;
+            signB = sign;
+        }
+        // 对阶：先把A左移（最多到61位），剩下的差距由B右移补齐，移出的位并入粘位
+        int diff = scaleA - scaleB;
+        int left = Math.min(diff, 61 - format.precision());
+        sigA <<= left;
+        scaleA -= left;
+        sigB = shiftRightJam(sigB, diff - left);
+
+        long sum;
+        int sign;
+        if (signA == signB) {
+            sum = sigA + sigB;
+            sign = signA;
+        } else if (sigA >= sigB) {
+            sum = sigA - sigB;
+            sign = signA;
+        } else {
+            sum = sigB - sigA;
+            sign = signB;
+        }
+        if (sum == 0) { // 就近舍入时x - x = +0
+            return format.zero(0);
+        }
+        return format.round(sign, sum, scaleA, false);
+    }
+
+    /**
+     * 两个非0有限数相乘，乘积超过62位时保留高62位，其余并入粘位
+     */
+    private static long mul(FloatFormat format, long src, long dest) {
+        int sign = format.sign(src) ^ format.sign(dest);
+        long sigA = format.significand(src);
+        long sigB = format.significand(dest);
+        int scale = format.scale(src) + format.scale(dest);
+        if (format.precision() <= 31) {
+            return format.round(sign, sigA * sigB, scale, false);
+        }
+        // 53位 * 53位，拆成32位的部分积
+        long aHi = sigA >>> 32;
+        long aLo = sigA & 0xFFFFFFFFL;
+        long bHi = sigB >>> 32;
+        long bLo = sigB & 0xFFFFFFFFL;
+        long ll = aLo * bLo;
+        long lh = aLo * bHi;
+        long hl = aHi * bLo;
+        long mid = (ll >>> 32) + (lh & 0xFFFFFFFFL) + (hl & 0xFFFFFFFFL);
+        long hi = aHi * bHi + (lh >>> 32) + (hl >>> 32) + (mid >>> 32);
+        long lo = (mid << 32) | (ll & 0xFFFFFFFFL);
+        int length = hi == 0 ? 64 - Long.numberOfLeadingZeros(lo) : 128 - Long.numberOfLeadingZeros(hi);
+        if (length <= 62) {
+            return format.round(sign, lo, scale, false);
+        }
+        int shift = length - 62;
+        long sig = (hi << (64 - shift)) | (lo >>> shift);
+        return format.round(sign, sig, scale + shift, (lo & ((1L << shift) - 1)) != 0);
+    }
+
+    /**
+     * 两个非0有限数相除：恢复余数法逐位求出precision + 3位商，余数不为0时置粘位
+     */
+    private static long div(FloatFormat format, long src, long dest) {
+        int sign = format.sign(src) ^ format.sign(dest);
+        long divisor = format.significand(src);
+        long dividend = format.significand(dest);
+        // 两个有效位都规格化到第52位，商在(1/2, 2)之间
+        int divisorShift = Long.numberOfLeadingZeros(divisor) - 11;
+        int dividendShift = Long.numberOfLeadingZeros(dividend) - 11;
+        divisor <<= divisorShift;
+        dividend <<= dividendShift;
+        int n = format.precision() + 3;
+        long quotient = 0;
+        long rem = dividend;
+        for (int i = 0; i < n; i++) {
+            quotient <<= 1;
+            if (rem >= divisor) {
+                rem -= divisor;
+                quotient |= 1;
+            }
+            rem <<= 1;
+        }
+        int scale = format.scale(dest) - dividendShift - format.scale(src) + divisorShift - (n - 1);
+        return format.round(sign, quotient, scale, rem != 0);
+    }
+
+    /**
+     * 右移，移出的位或到最低位（粘位）
+     */
+    private static long shiftRightJam(long operand, int n) {
+        if (n == 0) {
+            return operand;
+        }
+        if (n >= 63) {
+            return operand == 0 ? 0 : 1;
+        }
+        return (operand >>> n) | ((operand & ((1L << n) - 1)) == 0 ? 0 : 1);
+    }
+
+    static float halfToFloat(int half) {
+        int sign = (half & 0x8000) << 16;
+        int exp = (half >>> 10) & 0x1F;
+        int fraction = half & 0x3FF;
+        if (exp == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (fraction << 13));
+        }
+        if (exp == 0) { // 0或非规格化数，fraction * 2^-24可以精确表示
+            float magnitude = fraction * 0x1p-24f;
+            return sign == 0 ? magnitude : -magnitude;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (fraction << 13));
+    }
+
+    /**
+     * float就近舍入到偶数得到binary16（运算结果不会是NaN）
+     */
+    static int floatToHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+        if (abs >= 0x7F800000) {
+            return sign | (abs > 0x7F800000 ? 0x7E00 : 0x7C00);
+        }
+        if (abs >= 0x477FF000) { // 不小于65520，舍入为Inf
+            return sign | 0x7C00;
+        }
+        int exp = abs >>> 23;
+        if (exp < 113) { // 小于2^-14，结果为非规格化数，单位为2^-24
+            int shift = 126 - exp;
+            if (shift > 24) {
+                return sign;
+            }
+            int sig = (abs & 0x7FFFFF) | 0x800000;
+            int rounded = sig >>> shift;
+            int rest = sig & ((1 << shift) - 1);
+            int half = 1 << (shift - 1);
+            if (rest > half || (rest == half && (rounded & 1) == 1)) {
+                rounded++;
+            }
+            return sign | rounded;
+        }
+        int rebased = abs - (112 << 23);
+        int rounded = rebased >>> 13;
+        int rest = rebased & 0x1FFF;
+        if (rest > 0x1000 || (rest == 0x1000 && (rounded & 1) == 1)) {
+            rounded++; // 尾数进位自然进入阶码
+        }
+        return sign | rounded;
+    }
+
+    static float bfloatToFloat(int bfloat) {
+        return Float.intBitsToFloat(bfloat << 16);
+    }
+
+    /**
+     * float就近舍入到偶数得到bfloat16（运算结果不会是NaN）
+     */
+    static int floatToBfloat(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return ((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16) & 0xFFFF;
+    }
+
+}
@@ -0,0 +1,138 @@
+package util;
+
+/**
+ * 运算上下文：舍入模式、IEEE-754的粘滞状态标志以及除以0时是否抛出异常，全部保存在一个int中
+ * 传给FPU、ALU的构造方法后，这些部件按其中的舍入模式舍入并设置标志；不传（null）时行为和开销都不变
+ * 标志只会被运算置位，直到调用clearFlags；上下文不是线程安全的，每个线程应使用自己的上下文和部件
+ */
+public final class ArithmeticContext {
+
+    /**
+     * 就近舍入到偶数
+     */
+    public static final int RNE = 0;
+
+    /**
+     * 向0舍入
+     */
+    public static final int RTZ = 1;
+
+    /**
+     * 向+Inf舍入
+     */
+    public static final int RUP = 2;
+
+    /**
+     * 向-Inf舍入
+     */
+    public static final int RDN = 3;
+
+    /**
+     * 无效运算：0 * Inf、Inf - Inf、0 / 0、Inf / Inf、负数开方，或操作数为signaling NaN
+     */
+    public static final int INVALID = 1 << 2;
+
+    /**
+     * 非0有限数除以0（浮点数），或整数除以0
+     */
+    public static final int DIVIDE_BY_ZERO = 1 << 3;
+
+    public static final int OVERFLOW = 1 << 4;
+
+    /**
+     * 舍入前结果的绝对值小于最小的规格化数，且结果不精确
+     */
+    public static final int UNDERFLOW = 1 << 5;
+
+    public static final int INEXACT = 1 << 6;
+
+    private static final int MODE_MASK = 3;
+
+    private static final int FLAG_MASK = INVALID | DIVIDE_BY_ZERO | OVERFLOW | UNDERFLOW | INEXACT;
+
+    /**
+     * 除以0时不抛出异常，浮点数得到±Inf或NaN，整数的商为-1、余数为被除数
+     */
+    private static final int NON_THROWING = 1 << 7;
+
+    private static final String[] MODES = {"RNE", "RTZ", "RUP", "RDN"};
+
+    private static final String[] FLAGS = {"INVALID", "DIVIDE_BY_ZERO", "OVERFLOW", "UNDERFLOW", "INEXACT"};
+
+    private int state;
+
+    /**
+     * 就近舍入到偶数，除以0时抛出ArithmeticException
+     */
+    public ArithmeticContext() {
+        this(RNE, true);
+    }
+
+    /**
+     * @param roundingMode RNE、RTZ、RUP或RDN
+     * @param throwing     除以0时是否抛出ArithmeticException
+     */
+    public ArithmeticContext(int roundingMode, boolean throwing) {
+        setRoundingMode(roundingMode);
+        setThrowing(throwing);
+    }
+
+    public int roundingMode() {
+        return state & MODE_MASK;
+    }
+
+    public void setRoundingMode(int roundingMode) {
+        if ((roundingMode & ~MODE_MASK) != 0) {
+            throw new IllegalArgumentException("Illegal rounding mode: " + roundingMode);
+        }
+        state = (state & ~MODE_MASK) | roundingMode;
+    }
+
+    public boolean throwing() {
+        return (state & NON_THROWING) == 0;
+    }
+
+    public void setThrowing(boolean throwing) {
+        state = throwing ? state & ~NON_THROWING : state | NON_THROWING;
+    }
+
+    /**
+     * @return 已置位的标志（INVALID、DIVIDE_BY_ZERO、OVERFLOW、UNDERFLOW、INEXACT的组合）
+     */
+    public int flags() {
+        return state & FLAG_MASK;
+    }
+
+    /**
+     * @return flags中是否有任意一个已置位
+     */
+    public boolean test(int flags) {
+        return (state & flags & FLAG_MASK) != 0;
+    }
+
+    /**
+     * 置位标志，由运算部件调用
+     */
+    public void raise(int flags) {
+        state |= flags & FLAG_MASK;
+    }
+
+    public void clearFlags() {
+        state &= ~FLAG_MASK;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(MODES[roundingMode()]);
+        builder.append(throwing() ? " throwing" : " non-throwing").append(" [");
+        String separator = "";
+        for (int i = 0; i < FLAGS.length; i++) {
+            if ((state & (INVALID << i)) != 0) {
+                builder.append(separator).append(FLAGS[i]);
+                separator = ", ";
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+}
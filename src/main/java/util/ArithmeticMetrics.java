@@ -0,0 +1,322 @@
+package util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FPU、ALU的运算指标，全部使用LongAdder计数，多线程下几乎没有竞争
+ * 默认关闭；关闭时各记录点只读取一次volatile变量。通过register()发布为JMX MBean，
+ * 可以在jconsole等工具中查看并在运行时打开或关闭
+ */
+public final class ArithmeticMetrics implements ArithmeticMetricsMXBean {
+
+    public static final int FPU_ADD = 0;
+
+    public static final int FPU_SUB = 1;
+
+    public static final int FPU_MUL = 2;
+
+    public static final int FPU_DIV = 3;
+
+    public static final int ALU_ADD = 4;
+
+    public static final int ALU_SUB = 5;
+
+    public static final int ALU_MUL = 6;
+
+    public static final int ALU_DIV = 7;
+
+    private static final String[] OPERATIONS = {"FPU_ADD", "FPU_SUB", "FPU_MUL", "FPU_DIV",
+            "ALU_ADD", "ALU_SUB", "ALU_MUL", "ALU_DIV"};
+
+    public static final int CLASS_ZERO = 0;
+
+    public static final int CLASS_SUBNORMAL = 1;
+
+    public static final int CLASS_NORMAL = 2;
+
+    public static final int CLASS_INF = 3;
+
+    public static final int CLASS_NaN = 4;
+
+    private static final String[] CLASSES = {"ZERO", "SUBNORMAL", "NORMAL", "INF", "NaN"};
+
+    /**
+     * IEEE754Float.classify的结果到指标类别的映射
+     */
+    private static final int[] FLOAT_CLASS = new int[IEEE754Float.CLASS_COUNT];
+
+    /**
+     * 类别的优先级，两个操作数取优先级高的类别
+     */
+    private static final int[] PRIORITY = {2, 1, 0, 3, 4};
+
+    private static final int LATENCY_BUCKETS = 32;
+
+    private static final int SHIFT_BUCKETS = 28;
+
+    private static final ArithmeticMetrics INSTANCE = new ArithmeticMetrics();
+
+    private static volatile boolean enabled;
+
+    static {
+        FLOAT_CLASS[IEEE754Float.CLASS_P_ZERO] = CLASS_ZERO;
+        FLOAT_CLASS[IEEE754Float.CLASS_N_ZERO] = CLASS_ZERO;
+        FLOAT_CLASS[IEEE754Float.CLASS_P_INF] = CLASS_INF;
+        FLOAT_CLASS[IEEE754Float.CLASS_N_INF] = CLASS_INF;
+        FLOAT_CLASS[IEEE754Float.CLASS_NaN] = CLASS_NaN;
+        FLOAT_CLASS[IEEE754Float.CLASS_SUBNORMAL] = CLASS_SUBNORMAL;
+        FLOAT_CLASS[IEEE754Float.CLASS_NORMAL] = CLASS_NORMAL;
+    }
+
+    private final LongAdder[] operations = adders(OPERATIONS.length);
+
+    private final LongAdder[] operandClasses = adders(OPERATIONS.length * CLASSES.length);
+
+    private final LongAdder[] corners = adders(OPERATIONS.length);
+
+    private final LongAdder[] exceptions = adders(OPERATIONS.length);
+
+    private final LongAdder subnormalOperands = new LongAdder();
+
+    private final LongAdder roundUps = new LongAdder();
+
+    private final LongAdder overflows = new LongAdder();
+
+    private final LongAdder[] alignShifts = adders(SHIFT_BUCKETS);
+
+    private final LongAdder[] normalizeShifts = adders(SHIFT_BUCKETS);
+
+    /**
+     * 下标为(运算 * 类别数 + 类别) * LATENCY_BUCKETS + 桶号
+     */
+    private final LongAdder[] latencies = adders(OPERATIONS.length * CLASSES.length * LATENCY_BUCKETS);
+
+    private ArithmeticMetrics() {
+    }
+
+    public static ArithmeticMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return 是否正在记录，记录点用它判断是否需要计时
+     */
+    public static boolean active() {
+        return enabled;
+    }
+
+    /**
+     * 以"cpu:type=ArithmeticMetrics"注册到平台MBeanServer，已经注册时不做任何事
+     */
+    public static ObjectName register() throws JMException {
+        ObjectName name = new ObjectName("cpu:type=ArithmeticMetrics");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (!server.isRegistered(name)) {
+            server.registerMBean(INSTANCE, name);
+        }
+        return name;
+    }
+
+    /**
+     * 记录一次FPU运算
+     *
+     * @param nanos 耗时
+     */
+    public static void recordFloat(int operation, int src, int dest, long nanos) {
+        int cls = dominant(FLOAT_CLASS[IEEE754Float.classify(src)], FLOAT_CLASS[IEEE754Float.classify(dest)]);
+        INSTANCE.record(operation, cls, nanos);
+    }
+
+    /**
+     * 记录一次ALU运算
+     */
+    public static void recordInteger(int operation, int src, int dest, long nanos) {
+        INSTANCE.record(operation, src == 0 || dest == 0 ? CLASS_ZERO : CLASS_NORMAL, nanos);
+    }
+
+    /**
+     * 记录批量接口中的count个元素，不区分类别、不计时
+     */
+    public static void recordBatch(int operation, int count) {
+        if (enabled) {
+            INSTANCE.operations[operation].add(count);
+        }
+    }
+
+    public static void corner(int operation) {
+        if (enabled) {
+            INSTANCE.corners[operation].increment();
+        }
+    }
+
+    public static void exception(int operation) {
+        if (enabled) {
+            INSTANCE.exceptions[operation].increment();
+        }
+    }
+
+    public static void subnormalOperand() {
+        if (enabled) {
+            INSTANCE.subnormalOperands.increment();
+        }
+    }
+
+    public static void roundUp() {
+        if (enabled) {
+            INSTANCE.roundUps.increment();
+        }
+    }
+
+    public static void overflow() {
+        if (enabled) {
+            INSTANCE.overflows.increment();
+        }
+    }
+
+    public static void alignShift(int n) {
+        if (enabled) {
+            INSTANCE.alignShifts[Math.min(n, SHIFT_BUCKETS - 1)].increment();
+        }
+    }
+
+    public static void normalizeShift(int n) {
+        if (enabled) {
+            INSTANCE.normalizeShifts[Math.min(n, SHIFT_BUCKETS - 1)].increment();
+        }
+    }
+
+    private void record(int operation, int cls, long nanos) {
+        operations[operation].increment();
+        operandClasses[operation * CLASSES.length + cls].increment();
+        int bucket = nanos <= 0 ? 0 : Math.min(63 - Long.numberOfLeadingZeros(nanos), LATENCY_BUCKETS - 1);
+        latencies[(operation * CLASSES.length + cls) * LATENCY_BUCKETS + bucket].increment();
+    }
+
+    private static int dominant(int a, int b) {
+        return PRIORITY[a] >= PRIORITY[b] ? a : b;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        ArithmeticMetrics.enabled = enabled;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return byOperation(operations);
+    }
+
+    @Override
+    public Map<String, Long> getOperandClassCounts() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            for (int cls = 0; cls < CLASSES.length; cls++) {
+                long count = operandClasses[op * CLASSES.length + cls].sum();
+                if (count != 0) {
+                    map.put(OPERATIONS[op] + "." + CLASSES[cls], count);
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getCornerCaseCounts() {
+        return byOperation(corners);
+    }
+
+    @Override
+    public Map<String, Long> getExceptionCounts() {
+        return byOperation(exceptions);
+    }
+
+    @Override
+    public long getSubnormalOperands() {
+        return subnormalOperands.sum();
+    }
+
+    @Override
+    public long getRoundUps() {
+        return roundUps.sum();
+    }
+
+    @Override
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    @Override
+    public long[] getAlignShiftHistogram() {
+        return sums(alignShifts, 0, SHIFT_BUCKETS);
+    }
+
+    @Override
+    public long[] getNormalizeShiftHistogram() {
+        return sums(normalizeShifts, 0, SHIFT_BUCKETS);
+    }
+
+    @Override
+    public long[] getLatencyHistogram(String operation, String operandClass) {
+        int op = indexOf(OPERATIONS, operation);
+        int cls = indexOf(CLASSES, operandClass);
+        return sums(latencies, (op * CLASSES.length + cls) * LATENCY_BUCKETS, LATENCY_BUCKETS);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder[] group : new LongAdder[][]{operations, operandClasses, corners, exceptions,
+                alignShifts, normalizeShifts, latencies}) {
+            for (LongAdder adder : group) {
+                adder.reset();
+            }
+        }
+        subnormalOperands.reset();
+        roundUps.reset();
+        overflows.reset();
+    }
+
+    private static Map<String, Long> byOperation(LongAdder[] adders) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            map.put(OPERATIONS[op], adders[op].sum());
+        }
+        return map;
+    }
+
+    private static long[] sums(LongAdder[] adders, int from, int length) {
+        long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = adders[from + i].sum();
+        }
+        return result;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown name: " + name);
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+}
@@ -0,0 +1,74 @@
+package util;
+
+import java.util.Map;
+
+/**
+ * ArithmeticMetrics的JMX接口
+ * 运算名为FPU_ADD、FPU_SUB、FPU_MUL、FPU_DIV、ALU_ADD、ALU_SUB、ALU_MUL、ALU_DIV，
+ * 操作数类别为ZERO、SUBNORMAL、NORMAL、INF、NaN（ALU只有ZERO和NORMAL）
+ */
+public interface ArithmeticMetricsMXBean {
+
+    boolean isEnabled();
+
+    /**
+     * 运行时开关，关闭后各运算只多读一次volatile变量
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return 运算名 -> 调用次数（含批量接口中的每个元素）
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * @return "运算名.操作数类别" -> 调用次数，两个操作数中NaN、INF、ZERO、SUBNORMAL、NORMAL依次优先
+     */
+    Map<String, Long> getOperandClassCounts();
+
+    /**
+     * @return 运算名 -> 由cornerCheck直接给出结果的次数
+     */
+    Map<String, Long> getCornerCaseCounts();
+
+    /**
+     * @return 运算名 -> 抛出ArithmeticException的次数
+     */
+    Map<String, Long> getExceptionCounts();
+
+    /**
+     * @return 进入数据通路的非规格化操作数个数
+     */
+    long getSubnormalOperands();
+
+    /**
+     * @return 舍入时尾数加1的次数
+     */
+    long getRoundUps();
+
+    /**
+     * @return 结果上溢为Inf的次数
+     */
+    long getOverflows();
+
+    /**
+     * @return 加减法对阶右移位数的分布，下标为位数，最后一项包含所有不小于它的位数
+     */
+    long[] getAlignShiftHistogram();
+
+    /**
+     * @return 加减法规格化移位位数的分布，下标为位数，最后一项包含所有不小于它的位数
+     */
+    long[] getNormalizeShiftHistogram();
+
+    /**
+     * @return 单次运算耗时的分布，第i项为耗时在[2^i, 2^(i+1))纳秒之间的次数
+     */
+    long[] getLatencyHistogram(String operation, String operandClass);
+
+    /**
+     * 所有计数清零
+     */
+    void reset();
+
+}
@@ -2,6 +2,7 @@ package util;
 
 /**
  * 存放32位二进制整数
+ * 需要DataType时使用共享的DataType.ZERO、DataType.NEGATIVE_ONE，不必每次解析这些串
  */
 public class BinaryIntegers {
 
@@ -1,36 +1,179 @@
 package util;
 
-import java.util.Collections;
-
 public class DataType {
 
-    private final byte[] data = new byte[4];
+    /**
+     * 整数0，也是浮点数+0
+     */
+    public static final DataType ZERO = new DataType(0);
+
+    public static final DataType ONE = new DataType(1);
+
+    /**
+     * 整数-1（全1）
+     */
+    public static final DataType NEGATIVE_ONE = new DataType(-1);
+
+    /**
+     * 浮点数-0，也是整数-2^31
+     */
+    public static final DataType N_ZERO = new DataType(0x80000000);
+
+    public static final DataType P_INF = new DataType(0x7F800000);
+
+    public static final DataType N_INF = new DataType(0xFF800000);
+
+    /**
+     * 运算产生的NaN（0x7FC00000），其他NaN的位模式不共享
+     */
+    public static final DataType NaN = new DataType(0x7FC00000);
+
+    /**
+     * 共享实例的整数范围[SMALL_MIN, SMALL_MAX)
+     */
+    private static final int SMALL_MIN = -128;
+
+    private static final int SMALL_MAX = 1024;
+
+    private static final DataType[] SMALL = new DataType[SMALL_MAX - SMALL_MIN];
+
+    static {
+        for (int i = SMALL_MIN; i < SMALL_MAX; i++) {
+            SMALL[i - SMALL_MIN] = i == 0 ? ZERO : i == 1 ? ONE : i == -1 ? NEGATIVE_ONE : new DataType(i);
+        }
+    }
+
+    /**
+     * 32位原始位模式，最高位即字符串表示的第一个字符
+     */
+    private final int bits;
+
+    /**
+     * unpack()的缓存；UnpackedFloat不可变，多个线程同时计算时至多重复计算，不需要同步
+     */
+    private UnpackedFloat unpacked;
 
     public DataType(String dataStr) {
-        // 目前是大端实现，高位字节存放在低地址
+        this.bits = parse(dataStr);
+    }
+
+    private DataType(int bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * 由32位位模式得到DataType，不经过字符串
+     * DataType不可变，小整数（-128到1023）、±0、±Inf和NaN返回共享的实例，其余位模式新建实例
+     *
+     * @param bits 32位位模式
+     * @return 对应的DataType
+     */
+    public static DataType ofBits(int bits) {
+        if (bits >= SMALL_MIN && bits < SMALL_MAX) {
+            return SMALL[bits - SMALL_MIN];
+        }
+        switch (bits) {
+            case 0x80000000:
+                return N_ZERO;
+            case 0x7F800000:
+                return P_INF;
+            case 0xFF800000:
+                return N_INF;
+            case 0x7FC00000:
+                return NaN;
+            default:
+                return new DataType(bits);
+        }
+    }
+
+    /**
+     * 与构造方法接受相同的串，但与ofBits一样对常见值返回共享的实例
+     */
+    public static DataType valueOf(String dataStr) {
+        return ofBits(parse(dataStr));
+    }
+
+    /**
+     * 长度为8或16的串在高位补0
+     */
+    private static int parse(String dataStr) {
         int length = dataStr.length();
         if (length == 8 || length == 16 || length == 32) {
-            dataStr = String.join("", Collections.nCopies(32 - length, "0")) + dataStr;
-            for (int i = 0; i < 32; i++) {
+            int value = 0;
+            for (int i = 0; i < length; i++) {
                 char temp = dataStr.charAt(i);
                 if (temp == '0' || temp == '1') {
-                    data[i / 8] |= ((dataStr.charAt(i) - '0') << (7 - i % 8));
+                    value = (value << 1) | (temp - '0');
                 } else {
                     throw new NumberFormatException("Illegal dataStr: " + dataStr);
                 }
             }
-        } else {
-            throw new NumberFormatException("Illegal dataStr: " + dataStr);
+            return value;
         }
+        throw new NumberFormatException("Illegal dataStr: " + dataStr);
+    }
+
+    /**
+     * @return 32位位模式
+     */
+    public int bits() {
+        return bits;
+    }
+
+    /**
+     * @return 按IEEE-754解释时的符号位，0或1
+     */
+    public int sign() {
+        return bits >>> 31;
+    }
+
+    /**
+     * @return 按IEEE-754解释时的8位阶码（带偏置）
+     */
+    public int exponent() {
+        return (bits >>> 23) & 0xFF;
+    }
+
+    /**
+     * @return 按IEEE-754解释时的23位尾数（不含隐藏位）
+     */
+    public int fraction() {
+        return bits & 0x7FFFFF;
+    }
+
+    /**
+     * @return 按IEEE-754 binary32解码的结果，第一次调用时计算，之后返回缓存的同一个实例
+     */
+    public UnpackedFloat unpack() {
+        UnpackedFloat result = unpacked;
+        if (result == null) {
+            result = new UnpackedFloat(bits);
+            unpacked = result;
+        }
+        return result;
+    }
+
+    /**
+     * 位模式相同即相等
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DataType && ((DataType) o).bits == bits;
     }
 
+    @Override
+    public int hashCode() {
+        return bits;
+    }
+
+    /**
+     * 32个字符的二进制串，仅为兼容旧接口保留
+     */
     @Override
     public String toString() {
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < 4; i++) {
-            stringBuilder.append(Transformer.intToBinary(String.valueOf(data[i])).substring(24));
-        }
-        return stringBuilder.toString();
+        char[] chars = new char[32];
+        Transformer.formatBinary(bits, 32, chars, 0);
+        return new String(chars);
     }
 
 }
@@ -0,0 +1,260 @@
+package util;
+
+/**
+ * IEEE-754风格的二进制浮点格式：1位符号、exponentBits位阶码（偏置为2^(exponentBits-1)-1）、fractionBits位尾数
+ * 位模式保存在long的低width()位中；阶码全1表示Inf/NaN，阶码全0表示0和非规格化数
+ * round给出参数化的就近舍入到偶数，取代FPU中固定为8位阶码、23位尾数的舍入
+ */
+public final class FloatFormat {
+
+    public static final FloatFormat BINARY16 = new FloatFormat("binary16", 5, 10);
+
+    public static final FloatFormat BFLOAT16 = new FloatFormat("bfloat16", 8, 7);
+
+    public static final FloatFormat BINARY32 = new FloatFormat("binary32", 8, 23);
+
+    public static final FloatFormat BINARY64 = new FloatFormat("binary64", 11, 52);
+
+    private final String name;
+
+    private final int exponentBits;
+
+    private final int fractionBits;
+
+    private final int bias;
+
+    private FloatFormat(String name, int exponentBits, int fractionBits) {
+        this.name = name;
+        this.exponentBits = exponentBits;
+        this.fractionBits = fractionBits;
+        this.bias = (1 << (exponentBits - 1)) - 1;
+    }
+
+    /**
+     * @param exponentBits 2到11
+     * @param fractionBits 1到52
+     * @return 对应的格式，与预定义格式相同时返回预定义的实例
+     */
+    public static FloatFormat of(int exponentBits, int fractionBits) {
+        if (exponentBits < 2 || exponentBits > 11 || fractionBits < 1 || fractionBits > 52) {
+            throw new IllegalArgumentException("Illegal format: e" + exponentBits + "m" + fractionBits);
+        }
+        for (FloatFormat format : new FloatFormat[]{BINARY16, BFLOAT16, BINARY32, BINARY64}) {
+            if (format.exponentBits == exponentBits && format.fractionBits == fractionBits) {
+                return format;
+            }
+        }
+        return new FloatFormat("e" + exponentBits + "m" + fractionBits, exponentBits, fractionBits);
+    }
+
+    public int exponentBits() {
+        return exponentBits;
+    }
+
+    public int fractionBits() {
+        return fractionBits;
+    }
+
+    /**
+     * @return 有效位数（含隐藏位）
+     */
+    public int precision() {
+        return fractionBits + 1;
+    }
+
+    public int bias() {
+        return bias;
+    }
+
+    /**
+     * @return 位模式的位数
+     */
+    public int width() {
+        return 1 + exponentBits + fractionBits;
+    }
+
+    /**
+     * @return 每个值占用的字节数
+     */
+    public int bytes() {
+        return (width() + 7) >>> 3;
+    }
+
+    public long signMask() {
+        return 1L << (exponentBits + fractionBits);
+    }
+
+    /**
+     * @return 全1阶码（Inf、NaN）
+     */
+    public int maxExponent() {
+        return (1 << exponentBits) - 1;
+    }
+
+    public int sign(long bits) {
+        return (int) (bits >>> (exponentBits + fractionBits)) & 1;
+    }
+
+    /**
+     * @return 带偏置的阶码
+     */
+    public int exponent(long bits) {
+        return (int) (bits >>> fractionBits) & maxExponent();
+    }
+
+    /**
+     * @return 尾数（不含隐藏位）
+     */
+    public long fraction(long bits) {
+        return bits & ((1L << fractionBits) - 1);
+    }
+
+    public long zero(int sign) {
+        return sign == 0 ? 0 : signMask();
+    }
+
+    public long infinity(int sign) {
+        return zero(sign) | ((long) maxExponent() << fractionBits);
+    }
+
+    /**
+     * @return 尾数最高位为1的正NaN，与0x7FC00000对应
+     */
+    public long quietNaN() {
+        return infinity(0) | (1L << (fractionBits - 1));
+    }
+
+    /**
+     * 仅通过掩码判断操作数的类别
+     *
+     * @return IEEE754Float.CLASS_P_ZERO ... CLASS_NORMAL之一
+     */
+    public int classify(long bits) {
+        int exp = exponent(bits);
+        long fraction = fraction(bits);
+        boolean negative = sign(bits) != 0;
+        if (exp == 0) {
+            if (fraction != 0) {
+                return IEEE754Float.CLASS_SUBNORMAL;
+            }
+            return negative ? IEEE754Float.CLASS_N_ZERO : IEEE754Float.CLASS_P_ZERO;
+        }
+        if (exp == maxExponent()) {
+            if (fraction != 0) {
+                return IEEE754Float.CLASS_NaN;
+            }
+            return negative ? IEEE754Float.CLASS_N_INF : IEEE754Float.CLASS_P_INF;
+        }
+        return IEEE754Float.CLASS_NORMAL;
+    }
+
+    /**
+     * @return 有限数的有效位（含隐藏位），值为significand * 2^scale
+     */
+    public long significand(long bits) {
+        long fraction = fraction(bits);
+        return exponent(bits) == 0 ? fraction : fraction | (1L << fractionBits);
+    }
+
+    /**
+     * @return 有限数的significand最低位的权重（2的幂次）
+     */
+    public int scale(long bits) {
+        return Math.max(exponent(bits), 1) - bias - fractionBits;
+    }
+
+    /**
+     * 把(-1)^sign * (sig + δ) * 2^scale就近舍入到偶数，0 &lt; δ &lt; 1当且仅当sticky
+     * 结果超出最大有限数时为Inf，小于最小非规格化数的一半时为0
+     *
+     * @param sig    不超过63位的非负整数
+     * @param sticky sig之后是否还有被截去的非0部分
+     * @return 位模式
+     */
+    public long round(int sign, long sig, int scale, boolean sticky) {
+        if (sig == 0) {
+            return zero(sign);
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(sig);
+        int exp = scale + msb; // 最高位的权重
+        int minExp = 1 - bias;
+        if (exp > bias) {
+            return infinity(sign);
+        }
+        int shift = msb - fractionBits;
+        if (exp < minExp) { // 非规格化数，有效位数减少
+            shift += minExp - exp;
+        }
+        long rounded;
+        if (shift <= 0) {
+            rounded = sig << -shift;
+        } else if (shift > 63) {
+            rounded = 0; // 远小于最小非规格化数的一半
+        } else {
+            rounded = sig >>> shift;
+            long rest = sig & ((1L << shift) - 1);
+            long half = 1L << (shift - 1);
+            if (rest > half || (rest == half && (sticky || (rounded & 1) == 1))) {
+                rounded++;
+            }
+        }
+        // 规格化数的隐藏位加到阶码上，尾数进位自然进入阶码；非规格化数进位后恰好成为最小的规格化数
+        long bits = exp < minExp ? rounded : ((long) (exp + bias - 1) << fractionBits) + rounded;
+        if (bits >= infinity(0)) {
+            return infinity(sign);
+        }
+        return zero(sign) | bits;
+    }
+
+    /**
+     * @return 就近舍入到偶数后的位模式，NaN转为quietNaN
+     */
+    public long fromDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int sign = (int) (bits >>> 63);
+        if (Double.isNaN(value)) {
+            return quietNaN();
+        }
+        if (Double.isInfinite(value)) {
+            return infinity(sign);
+        }
+        int exp = (int) (bits >>> 52) & 0x7FF;
+        long fraction = bits & ((1L << 52) - 1);
+        long sig = exp == 0 ? fraction : fraction | (1L << 52);
+        return round(sign, sig, Math.max(exp, 1) - 1075, false);
+    }
+
+    /**
+     * @return 对应的double，所有格式都可以精确表示
+     */
+    public double toDouble(long bits) {
+        int exp = exponent(bits);
+        double magnitude;
+        if (exp == maxExponent()) {
+            magnitude = fraction(bits) == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            magnitude = Math.scalb((double) significand(bits), scale(bits));
+        }
+        return sign(bits) == 0 ? magnitude : -magnitude;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FloatFormat)) {
+            return false;
+        }
+        FloatFormat other = (FloatFormat) o;
+        return exponentBits == other.exponentBits && fractionBits == other.fractionBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return exponentBits * 64 + fractionBits;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
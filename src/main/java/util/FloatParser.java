@@ -0,0 +1,327 @@
+package util;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 十进制串到IEEE-754单精度位模式的转换，结果按就近舍入到偶数正确舍入
+ * 尾数不超过2^53且十进制指数在±22以内时走double快速路径（Clinger），其余情况用BigInteger精确计算
+ * 支持的格式：[+-]digits[.digits][(e|E)[+-]digits]，也可以没有整数部分，如".5"；
+ * 另外支持NaN、Inf、Infinity（不区分大小写），前后的空格和制表符会被忽略
+ */
+public final class FloatParser {
+
+    private static final int NaN = 0x7FC00000;
+
+    private static final int P_INF = 0x7F800000;
+
+    /**
+     * 快速路径使用的10的幂，都能用double精确表示
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * 最多累加19位有效数字，保证不超过long的范围
+     */
+    private static final int MAX_DIGITS = 19;
+
+    private FloatParser() {
+    }
+
+    /**
+     * @return 单精度位模式
+     * @throws NumberFormatException 格式不合法
+     */
+    public static int parseBits(CharSequence text) {
+        return parseBits(text, 0, text.length());
+    }
+
+    /**
+     * 解析text的[from, to)部分
+     */
+    public static int parseBits(CharSequence text, int from, int to) {
+        return parse(text, from, to);
+    }
+
+    /**
+     * 解析ASCII字节buf的[from, to)部分
+     */
+    public static int parseBits(byte[] buf, int from, int to) {
+        return parse(new Ascii(buf), from, to);
+    }
+
+    /**
+     * 批量解析：buf[from, to)按行（'\n'或"\r\n"）分隔，每行内按delimiter分隔，每个字段都是一个十进制数
+     * 空行会被跳过，空字段视为格式不合法
+     *
+     * @param out       结果位模式依次写入out[outOffset...]
+     * @return 解析出的数的个数
+     * @throws NumberFormatException 某个字段格式不合法，此前的字段已经写入out
+     */
+    public static int parseAll(byte[] buf, int from, int to, byte delimiter, int[] out, int outOffset) {
+        Ascii ascii = new Ascii(buf);
+        int count = 0;
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && buf[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && buf[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart) {
+                int fieldStart = lineStart;
+                for (int i = lineStart; i <= contentEnd; i++) {
+                    if (i == contentEnd || buf[i] == delimiter) {
+                        out[outOffset + count++] = parse(ascii, fieldStart, i);
+                        fieldStart = i + 1;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return count;
+    }
+
+    private static int parse(CharSequence text, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && isBlank(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isBlank(text.charAt(end - 1))) {
+            end--;
+        }
+        int i = start;
+        int sign = 0;
+        if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            sign = text.charAt(i) == '-' ? 0x80000000 : 0;
+            i++;
+        }
+        if (i < end && !isDigit(text.charAt(i)) && text.charAt(i) != '.') {
+            if (matches(text, i, end, "nan")) {
+                return NaN;
+            }
+            if (matches(text, i, end, "inf") || matches(text, i, end, "infinity")) {
+                return sign | P_INF;
+            }
+            throw illegal(text, from, to);
+        }
+
+        // 尾数：前MAX_DIGITS位有效数字累加到mantissa，其余的只记录指数和是否非0
+        long mantissa = 0;
+        int digits = 0; // 有效数字的个数（不含前导0）
+        int exp10 = 0; // 十进制指数，值为mantissa * 10^exp10（忽略截去的数字）
+        boolean truncated = false;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                seenDigit = true;
+                if (digits == 0 && c == '0') { // 前导0
+                    if (seenPoint) {
+                        exp10--;
+                    }
+                    continue;
+                }
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenPoint) {
+                        exp10--;
+                    }
+                } else {
+                    truncated |= c != '0';
+                    if (!seenPoint) {
+                        exp10++;
+                    }
+                }
+                digits++;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            throw illegal(text, from, to);
+        }
+        if (i < end) { // 指数部分
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E') {
+                throw illegal(text, from, to);
+            }
+            i++;
+            boolean negative = false;
+            if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                negative = text.charAt(i) == '-';
+                i++;
+            }
+            if (i == end) {
+                throw illegal(text, from, to);
+            }
+            int exponent = 0;
+            for (; i < end; i++) {
+                c = text.charAt(i);
+                if (!isDigit(c)) {
+                    throw illegal(text, from, to);
+                }
+                if (exponent < 100000) { // 超出范围的指数只影响结果是0还是Inf
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            exp10 += negative ? -exponent : exponent;
+        }
+
+        if (mantissa == 0) {
+            return sign;
+        }
+        int magnitude = Math.min(digits, MAX_DIGITS) + exp10; // 值位于[10^(magnitude-1), 10^magnitude)
+        if (magnitude <= -46) { // 小于最小非规格化数的一半
+            return sign;
+        }
+        if (magnitude >= 40) { // 不小于10^39，超出单精度范围
+            return sign | P_INF;
+        }
+        if (!truncated) {
+            int bits = fastPath(mantissa, exp10);
+            if (bits != -1) {
+                return sign | bits;
+            }
+        }
+        return sign | exact(text, start, end, exp10 - (digits - Math.min(digits, MAX_DIGITS)));
+    }
+
+    /**
+     * Clinger快速路径：mantissa和10^|exp10|都能用double精确表示，一次double运算得到正确舍入的double，
+     * 再舍入为float。只要double结果不恰好落在两个float的中点上，两次舍入的结果与一次舍入相同
+     *
+     * @return 位模式，不满足条件时返回-1
+     */
+    private static int fastPath(long mantissa, int exp10) {
+        if (mantissa >= 1L << 53 || exp10 < -22 || exp10 > 22) {
+            return -1;
+        }
+        double d = exp10 >= 0 ? mantissa * POWERS_OF_TEN[exp10] : mantissa / POWERS_OF_TEN[-exp10];
+        long bits = Double.doubleToRawLongBits(d);
+        int exp = (int) (bits >>> 52) - 1023;
+        if (exp < -126 || exp > 127) { // 非规格化数和溢出交给精确路径
+            return -1;
+        }
+        if ((bits & ((1L << 29) - 1)) == 1L << 28) { // 恰好是两个float的中点
+            return -1;
+        }
+        return Float.floatToRawIntBits((float) d);
+    }
+
+    /**
+     * 精确路径：把全部有效数字转成BigInteger，值为N / D，求出二进制阶码后做一次带余除法，按GRS舍入
+     *
+     * @param exp10 全部有效数字组成的整数乘以10^exp10即为所求的值
+     */
+    private static int exact(CharSequence text, int start, int end, int exp10) {
+        StringBuilder digitChars = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                digitChars.append(c);
+            } else if (c == 'e' || c == 'E') {
+                break;
+            }
+        }
+        BigInteger n = new BigInteger(digitChars.toString());
+        BigInteger d = BigInteger.ONE;
+        if (exp10 >= 0) {
+            n = n.multiply(BigInteger.TEN.pow(exp10));
+        } else {
+            d = BigInteger.TEN.pow(-exp10);
+        }
+
+        // e2 = floor(log2(N / D))
+        int e2 = n.bitLength() - d.bitLength();
+        if ((e2 >= 0 ? n.compareTo(d.shiftLeft(e2)) : n.shiftLeft(-e2).compareTo(d)) < 0) {
+            e2--;
+        }
+        int lsb = Math.max(e2 - 23, -149); // 结果最低位的权重
+        int shift = 1 - lsb; // 多保留一位作为舍入位
+        BigInteger[] qr = shift >= 0 ? n.shiftLeft(shift).divideAndRemainder(d)
+                : n.divideAndRemainder(d.shiftLeft(-shift));
+        long t = qr[0].longValue();
+        boolean guard = (t & 1) == 1;
+        boolean sticky = qr[1].signum() != 0;
+        long m = t >>> 1;
+        if (guard && (sticky || (m & 1) == 1)) {
+            m++;
+            if (m == 1L << 24) { // 尾数进位溢出
+                m >>>= 1;
+                lsb++;
+            }
+        }
+        if (m < 1L << 23) { // 非规格化数（或0）
+            return (int) m;
+        }
+        int biased = lsb + 23 + 127;
+        if (biased >= 0xFF) {
+            return P_INF;
+        }
+        return (biased << 23) | (int) (m & 0x7FFFFF);
+    }
+
+    private static boolean matches(CharSequence text, int from, int to, String word) {
+        if (to - from != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(from + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static NumberFormatException illegal(CharSequence text, int from, int to) {
+        return new NumberFormatException("Illegal decimal: " + text.subSequence(from, to));
+    }
+
+    /**
+     * 把ASCII字节数组看作CharSequence，不复制
+     */
+    private static final class Ascii implements CharSequence {
+
+        private final byte[] buf;
+
+        Ascii(byte[] buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int length() {
+            return buf.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, buf.length).toString();
+        }
+
+    }
+
+}
@@ -13,8 +13,49 @@ public class IEEE754Float {
 
 	public static final String N_INF = "11111111100000000000000000000000";  // 0Xff800000    negative infinity
 
-	public static final String NaN_Regular = "(0|1){1}1{8}(0+1+|1+0+)(0|1)*";  // Not_A_Number    regular expression
+	public static final String NaN_Regular = "(0|1){1}1{8}(0|1)*1(0|1)*";  // Not_A_Number    regular expression
 
 	public static final String NaN = "01111111110000000000000000000000";  // Not_A_Number
 
+	// 操作数分类，由classify返回，可直接作为查表下标
+	public static final int CLASS_P_ZERO = 0;
+
+	public static final int CLASS_N_ZERO = 1;
+
+	public static final int CLASS_P_INF = 2;
+
+	public static final int CLASS_N_INF = 3;
+
+	public static final int CLASS_NaN = 4;
+
+	public static final int CLASS_SUBNORMAL = 5;
+
+	public static final int CLASS_NORMAL = 6;
+
+	public static final int CLASS_COUNT = 7;
+
+	/**
+	 * 仅通过掩码判断操作数的类别
+	 *
+	 * @param bits 32位位模式
+	 * @return CLASS_P_ZERO ... CLASS_NORMAL之一
+	 */
+	public static int classify(int bits) {
+		int exp = bits & 0x7F800000;
+		int fraction = bits & 0x007FFFFF;
+		if (exp == 0) {
+			if (fraction != 0) {
+				return CLASS_SUBNORMAL;
+			}
+			return bits < 0 ? CLASS_N_ZERO : CLASS_P_ZERO;
+		}
+		if (exp == 0x7F800000) {
+			if (fraction != 0) {
+				return CLASS_NaN;
+			}
+			return bits < 0 ? CLASS_N_INF : CLASS_P_INF;
+		}
+		return CLASS_NORMAL;
+	}
+
 }
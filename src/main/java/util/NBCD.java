@@ -0,0 +1,97 @@
+package util;
+
+/**
+ * 压缩在一个int中的NBCD码：最高4位为符号（1100为正，1101为负），其余28位为7位十进制数字，每位4比特
+ * 编码和解码都按查表进行，不经过字符串
+ */
+public final class NBCD {
+
+    public static final int POSITIVE = 0xC;
+
+    public static final int NEGATIVE = 0xD;
+
+    /**
+     * 能表示的最大绝对值
+     */
+    public static final int MAX_MAGNITUDE = 9999999;
+
+    /**
+     * 0-9999对应的16位BCD码
+     */
+    private static final short[] ENCODE = new short[10000];
+
+    /**
+     * 一个字节（两位BCD数字）对应的0-99，字节中有非法数字时为-1
+     */
+    private static final byte[] DECODE = new byte[256];
+
+    static {
+        for (int i = 0; i < 10000; i++) {
+            ENCODE[i] = (short) ((i / 1000 << 12) | (i / 100 % 10 << 8) | (i / 10 % 10 << 4) | (i % 10));
+        }
+        for (int b = 0; b < 256; b++) {
+            int high = b >>> 4;
+            int low = b & 0xF;
+            DECODE[b] = (byte) (high > 9 || low > 9 ? -1 : high * 10 + low);
+        }
+    }
+
+    private NBCD() {
+    }
+
+    /**
+     * @param value 绝对值不超过MAX_MAGNITUDE
+     * @return 压缩的NBCD码，0的符号为正
+     */
+    public static int encode(int value) {
+        if (value < -MAX_MAGNITUDE || value > MAX_MAGNITUDE) {
+            throw new IllegalArgumentException("Out of NBCD range: " + value);
+        }
+        int magnitude = Math.abs(value);
+        int digits = (ENCODE[magnitude / 10000] << 16) | (ENCODE[magnitude % 10000] & 0xFFFF);
+        return ((value < 0 ? NEGATIVE : POSITIVE) << 28) | digits;
+    }
+
+    /**
+     * @param nbcd 压缩的NBCD码
+     * @return 真值
+     */
+    public static int decode(int nbcd) {
+        if (!isValid(nbcd)) {
+            throw new IllegalArgumentException("Illegal NBCD: " + Integer.toHexString(nbcd));
+        }
+        int magnitude = ((nbcd >>> 24) & 0xF) * 1000000 + DECODE[(nbcd >>> 16) & 0xFF] * 10000
+                + DECODE[(nbcd >>> 8) & 0xFF] * 100 + DECODE[nbcd & 0xFF];
+        return sign(nbcd) == NEGATIVE ? -magnitude : magnitude;
+    }
+
+    /**
+     * @return 符号位为1100或1101，且每一位数字都不超过9
+     */
+    public static boolean isValid(int nbcd) {
+        int sign = sign(nbcd);
+        return (sign == POSITIVE || sign == NEGATIVE) && !hasIllegalDigit(nbcd & 0x0FFFFFFF);
+    }
+
+    /**
+     * @return 高4位符号
+     */
+    public static int sign(int nbcd) {
+        return nbcd >>> 28;
+    }
+
+    /**
+     * @return 低28位的7位数字
+     */
+    public static int digits(int nbcd) {
+        return nbcd & 0x0FFFFFFF;
+    }
+
+    /**
+     * 某一位大于9当且仅当该位的最高位为1且次高两位不全为0，所有位并行判断
+     */
+    private static boolean hasIllegalDigit(int digits) {
+        return ((digits >>> 3) & ((digits >>> 2) | (digits >>> 1)) & 0x01111111) != 0;
+    }
+
+}
@@ -0,0 +1,222 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运算结果的有界缓存，以(运算, src, dest)为键，值为32位结果
+ * 组相联：键的哈希选出一组WINDOW个连续槽位；组已满时按CLOCK（二次机会）淘汰，
+ * 每个槽位有一个访问位，命中时置1，淘汰时跳过并清除访问位为1的槽位
+ * 每组有一个版本号（seqlock）：put先把版本号CAS为奇数再修改，改完加1变回偶数；
+ * get不加锁，前后两次读到的版本号相同且为偶数时结果有效，否则按未命中处理，由调用者重新计算
+ * 不同组的put互不阻塞，计数器用LongAdder，可以在多个线程的FPU/ALU之间共享
+ */
+public final class ResultCache {
+
+    public static final int FPU_ADD = 1;
+
+    public static final int FPU_SUB = 2;
+
+    public static final int FPU_MUL = 3;
+
+    public static final int FPU_DIV = 4;
+
+    public static final int ALU_MUL = 5;
+
+    public static final int ALU_DIV = 6;
+
+    /**
+     * get未命中时的返回值，命中时返回值的高32位为0
+     */
+    public static final long MISS = -1L;
+
+    private static final int WINDOW = 8;
+
+    private final int mask;
+
+    /**
+     * 高32位为src，低32位为dest
+     */
+    private final AtomicLongArray operands;
+
+    /**
+     * 高32位为运算编号，低32位为结果；运算编号不为0，因此0表示空槽位
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * 每组的seqlock版本号，奇数表示正在写
+     */
+    private final AtomicIntegerArray versions;
+
+    /**
+     * CLOCK的访问位，get不加锁地写入，只是淘汰时的提示，偶尔丢失一次置位不影响正确性
+     */
+    private final boolean[] referenced;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity 最多缓存的结果个数，向上取整到2的幂（至少为WINDOW）
+     */
+    public ResultCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = Math.max(WINDOW, Integer.highestOneBit(capacity - 1) << 1);
+        mask = size - 1;
+        operands = new AtomicLongArray(size);
+        entries = new AtomicLongArray(size);
+        versions = new AtomicIntegerArray(size / WINDOW);
+        referenced = new boolean[size];
+    }
+
+    /**
+     * @return 缓存的结果（无符号扩展为long），未命中或者所在的组正在被修改时返回MISS
+     */
+    public long get(int op, int src, int dest) {
+        long key = key(src, dest);
+        int start = index(op, key);
+        int set = start / WINDOW;
+        int version = versions.get(set);
+        if ((version & 1) == 0) {
+            for (int slot = start; slot < start + WINDOW; slot++) {
+                if (operands.get(slot) == key) {
+                    long entry = entries.get(slot);
+                    if ((int) (entry >>> 32) == op && versions.get(set) == version) {
+                        if (!referenced[slot]) {
+                            referenced[slot] = true;
+                        }
+                        hits.increment();
+                        return entry & 0xFFFFFFFFL;
+                    }
+                }
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * 存入结果，组内有空槽位时直接使用，否则淘汰一个最近没有被访问的结果
+     */
+    public void put(int op, int src, int dest, int value) {
+        long key = key(src, dest);
+        int start = index(op, key);
+        int set = start / WINDOW;
+        int version = lock(set);
+        try {
+            long entry = ((long) op << 32) | (value & 0xFFFFFFFFL);
+            int victim = -1;
+            for (int slot = start; slot < start + WINDOW; slot++) {
+                long current = entries.get(slot);
+                if (operands.get(slot) == key && (int) (current >>> 32) == op) { // 已经存在，更新
+                    entries.set(slot, entry);
+                    return;
+                }
+                if (victim == -1 && current == 0) {
+                    victim = slot;
+                }
+            }
+            if (victim == -1) { // CLOCK：最多绕组两圈，必然找到访问位为0的槽位
+                for (int i = 0; ; i = (i + 1) % WINDOW) {
+                    int slot = start + i;
+                    if (!referenced[slot]) {
+                        victim = slot;
+                        break;
+                    }
+                    referenced[slot] = false;
+                }
+                evictions.increment();
+            }
+            operands.set(victim, key);
+            entries.set(victim, entry);
+            referenced[victim] = false;
+        } finally {
+            versions.set(set, version + 2);
+        }
+    }
+
+    /**
+     * 把组的版本号从偶数CAS为奇数，其他线程正在修改这一组时让出CPU后重试
+     *
+     * @return 加锁前的版本号
+     */
+    private int lock(int set) {
+        while (true) {
+            int version = versions.get(set);
+            if ((version & 1) == 0 && versions.compareAndSet(set, version, version + 1)) {
+                return version;
+            }
+            Thread.yield();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 命中次数占查询次数的比例，没有查询时为0；并发读写时是近似值
+     */
+    public double hitRate() {
+        long hit = hits.sum();
+        long lookups = hit + misses.sum();
+        return lookups == 0 ? 0 : (double) hit / lookups;
+    }
+
+    /**
+     * @return 实际的槽位个数
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 逐组清空缓存，再清空计数
+     */
+    public void clear() {
+        for (int set = 0; set < versions.length(); set++) {
+            int version = lock(set);
+            for (int slot = set * WINDOW; slot < (set + 1) * WINDOW; slot++) {
+                entries.set(slot, 0);
+                referenced[slot] = false;
+            }
+            versions.set(set, version + 2);
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    private static long key(int src, int dest) {
+        return ((long) src << 32) | (dest & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 64位混合函数（SplitMix64的最终混合），保证相近的操作数分散到不同的组
+     *
+     * @return 组的第一个槽位
+     */
+    private int index(int op, long key) {
+        long h = key + op * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) h & mask & -WINDOW;
+    }
+
+}
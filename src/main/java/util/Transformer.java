@@ -1,6 +1,28 @@
 package util;
 
 public class Transformer {
+
+    /**
+     * 8位二进制串的查找表，第b个字节的二进制串位于[8b, 8b + 8)
+     */
+    private static final char[] BYTE_BINARY_CHARS = new char[256 * 8];
+
+    private static final byte[] BYTE_BINARY_ASCII = new byte[256 * 8];
+
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+    private static final byte[] HEX_ASCII = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) {
+                char c = (char) ('0' + ((b >>> (7 - i)) & 1));
+                BYTE_BINARY_CHARS[b * 8 + i] = c;
+                BYTE_BINARY_ASCII[b * 8 + i] = (byte) c;
+            }
+        }
+    }
+
     /**
      * Integer to BinaryString
      *
@@ -8,79 +30,111 @@ public class Transformer {
      * @return result
      */
     public static String intToBinary(String numStr) {
-        int num = Integer.parseInt(numStr);
-        if (num == 0) return "00000000000000000000000000000000";  //0单独判读
-        if (num == 0x80000000) return "10000000000000000000000000000000";
-        boolean isNeg = false;
-        if (num < 0) {  //负数转正数
-            num = -num;
-            isNeg = true;
-        }
-        StringBuilder temp = new StringBuilder();
-        while (num > 0) {  //转为二进制
-            if (num % 2 == 1) temp.append("1");
-            else temp.append("0");
-            num /= 2;
-        }
-        String ans = temp.reverse().toString();  //反转
-        int len = ans.length();
-        for (int i = 0; i < 32 - len; i++) ans = "0" + ans;
-        if (isNeg) {  //如果是负数那么取反加一
-            ans = oneAdder(negation(ans)).substring(1);
-        }
-        return ans;
+        char[] chars = new char[32];
+        formatBinary(Integer.parseInt(numStr), 32, chars, 0);
+        return new String(chars);
     }
 
-    public static String binaryToInt(String binStr) {
-        return String.valueOf(valueOf(binStr, 2));
+    /**
+     * write the low `bits` bits of value as binary digits (most significant first), without allocating
+     *
+     * @param value  the value, bits above `bits` are ignored
+     * @param bits   8, 16 or 32
+     * @param dst    destination, needs `bits` chars from offset
+     * @param offset start position in dst
+     * @return the position after the last written char
+     */
+    public static int formatBinary(int value, int bits, char[] dst, int offset) {
+        checkWidth(bits);
+        for (int shift = bits - 8; shift >= 0; shift -= 8, offset += 8) {
+            System.arraycopy(BYTE_BINARY_CHARS, ((value >>> shift) & 0xFF) << 3, dst, offset, 8);
+        }
+        return offset;
     }
 
-    public static String floatToBinary(String floatStr) {
-        int eLength = 8;
-        int sLength = 23;
+    /**
+     * same as {@link #formatBinary(int, int, char[], int)}, writing ASCII bytes
+     */
+    public static int formatBinary(int value, int bits, byte[] dst, int offset) {
+        checkWidth(bits);
+        for (int shift = bits - 8; shift >= 0; shift -= 8, offset += 8) {
+            System.arraycopy(BYTE_BINARY_ASCII, ((value >>> shift) & 0xFF) << 3, dst, offset, 8);
+        }
+        return offset;
+    }
 
-        float d = Float.parseFloat(floatStr);
-        boolean isNeg = d < 0;
+    /**
+     * append the low `bits` bits of value as binary digits
+     *
+     * @return sb
+     */
+    public static StringBuilder appendBinary(StringBuilder sb, int value, int bits) {
+        checkWidth(bits);
+        for (int shift = bits - 8; shift >= 0; shift -= 8) {
+            sb.append(BYTE_BINARY_CHARS, ((value >>> shift) & 0xFF) << 3, 8);
+        }
+        return sb;
+    }
 
-        if (Float.isNaN(d)) {
-            return "Nan";
+    /**
+     * write the low `bits` bits of value as bits / 4 upper-case hex digits, without allocating
+     *
+     * @param bits 8, 16 or 32
+     * @return the position after the last written char
+     */
+    public static int formatHex(int value, int bits, char[] dst, int offset) {
+        checkWidth(bits);
+        for (int shift = bits - 4; shift >= 0; shift -= 4) {
+            dst[offset++] = HEX_CHARS[(value >>> shift) & 0xF];
         }
-        if (!isFinite(d, eLength, sLength)) {
-            return isNeg ? "-Inf" : "+Inf";  //NaN暂时不考虑
+        return offset;
+    }
+
+    /**
+     * same as {@link #formatHex(int, int, char[], int)}, writing ASCII bytes
+     */
+    public static int formatHex(int value, int bits, byte[] dst, int offset) {
+        checkWidth(bits);
+        for (int shift = bits - 4; shift >= 0; shift -= 4) {
+            dst[offset++] = HEX_ASCII[(value >>> shift) & 0xF];
         }
+        return offset;
+    }
 
-        StringBuilder answer = new StringBuilder(1 + eLength + sLength);
+    /**
+     * append the low `bits` bits of value as bits / 4 upper-case hex digits
+     *
+     * @return sb
+     */
+    public static StringBuilder appendHex(StringBuilder sb, int value, int bits) {
+        checkWidth(bits);
+        for (int shift = bits - 4; shift >= 0; shift -= 4) {
+            sb.append(HEX_CHARS[(value >>> shift) & 0xF]);
+        }
+        return sb;
+    }
 
-        if (isNeg) answer.append("1");  //value is negative, so append sign info
-        else answer.append("0");
+    private static void checkWidth(int bits) {
+        if (bits != 8 && bits != 16 && bits != 32) {
+            throw new IllegalArgumentException("Illegal width: " + bits);
+        }
+    }
 
-        if (d == 0.0) {
-            for (int i = 0; i < eLength + sLength; i++) {  //zero representation
-                answer.append("0");
-            }
-            return answer.toString();
-        } else {
-            d = Math.abs(d);
-            int bias = (int) ((maxValue(eLength) + 1) / 2 - 1);  //bias
-            boolean subnormal = (d < minNormal(eLength, sLength));
+    public static String binaryToInt(String binStr) {
+        return String.valueOf(valueOf(binStr, 2));
+    }
 
-            if (subnormal) {
-                for (int i = 0; i < eLength; i++) {
-                    answer.append("0");
-                }
-                d = (float) (d * Math.pow(2, bias - 1));  //将指数消去
-                // d = 0.xxxxx
-                answer.append(fixPoint(d, sLength));
-            } else {
-                // float exponent = Math.getExponent(d);  // 0.5 -> -1
-                int exponent = (int) getExponent(d);
-                answer.append(integerRepresentation(String.valueOf((int) (exponent + bias)), eLength));  //add the bias
-                d = (float) (d / Math.pow(2, exponent));
-                // d = 1.xxxxx
-                answer.append(fixPoint(d - 1, sLength));  //fixPoint传入的参数要求小于1，自动忽略了隐藏位
-            }
+    public static String floatToBinary(String floatStr) {
+        int bits = FloatParser.parseBits(floatStr);
+        if ((bits & 0x7FFFFFFF) > 0x7F800000) {
+            return "Nan";
         }
-        return answer.toString();
+        if ((bits & 0x7FFFFFFF) == 0x7F800000) {
+            return bits < 0 ? "-Inf" : "+Inf";
+        }
+        char[] chars = new char[32];
+        formatBinary(bits, 32, chars, 0);
+        return new String(chars);
     }
 
     public static String binaryToFloat(String binStr) {
@@ -132,45 +186,6 @@ public class Transformer {
         return String.valueOf(NBCDTrueValue(NBCDStr));
     }
 
-    /**
-     * add one to the operand
-     *
-     * @param operand the operand
-     * @return result after adding, the first position means overflow (not equal to the carray to the next) and the remains means the result
-     */
-    private static String oneAdder(String operand) {
-        int len = operand.length();
-        StringBuffer temp = new StringBuffer(operand);
-        temp = temp.reverse();
-        int[] num = new int[len];
-        for (int i = 0; i < len; i++) num[i] = temp.charAt(i) - '0';  //先转化为反转后对应的int数组
-        int bit = 0x0;
-        int carry = 0x1;
-        char[] res = new char[len];
-        for (int i = 0; i < len; i++) {
-            bit = num[i] ^ carry;
-            carry = num[i] & carry;
-            res[i] = (char) ('0' + bit);  //显示转化为char
-        }
-        String result = new StringBuffer(new String(res)).reverse().toString();
-        return "" + (result.charAt(0) == operand.charAt(0) ? '0' : '1') + result;  //注意有进位不等于溢出，溢出要另外判断
-    }
-
-    /**
-     * convert the string's 0 and 1.
-     * e.g 00000 to 11111
-     *
-     * @param operand string to convert (by default, it is 32 bits long)
-     * @return string after converting
-     */
-    private static String negation(String operand) {
-        StringBuffer result = new StringBuffer();
-        for (int i = 0; i < operand.length(); i++) {
-            result = operand.charAt(i) == '1' ? result.append("0") : result.append("1");
-        }
-        return result.toString();
-    }
-
     /**
      * equal to the Integer.valueOf
      *
@@ -191,161 +206,49 @@ public class Transformer {
 
     /**
      * convert a string as a num's NBCD's representation to its true value
+     * 与原来逐段截取子串再拼接、解析的结果相同，但直接在字符串上累加，不创建中间字符串：
+     * 前4位为1101时为负，其余都按正数处理；之后最多7个4位数字，字符串可以是任意长度（如8位的"11000001"）；
+     * 大于9的4位数按两位十进制数拼接（与原来的字符串拼接一致）
      *
      * @param operand to be converted
      * @return the string format of its true value
+     * @throws NumberFormatException 没有数字、出现0和1以外的字符或超出int范围
      */
     private static int NBCDTrueValue(String operand) {
-        StringBuilder ans = new StringBuilder();
-        if (operand.startsWith("1101")) ans.append('-');
-        operand = operand.substring(4);
-        for (int i = 0; i < operand.length() && i < 28; i += 4) {
-            ans.append(Integer.valueOf(operand.substring(i, i + 4), 2));
+        boolean negative = operand.startsWith("1101");
+        if (operand.length() <= 4) {
+            throw new NumberFormatException("No NBCD digit: " + operand);
+        }
+        long magnitude = 0;
+        for (int i = 4; i < operand.length() && i < 32; i += 4) {
+            int digit = 0;
+            for (int j = i; j < i + 4; j++) { // 不足4位时与原来的substring一样抛出StringIndexOutOfBoundsException
+                char c = operand.charAt(j);
+                if (c != '0' && c != '1') {
+                    throw new NumberFormatException("Illegal NBCD: " + operand);
+                }
+                digit = (digit << 1) | (c - '0');
+            }
+            magnitude = magnitude * (digit > 9 ? 100 : 10) + digit;
         }
-        return Integer.parseInt(ans.toString());
+        if (magnitude > (negative ? 1L << 31 : Integer.MAX_VALUE)) {
+            throw new NumberFormatException("Out of int range: " + operand);
+        }
+        return (int) (negative ? -magnitude : magnitude);
     }
 
     /**
      * 十进制数转BCD码
      *
-     * @param val 十进制整数
+     * @param val 十进制整数，只保留低7位数字
      * @return 1 +  4*(整数位数) BCD码
      */
     public static String getBCDString(int val) {
-//        if (val == 0) return "1100 0000";
-        String sign = val < 0 ? "1101" : "1100"; //得到符号位
-        String result = "";
-        val = Math.abs(val);
-        int i = 7;
-        while (i > 0) {
-            int tmpVal = val % 10;
-            result = getBCDString_4(tmpVal).concat(result);
-            val = val / 10;
-            i--;
-        }
-        return sign.concat(result);
-    }
-
-    /**
-     * @param val 0-9的整数
-     * @return 4位二进制数 [0000 - 1001]
-     */
-    private static String getBCDString_4(int val) {
-        String result = "";
-        for (int i = 0; i < 4; i++, val = val / 2) {
-            if (val % 2 == 1)
-                result = "1".concat(result);
-            else
-                result = "0".concat(result);
-        }
-        return result;
-    }
-
-    /**
-     * calculate the max value (true value) with the given length of bits
-     *
-     * @param length given length
-     * @return result
-     */
-    private static float maxValue(int length) {
-        //不能使用移位操作
-        return (float) (Math.pow(2, length) - 1);
-    }
-
-    /**
-     * check if the number could be present
-     *
-     * @param d       decimal
-     * @param eLength exponent's length
-     * @param sLength significand's length
-     * @return result
-     */
-    private static boolean isFinite(float d, int eLength, int sLength) {
-        int bias = (int) ((maxValue(eLength) + 1) / 2 - 1);  //bias
-        int exponent = (int) (maxValue(eLength) - 1 - bias - sLength);  //指数全1和全0是特殊情况，这里只要计算可以被正常表示的最大值，因此-1，且直接将significand转化的位数减去
-        float significand = maxValue(sLength + 1);  //加上隐藏位
-        float result = (float) (significand * Math.pow(2, exponent));
-        return d >= -result && d <= result;
-//		return result;  //用于测试最大值
-    }
-
-    /**
-     * calculate the min normal with the given length
-     *
-     * @param eLength exponent's length
-     * @param sLength significand's length
-     * @return result
-     */
-    private static float minNormal(int eLength, int sLength) {
-        int bias = (int) ((maxValue(eLength) + 1) / 2 - 1);  //bias
-        return (float) Math.pow(2, 1 - bias);  //指数为1，阶码全0
-    }
-
-    /**
-     * calculate the fix-point representation
-     *
-     * @param d       decimal num must be smaller than 1
-     * @param sLength length of the result
-     * @return fix-point string
-     */
-    private static String fixPoint(float d, int sLength) {
-        d = d < 1 ? d : d - (int) d;  //d = 0.xxxxx
-        StringBuilder res = new StringBuilder();
-        int count = 0;
-        while (d != 0 && count < sLength) {
-            d *= 2;
-            if (d < 1) {
-                res.append("0");
-            } else {
-                d -= 1;
-                res.append("1");
-            }
-            count++;  //最长为sLength的长度
-        }
-        int len = res.length();  //不能直接用res.length()
-        for (int i = 0; i < sLength - len; i++) res.append(0);
-        return res.toString();
-    }
-
-    /**
-     * make a num to format 1.xxxxx, return the exponent of 2
-     *
-     * @param d num
-     * @return exponent
-     */
-    private static float getExponent(float d) {
-        if (d == 0) return 0;  //0不能得到正确结果，即-bias
-        int exponent = 0;
-        while (d >= 2) {
-            d /= 2;
-            exponent++;
-        }
-        while (d < 1) {
-            d *= 2;
-            exponent--;
-        }
-        return exponent;
-    }
-
-    /**
-     * convert a number to its implement representation
-     *
-     * @param number a num to be converted
-     * @param length the return string's length
-     * @return its implement representation
-     */
-    private static String integerRepresentation(String number, int length) {
-        int num = Integer.valueOf(number);
-        // num = number.charAt(0) == '-' ? -Integer.valueOf(number.substring(1)) : Integer.valueOf(number);
-        if (num < 0) return Integer.toBinaryString(num).substring(32 - length);
-        else {
-            String result = Integer.toBinaryString(num);
-            int len = length - result.length();  //这一步要先提取出来，不然下面会实时计算len
-            for (int i = 0; i < len; i++) {
-                result = "0" + result;
-            }
-            return result;
-        }
+        int magnitude = (int) (Math.abs((long) val) % (NBCD.MAX_MAGNITUDE + 1));
+        int nbcd = ((val < 0 ? NBCD.NEGATIVE : NBCD.POSITIVE) << 28) | NBCD.digits(NBCD.encode(magnitude));
+        char[] chars = new char[32];
+        formatBinary(nbcd, 32, chars, 0);
+        return new String(chars);
     }
 
 }
@@ -0,0 +1,97 @@
+package util;
+
+/**
+ * 按IEEE-754 binary32解码后的操作数：符号、无偏阶码、带隐藏位的有效位和类别（IEEE754Float.CLASS_*）
+ * 由DataType.unpack()计算一次后缓存在DataType中，FPU的特殊值处理、对阶、规格化和舍入共用，
+ * 不再反复调用toString再用substring截取各个字段
+ * 非规格化数（以及0）与FPU的数据通路一样按阶码为1处理，有效位的隐藏位为0
+ * 不可变，可以在线程之间共享
+ */
+public final class UnpackedFloat {
+
+    private final int sign;
+
+    private final int exponent;
+
+    private final int significand;
+
+    private final int category;
+
+    /**
+     * 8位带偏置阶码的二进制串，非规格化数为00000001
+     */
+    private final String exponentString;
+
+    /**
+     * 隐藏位+23位尾数+3位0保护位，共27位的二进制串
+     */
+    private final String significandString;
+
+    UnpackedFloat(int bits) {
+        int biased = (bits >>> 23) & 0xFF;
+        int fraction = bits & 0x7FFFFF;
+        this.sign = bits >>> 31;
+        this.category = IEEE754Float.classify(bits);
+        this.exponent = Math.max(biased, 1) - 127;
+        this.significand = biased == 0 ? fraction : fraction | (1 << 23);
+        char[] chars = new char[32];
+        Transformer.formatBinary(exponent + 127, 8, chars, 0);
+        this.exponentString = new String(chars, 0, 8);
+        Transformer.formatBinary(significand << 3, 32, chars, 0);
+        this.significandString = new String(chars, 5, 27);
+    }
+
+    /**
+     * @return 0或1
+     */
+    public int sign() {
+        return sign;
+    }
+
+    /**
+     * @return 无偏阶码，非规格化数和0为-126，Inf和NaN为128
+     */
+    public int exponent() {
+        return exponent;
+    }
+
+    /**
+     * @return 带偏置的阶码，非规格化数和0为1
+     */
+    public int biasedExponent() {
+        return exponent + 127;
+    }
+
+    /**
+     * @return 隐藏位+23位尾数，值为significand * 2^(exponent - 23)
+     */
+    public int significand() {
+        return significand;
+    }
+
+    /**
+     * @return IEEE754Float.CLASS_P_ZERO ... CLASS_NORMAL之一
+     */
+    public int category() {
+        return category;
+    }
+
+    public boolean isSubnormal() {
+        return category == IEEE754Float.CLASS_SUBNORMAL;
+    }
+
+    /**
+     * @return biasedExponent()的8位二进制串
+     */
+    public String exponentString() {
+        return exponentString;
+    }
+
+    /**
+     * @return 带隐藏位和3位0保护位的27位有效位二进制串
+     */
+    public String significandString() {
+        return significandString;
+    }
+
+}
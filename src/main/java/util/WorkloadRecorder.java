@@ -0,0 +1,251 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 录制FPU、ALU的运算（运算、src、dest、结果），供verify.WorkloadReplayer离线重放
+ * 默认关闭；start之后所有FPU和报告指标的ALU都会把每次运算（包括批量接口中的每个元素）写入当前的录制文件，
+ * 关闭时各运算只多读一次volatile变量
+ * <p>
+ * 文件格式，全部为小端32位字：
+ * <pre>
+ * 文件头（HEADER_BYTES字节）：MAGIC, VERSION, 记录个数, 记录部分的CRC32, 文件序号, 0, 0, 0
+ * 记录（RECORD_BYTES字节）：  运算编号 | 标志, src, dest, 结果
+ * </pre>
+ * 运算编号与ArithmeticMetrics相同，标志THROWN表示运算抛出了ArithmeticException（此时结果为0）
+ * 每个文件最多recordsPerFile条记录，写满后换下一个文件，只保留最新的maxFiles个文件
+ */
+public final class WorkloadRecorder implements Closeable {
+
+    /**
+     * "CPUW"
+     */
+    public static final int MAGIC = 0x57555043;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 32;
+
+    public static final int RECORD_BYTES = 16;
+
+    /**
+     * 记录第一个字中的标志位：运算抛出了ArithmeticException
+     */
+    public static final int THROWN = 1 << 8;
+
+    /**
+     * 记录第一个字中运算编号的掩码
+     */
+    public static final int OPERATION_MASK = 0xFF;
+
+    private static final int BUFFER_RECORDS = 4096;
+
+    private static volatile WorkloadRecorder current;
+
+    private final Path directory;
+
+    private final int recordsPerFile;
+
+    private final int maxFiles;
+
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+
+    private int sequence;
+
+    private int inFile;
+
+    private long recorded;
+
+    /**
+     * 写文件失败后停止录制，在close时抛出
+     */
+    private IOException failure;
+
+    private WorkloadRecorder(Path directory, int recordsPerFile, int maxFiles) {
+        this.directory = directory;
+        this.recordsPerFile = recordsPerFile;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * 开始录制，同一时间只能有一个录制器
+     *
+     * @param directory      录制文件所在的目录，文件名为workload-序号.bin
+     * @param recordsPerFile 每个文件的记录个数上限
+     * @param maxFiles       保留的文件个数，更早的文件被删除
+     */
+    public static WorkloadRecorder start(Path directory, int recordsPerFile, int maxFiles) throws IOException {
+        if (recordsPerFile <= 0 || recordsPerFile > (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES) {
+            throw new IllegalArgumentException("recordsPerFile: " + recordsPerFile);
+        }
+        if (maxFiles <= 0) {
+            throw new IllegalArgumentException("maxFiles: " + maxFiles);
+        }
+        synchronized (WorkloadRecorder.class) {
+            if (current != null) {
+                throw new IllegalStateException("Recorder already running");
+            }
+            Files.createDirectories(directory);
+            WorkloadRecorder recorder = new WorkloadRecorder(directory, recordsPerFile, maxFiles);
+            recorder.open();
+            current = recorder;
+            return recorder;
+        }
+    }
+
+    /**
+     * @return 是否正在录制
+     */
+    public static boolean active() {
+        return current != null;
+    }
+
+    /**
+     * 录制一次运算
+     *
+     * @param operation ArithmeticMetrics中的运算编号
+     */
+    public static void record(int operation, int src, int dest, int result) {
+        WorkloadRecorder recorder = current;
+        if (recorder != null) {
+            recorder.append(operation, src, dest, result);
+        }
+    }
+
+    /**
+     * 录制一次抛出ArithmeticException的运算
+     */
+    public static void recordThrown(int operation, int src, int dest) {
+        WorkloadRecorder recorder = current;
+        if (recorder != null) {
+            recorder.append(operation | THROWN, src, dest, 0);
+        }
+    }
+
+    /**
+     * @return 已经录制的记录个数
+     */
+    public synchronized long recorded() {
+        return recorded;
+    }
+
+    /**
+     * @return 目前保留的录制文件，按录制顺序排列
+     */
+    public synchronized List<Path> files() {
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * 停止录制，写完当前文件的文件头
+     *
+     * @throws IOException 录制期间写文件失败
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (WorkloadRecorder.class) {
+            if (current == this) {
+                current = null;
+            }
+        }
+        synchronized (this) {
+            if (channel != null) {
+                try {
+                    finish();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private synchronized void append(int word, int src, int dest, int result) {
+        if (channel == null) { // 已经关闭或写文件失败
+            return;
+        }
+        buffer.putInt(word).putInt(src).putInt(dest).putInt(result);
+        recorded++;
+        try {
+            if (++inFile == recordsPerFile) {
+                finish();
+                open();
+            } else if (!buffer.hasRemaining()) {
+                flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void open() throws IOException {
+        Path file = directory.resolve(String.format("workload-%06d.bin", sequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(HEADER_BYTES);
+        files.add(file);
+        while (files.size() > maxFiles) {
+            Files.deleteIfExists(files.poll());
+        }
+        crc.reset();
+        inFile = 0;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 写出缓冲区中剩余的记录和文件头，关闭当前文件
+     */
+    private void finish() throws IOException {
+        flush();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(inFile).putInt((int) crc.getValue()).putInt(sequence);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.close();
+        channel = null;
+        sequence++;
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+}
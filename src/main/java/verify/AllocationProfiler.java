@@ -0,0 +1,343 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import util.DataType;
+import util.FloatParser;
+import util.Transformer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 分配量回归检查：用ThreadMXBean统计ALU、FPU、Transformer、DataType各方法每次调用分配的字节数，
+ * 与预算文件（properties格式，方法名=每次调用允许分配的字节数）比较
+ * 操作数是固定种子生成的混合：规格化数、非规格化数、特殊值、阶码相差较大的数
+ * 同一个JVM中先测的方法会影响JIT对后测方法的内联和逃逸分析，测量值随顺序变化，
+ * 因此check在单独的子JVM中逐个测量，子JVM同步编译（-Xbatch），预热后才开始计数
+ */
+public final class AllocationProfiler {
+
+    /**
+     * 一个方法的测量结果
+     */
+    public static final class Result {
+
+        private final String name;
+
+        private final double bytesPerOp;
+
+        private final long budget;
+
+        Result(String name, double bytesPerOp, long budget) {
+            this.name = name;
+            this.bytesPerOp = bytesPerOp;
+            this.budget = budget;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public double bytesPerOp() {
+            return bytesPerOp;
+        }
+
+        /**
+         * @return 预算字节数，预算文件中没有该方法时为-1
+         */
+        public long budget() {
+            return budget;
+        }
+
+        public boolean withinBudget() {
+            return budget >= 0 && bytesPerOp <= budget;
+        }
+
+    }
+
+    /**
+     * 被测的一次调用，返回值用于防止JIT消除调用
+     */
+    private interface Operation {
+        int run(int i);
+    }
+
+    private static final int SIZE = 1024;
+
+    /**
+     * 命令行默认的预热和测量次数，预算文件也按这个次数生成
+     */
+    public static final int DEFAULT_ITERATIONS = 5000;
+
+    /**
+     * 生成预算文件时在测量值上留出的余量：乘以HEADROOM再加上SLACK字节
+     */
+    private static final double HEADROOM = 1.1;
+
+    private static final int SLACK = 16;
+
+    /**
+     * 预算文件的注释，--write生成的文件与提交的文件相同
+     */
+    private static final String[] HEADER = {
+            "# 每次调用允许分配的字节数，由 AllocationProfiler --write 生成（测量值 x " + HEADROOM + " + " + SLACK + "）",
+            "# 优化减少了分配后可以重新生成以收紧预算；增加分配的改动需要说明理由后再更新"
+    };
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    private int sink;
+
+    public AllocationProfiler() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("Thread allocation accounting is not supported by this JVM");
+        }
+        threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(2023);
+        int[] intSrc = new int[SIZE];
+        int[] intDest = new int[SIZE];
+        int[] floatSrc = new int[SIZE];
+        int[] floatDest = new int[SIZE];
+        String[] intStr = new String[SIZE];
+        String[] floatStr = new String[SIZE];
+        String[] binStr = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            intSrc[i] = random.nextInt() >> random.nextInt(32);
+            intDest[i] = random.nextInt() >> random.nextInt(32);
+            if (intSrc[i] == 0) { // 除数不为0
+                intSrc[i] = 1;
+            }
+            floatDest[i] = floatOperand(random, 127);
+            floatSrc[i] = floatOperand(random, (floatDest[i] >>> 23) & 0xFF);
+            if ((floatSrc[i] & 0x7FFFFFFF) == 0) {
+                floatSrc[i] = 0x3F800000;
+            }
+            intStr[i] = String.valueOf(intDest[i]);
+            floatStr[i] = String.valueOf(Float.intBitsToFloat(floatDest[i]));
+            binStr[i] = DataType.ofBits(floatDest[i]).toString();
+        }
+
+        for (ALU.Engine engine : ALU.Engine.values()) {
+            ALU alu = new ALU(engine);
+            String suffix = "[" + engine + "]";
+            operations.put("ALU.add" + suffix, i -> alu.add(DataType.ofBits(intSrc[i]), DataType.ofBits(intDest[i])).bits());
+            operations.put("ALU.sub" + suffix, i -> alu.sub(DataType.ofBits(intSrc[i]), DataType.ofBits(intDest[i])).bits());
+            operations.put("ALU.mul" + suffix, i -> alu.mul(DataType.ofBits(intSrc[i]), DataType.ofBits(intDest[i])).bits());
+            operations.put("ALU.div" + suffix, i -> alu.div(DataType.ofBits(intSrc[i]), DataType.ofBits(intDest[i])).bits());
+        }
+        for (FPU.Engine engine : FPU.Engine.values()) {
+            FPU fpu = new FPU(engine);
+            String suffix = "[" + engine + "]";
+            operations.put("FPU.add" + suffix, i -> fpu.add(DataType.ofBits(floatSrc[i]), DataType.ofBits(floatDest[i])).bits());
+            operations.put("FPU.sub" + suffix, i -> fpu.sub(DataType.ofBits(floatSrc[i]), DataType.ofBits(floatDest[i])).bits());
+            operations.put("FPU.mul" + suffix, i -> fpu.mul(DataType.ofBits(floatSrc[i]), DataType.ofBits(floatDest[i])).bits());
+            operations.put("FPU.div" + suffix, i -> fpu.div(DataType.ofBits(floatSrc[i]), DataType.ofBits(floatDest[i])).bits());
+        }
+        char[] chars = new char[32];
+        operations.put("Transformer.intToBinary", i -> Transformer.intToBinary(intStr[i]).length());
+        operations.put("Transformer.floatToBinary", i -> Transformer.floatToBinary(floatStr[i]).length());
+        operations.put("Transformer.binaryToFloat", i -> Transformer.binaryToFloat(binStr[i]).length());
+        operations.put("Transformer.formatBinary", i -> Transformer.formatBinary(intDest[i], 32, chars, 0) + chars[31]);
+        operations.put("FloatParser.parseBits", i -> FloatParser.parseBits(floatStr[i]));
+        operations.put("DataType.new", i -> new DataType(binStr[i]).bits());
+        operations.put("DataType.ofBits", i -> DataType.ofBits(intDest[i]).bits());
+        operations.put("DataType.toString", i -> DataType.ofBits(intDest[i]).toString().length());
+    }
+
+    private static int floatOperand(Random random, int nearExp) {
+        switch (random.nextInt(10)) {
+            case 0: // 非规格化数
+                return random.nextInt() & 0x807FFFFF;
+            case 1: // 特殊值
+                int[] specials = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000};
+                return specials[random.nextInt(specials.length)];
+            case 2: // 阶码相差较大
+                return (random.nextInt() & 0x807FFFFF) | ((nearExp + 30 + random.nextInt(60)) % 254 + 1) << 23;
+            default:
+                return (random.nextInt() & 0x807FFFFF) | (Math.max(1, Math.min(254, nearExp + random.nextInt(17) - 8)) << 23);
+        }
+    }
+
+    /**
+     * @return 所有被测方法的名字
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(operations.keySet());
+    }
+
+    /**
+     * 先预热warmup次，再测量iterations次，操作数依次循环使用
+     *
+     * @return 每次调用平均分配的字节数
+     */
+    public double measure(String name, int warmup, int iterations) {
+        Operation operation = operations.get(name);
+        if (operation == null) {
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+        run(operation, warmup);
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        run(operation, iterations);
+        long after = threads.getThreadAllocatedBytes(thread);
+        return (double) (after - before) / iterations;
+    }
+
+    private void run(Operation operation, int iterations) {
+        int acc = 0;
+        for (int i = 0; i < iterations; i++) {
+            acc += operation.run(i & (SIZE - 1));
+        }
+        sink += acc;
+    }
+
+    /**
+     * 在新的JVM中测量一个方法，不受当前JVM中已经运行过的其他方法影响
+     *
+     * @return 每次调用平均分配的字节数
+     */
+    public double measureForked(String name, int warmup, int iterations) throws IOException {
+        if (!operations.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(java, "-Xbatch",
+                "-cp", System.getProperty("java.class.path"), AllocationProfiler.class.getName(),
+                "--measure", name, String.valueOf(warmup), String.valueOf(iterations)));
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                output.append(line).append('\n');
+            }
+        }
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Measuring " + name + " failed:\n" + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while measuring " + name, e);
+        }
+        return Double.parseDouble(output.toString().trim());
+    }
+
+    /**
+     * 逐个在新的JVM中测量所有方法并与预算比较
+     */
+    public List<Result> check(Properties budget, int warmup, int iterations) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (String name : operations.keySet()) {
+            String value = budget.getProperty(name);
+            long limit = value == null ? -1 : Long.parseLong(value.trim());
+            results.add(new Result(name, measureForked(name, warmup, iterations), limit));
+        }
+        return results;
+    }
+
+    /**
+     * @return 每个方法一行：名字、每次调用分配的字节数、预算、是否通过
+     */
+    public static String report(List<Result> results) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-32s %12s %12s  %s%n", "method", "bytes/op", "budget", "status"));
+        for (Result result : results) {
+            String status = result.budget() < 0 ? "NO BUDGET" : result.withinBudget() ? "OK" : "OVER BUDGET";
+            builder.append(String.format("%-32s %12.1f %12s  %s%n", result.name(), result.bytesPerOp(),
+                    result.budget() < 0 ? "-" : String.valueOf(result.budget()), status));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return 以测量值乘以余量作为预算的properties
+     */
+    public static Properties budgetOf(List<Result> results) {
+        Properties budget = new Properties();
+        for (Result result : results) {
+            budget.setProperty(result.name(), String.valueOf((long) Math.ceil(result.bytesPerOp() * HEADROOM) + SLACK));
+        }
+        return budget;
+    }
+
+    /**
+     * 命令行入口，有方法超出预算或没有预算时退出码为1
+     * <pre>
+     * AllocationProfiler &lt;budget-file&gt; [iterations]          检查
+     * AllocationProfiler &lt;budget-file&gt; --write [iterations]  按当前测量值重写预算文件
+     * AllocationProfiler --measure &lt;name&gt; &lt;warmup&gt; &lt;iterations&gt;  只测量一个方法，供measureForked在子JVM中调用
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && args[0].equals("--measure")) {
+            System.out.println(new AllocationProfiler().measure(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3])));
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("usage: AllocationProfiler <budget-file> [--write] [iterations]");
+            System.exit(2);
+        }
+        boolean write = args.length > 1 && args[1].equals("--write");
+        int iterations = args.length > (write ? 2 : 1) ? Integer.parseInt(args[args.length - 1]) : DEFAULT_ITERATIONS;
+        AllocationProfiler profiler = new AllocationProfiler();
+        Properties budget = new Properties();
+        if (!write) {
+            try (InputStream in = new FileInputStream(args[0])) {
+                budget.load(in);
+            }
+        }
+        List<Result> results = profiler.check(budget, iterations, iterations);
+        if (write) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(args[0]), StandardCharsets.UTF_8))) { // 只有注释不是ASCII，load读取时不受影响
+                for (String line : HEADER) {
+                    out.println(line);
+                }
+                for (Map.Entry<Object, Object> entry : new TreeMap<>(budgetOf(results)).entrySet()) { // 按名字排序，便于比较差异
+                    out.println(entry.getKey() + "=" + entry.getValue());
+                }
+            }
+            Properties written = budgetOf(results);
+            List<Result> rewritten = new ArrayList<>();
+            for (Result result : results) {
+                rewritten.add(new Result(result.name(), result.bytesPerOp(), Long.parseLong(written.getProperty(result.name()))));
+            }
+            System.out.print(report(rewritten));
+            return;
+        }
+        System.out.print(report(results));
+        for (Result result : results) {
+            if (!result.withinBudget()) {
+                System.exit(1);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,360 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import util.Transformer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 流式批量运算：输入文件每行一对操作数"src dest"（以空格、制表符或逗号分隔），
+ * 每个操作数是32位二进制串或8位十六进制数（可带0x前缀），两种写法可以混用；
+ * 输出文件每行一个结果，与输入行一一对应（空行除外），抛出ArithmeticException的行输出全部为x的结果
+ * <p>
+ * 输入按行边界切成段，每段单独内存映射，直接从映射的字节解析操作数，在线程池中调用FPU/ALU的批量接口；
+ * 结果写入复用的缓冲区后按段的顺序写出。同时处理的段数有上限，内存占用与文件大小无关
+ */
+public final class BatchRunner {
+
+    /**
+     * 每段的名义字节数，实际的段边界后移到下一行的行首
+     */
+    static final int SEGMENT = 1 << 20;
+
+    /**
+     * 一行的最大字节数，超过时认为输入格式错误
+     */
+    static final int MAX_LINE = 256;
+
+    /**
+     * 最短的一行："xxxxxxxx xxxxxxxx\n"
+     */
+    private static final int MIN_LINE = 18;
+
+    private static final byte[] DIGITS = new byte[256];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            DIGITS[c] = (byte) (c - '0');
+        }
+        for (int c = 'a'; c <= 'f'; c++) {
+            DIGITS[c] = (byte) (c - 'a' + 10);
+            DIGITS[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    private final Operation operation;
+
+    private final FPU fpu;
+
+    private final ALU alu;
+
+    private final int parallelism;
+
+    private final boolean hexOutput;
+
+    /**
+     * 使用NATIVE引擎，线程数为处理器个数，输出二进制串
+     */
+    public BatchRunner(Operation operation) {
+        this(operation, FPU.Engine.NATIVE, ALU.Engine.NATIVE, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * @param parallelism 同时计算的段数，同时存在的缓冲区为它的两倍
+     * @param hexOutput   结果输出为8位十六进制数，否则为32位二进制串
+     */
+    public BatchRunner(Operation operation, FPU.Engine fpuEngine, ALU.Engine aluEngine, int parallelism, boolean hexOutput) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism: " + parallelism);
+        }
+        this.operation = operation;
+        this.fpu = new FPU(fpuEngine);
+        this.alu = new ALU(aluEngine);
+        this.parallelism = parallelism;
+        this.hexOutput = hexOutput;
+    }
+
+    /**
+     * @return 处理的操作数对个数
+     */
+    public long run(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            return run(in, out);
+        }
+    }
+
+    /**
+     * 从in的开头读到结尾，结果按顺序写入out
+     *
+     * @return 处理的操作数对个数
+     */
+    public long run(FileChannel in, WritableByteChannel out) throws IOException {
+        long size = in.size();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "batch-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Segment> idle = new ArrayDeque<>();
+        for (int i = 0; i < 2 * parallelism; i++) {
+            idle.add(new Segment());
+        }
+        ArrayDeque<Future<Segment>> pending = new ArrayDeque<>();
+        long pairs = 0;
+        try {
+            long begin = 0;
+            while (begin < size || !pending.isEmpty()) {
+                if (begin < size && !idle.isEmpty()) { // 还有空闲缓冲区时继续提交，否则先写出最早的段
+                    long end = lineStart(in, Math.min(size, begin + SEGMENT), size);
+                    Segment segment = idle.poll();
+                    segment.position = begin;
+                    segment.buffer = in.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+                    pending.add(pool.submit(segment::process));
+                    begin = end;
+                    continue;
+                }
+                Segment done = await(pending.poll());
+                ByteBuffer bytes = ByteBuffer.wrap(done.output, 0, done.length);
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                pairs += done.pairs;
+                done.buffer = null;
+                idle.add(done);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return pairs;
+    }
+
+    private static Segment await(Future<Segment> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return 不小于pos的第一个行首位置，pos为0或size时就是pos本身
+     */
+    private static long lineStart(FileChannel in, long pos, long size) throws IOException {
+        if (pos == 0 || pos == size) {
+            return pos;
+        }
+        ByteBuffer probe = ByteBuffer.allocate(MAX_LINE + 1);
+        while (probe.hasRemaining() && in.read(probe, pos - 1 + probe.position()) > 0) {
+        }
+        for (int i = 0; i < probe.position(); i++) {
+            if (probe.get(i) == '\n') {
+                return pos + i;
+            }
+        }
+        if (pos - 1 + probe.position() >= size) { // 最后一行没有换行符
+            return size;
+        }
+        throw new IllegalArgumentException("Line longer than " + MAX_LINE + " bytes near offset " + pos);
+    }
+
+    /**
+     * 一段输入及其复用的缓冲区，同一时间只被一个线程使用
+     */
+    private final class Segment {
+
+        private final int[] src = new int[(SEGMENT + MAX_LINE) / MIN_LINE + 1];
+
+        private final int[] dest = new int[src.length];
+
+        private final int[] result = new int[src.length];
+
+        private final byte[] output = new byte[src.length * 33];
+
+        /**
+         * 本段在文件中的起始位置，用于错误信息
+         */
+        private long position;
+
+        private MappedByteBuffer buffer;
+
+        private int pairs;
+
+        private int length;
+
+        Segment process() {
+            pairs = parse();
+            boolean batched = true;
+            try {
+                operation.batch(fpu, alu, src, dest, result, pairs);
+            } catch (ArithmeticException e) { // 段中有除数为0的通道，整段逐个重算
+                batched = false;
+            }
+            int width = hexOutput ? 8 : 32;
+            int offset = 0;
+            for (int i = 0; i < pairs; i++) {
+                long value = batched ? Operation.unsigned(result[i]) : operation.actual(fpu, alu, src[i], dest[i]);
+                if (value == Operation.THROWS) {
+                    Arrays.fill(output, offset, offset + width, (byte) 'x');
+                    offset += width;
+                } else if (hexOutput) {
+                    offset = Transformer.formatHex((int) value, 32, output, offset);
+                } else {
+                    offset = Transformer.formatBinary((int) value, 32, output, offset);
+                }
+                output[offset++] = '\n';
+            }
+            length = offset;
+            return this;
+        }
+
+        /**
+         * @return 解析出的操作数对个数
+         */
+        private int parse() {
+            MappedByteBuffer in = buffer;
+            int limit = in.limit();
+            int n = 0;
+            int pos = 0;
+            while (pos < limit) {
+                pos = skipBlanks(in, pos, limit);
+                if (pos < limit && (in.get(pos) == '\n' || in.get(pos) == '\r')) { // 空行
+                    pos++;
+                    continue;
+                }
+                if (pos >= limit) {
+                    break;
+                }
+                int end = tokenEnd(in, pos, limit);
+                src[n] = operand(in, pos, end);
+                pos = skipBlanks(in, end, limit);
+                end = tokenEnd(in, pos, limit);
+                dest[n] = operand(in, pos, end);
+                pos = skipBlanks(in, end, limit);
+                if (pos < limit && in.get(pos) == '\r') {
+                    pos++;
+                }
+                if (pos < limit && in.get(pos) != '\n') {
+                    throw malformed(pos);
+                }
+                pos++;
+                n++;
+            }
+            return n;
+        }
+
+        private int operand(MappedByteBuffer in, int from, int to) {
+            if (to - from == 10 && in.get(from) == '0' && (in.get(from + 1) | 0x20) == 'x') {
+                from += 2;
+            }
+            int value = 0;
+            if (to - from == 32) {
+                for (int i = from; i < to; i++) {
+                    int bit = in.get(i) - '0';
+                    if ((bit & ~1) != 0) {
+                        throw malformed(i);
+                    }
+                    value = value << 1 | bit;
+                }
+            } else if (to - from == 8) {
+                for (int i = from; i < to; i++) {
+                    int digit = DIGITS[in.get(i) & 0xFF];
+                    if (digit < 0) {
+                        throw malformed(i);
+                    }
+                    value = value << 4 | digit;
+                }
+            } else {
+                throw malformed(from);
+            }
+            return value;
+        }
+
+        private IllegalArgumentException malformed(int pos) {
+            return new IllegalArgumentException("Malformed operand at offset " + (position + pos));
+        }
+
+    }
+
+    private static int skipBlanks(ByteBuffer in, int pos, int limit) {
+        while (pos < limit) {
+            byte c = in.get(pos);
+            if (c != ' ' && c != '\t' && c != ',') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(ByteBuffer in, int pos, int limit) {
+        while (pos < limit) {
+            byte c = in.get(pos);
+            if (c == ' ' || c == '\t' || c == ',' || c == '\r' || c == '\n') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * 命令行入口，结束后输出操作数对个数和吞吐量
+     * <pre>
+     * BatchRunner FPU_ADD &lt;input&gt; &lt;output&gt; [hex] [serial] [threads=N]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: BatchRunner <operation> <input> <output> [hex] [serial] [threads=N]");
+            System.exit(2);
+        }
+        Operation operation = Operation.valueOf(args[0]);
+        boolean hex = false;
+        boolean serial = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("hex")) {
+                hex = true;
+            } else if (args[i].equals("serial")) {
+                serial = true;
+            } else if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring("threads=".length()));
+            } else {
+                System.err.println("unknown option: " + args[i]);
+                System.exit(2);
+            }
+        }
+        BatchRunner runner = new BatchRunner(operation, serial ? FPU.Engine.BIT_SERIAL : FPU.Engine.NATIVE,
+                serial ? ALU.Engine.BIT_SERIAL : ALU.Engine.NATIVE, threads, hex);
+        long start = System.nanoTime();
+        long pairs = runner.run(Paths.get(args[1]), Paths.get(args[2]));
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s pairs=%d elapsed=%.3fs %.3e pairs/s%n", operation, pairs, elapsed / 1e9,
+                elapsed <= 0 ? 0 : pairs * 1e9 / elapsed);
+    }
+
+}
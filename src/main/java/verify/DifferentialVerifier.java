@@ -0,0 +1,326 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行差分验证：用fork/join把操作数空间切成块，逐块调用被测实现的批量接口，与原生运算逐位比较
+ * 支持两种操作数空间：
+ * 1. exhaustive：一个操作数固定，另一个取遍全部2^32个位模式（或其中一段）
+ * 2. random：带种子的随机操作数对，偏向0、Inf、NaN、非规格化数等边界值
+ * 块的内容只由块号决定，与切分方式和线程数无关，因此同样的参数总能得到同样的结果
+ * 同一个实例同一时间只能运行一次验证，运行期间可以从其他线程读取进度
+ */
+public final class DifferentialVerifier {
+
+    /**
+     * 每块的操作数对个数
+     */
+    static final int CHUNK = 4096;
+
+    /**
+     * 每个叶子任务处理的块数，叶子任务内复用FPU、ALU和缓冲区
+     */
+    private static final int LEAF_CHUNKS = 8;
+
+    private static final int DEFAULT_SAMPLE_LIMIT = 32;
+
+    private static final int[] FLOAT_EDGES = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000,
+            0x7F800001, 0xFFFFFFFF, 0x00000001, 0x807FFFFF, 0x00800000, 0x7F7FFFFF, 0xFF7FFFFF, 0x3F800000,
+            0xBF800000, 0x3F7FFFFF};
+
+    private static final int[] INT_EDGES = {0, 1, -1, 2, -2, Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Integer.MIN_VALUE + 1, 0x0000FFFF, 0x00010000, 0x55555555, 0xAAAAAAAA};
+
+    /**
+     * 按块号生成操作数对
+     */
+    private interface PairSource {
+        void fill(long chunk, int[] src, int[] dest, int n);
+    }
+
+    private final Operation operation;
+
+    private final FPU.Engine fpuEngine;
+
+    private final ALU.Engine aluEngine;
+
+    private final ForkJoinPool pool;
+
+    private final int sampleLimit;
+
+    private final LongAdder checked = new LongAdder();
+
+    private final LongAdder mismatches = new LongAdder();
+
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    private volatile VerificationReport.Mismatch[] samples = new VerificationReport.Mismatch[0];
+
+    private volatile long total;
+
+    private volatile long startNanos;
+
+    /**
+     * 使用NATIVE引擎和公共ForkJoinPool
+     */
+    public DifferentialVerifier(Operation operation) {
+        this(operation, FPU.Engine.NATIVE, ALU.Engine.NATIVE, ForkJoinPool.commonPool(), DEFAULT_SAMPLE_LIMIT);
+    }
+
+    /**
+     * @param fpuEngine   FPU_*运算使用的引擎
+     * @param aluEngine   ALU_*运算使用的引擎
+     * @param sampleLimit 报告中最多保留的不一致样例个数
+     */
+    public DifferentialVerifier(Operation operation, FPU.Engine fpuEngine, ALU.Engine aluEngine,
+                                ForkJoinPool pool, int sampleLimit) {
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("sampleLimit: " + sampleLimit);
+        }
+        this.operation = operation;
+        this.fpuEngine = fpuEngine;
+        this.aluEngine = aluEngine;
+        this.pool = pool;
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * 固定一个操作数，另一个取遍全部2^32个位模式
+     *
+     * @param partner        固定的操作数
+     * @param partnerIsSrc   true时固定src、遍历dest，否则固定dest、遍历src
+     */
+    public VerificationReport exhaustive(int partner, boolean partnerIsSrc) {
+        return exhaustive(partner, partnerIsSrc, 0, 1L << 32);
+    }
+
+    /**
+     * 固定一个操作数，另一个取遍[from, to)中的位模式（按无符号数解释），用于分片在多台机器上运行
+     */
+    public VerificationReport exhaustive(int partner, boolean partnerIsSrc, long from, long to) {
+        if (from < 0 || to > 1L << 32 || from > to) {
+            throw new IllegalArgumentException("range: [" + from + ", " + to + ")");
+        }
+        return run(to - from, (chunk, src, dest, n) -> {
+            long base = from + chunk * CHUNK;
+            int[] swept = partnerIsSrc ? dest : src;
+            for (int i = 0; i < n; i++) {
+                swept[i] = (int) (base + i);
+            }
+            Arrays.fill(partnerIsSrc ? src : dest, 0, n, partner);
+        });
+    }
+
+    /**
+     * 带种子的随机操作数对，约一半的操作数取自边界值或极端阶码
+     *
+     * @param count 操作数对个数
+     */
+    public VerificationReport random(long seed, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count);
+        }
+        boolean floating = operation.floating;
+        return run(count, (chunk, src, dest, n) -> {
+            SplittableRandom random = new SplittableRandom(seed ^ (chunk * 0x9E3779B97F4A7C15L));
+            for (int i = 0; i < n; i++) {
+                dest[i] = operand(random, floating);
+                src[i] = floating && random.nextBoolean() ? nearExponent(random, dest[i]) : operand(random, floating);
+            }
+        });
+    }
+
+    /**
+     * @return 当前（或上一次）验证已经比较的操作数对个数
+     */
+    public long checked() {
+        return checked.sum();
+    }
+
+    public long mismatches() {
+        return mismatches.sum();
+    }
+
+    /**
+     * @return 当前验证的完成比例，0到1之间
+     */
+    public double progress() {
+        long all = total;
+        return all == 0 ? 1 : (double) checked.sum() / all;
+    }
+
+    /**
+     * @return 当前验证开始以来每秒比较的操作数对个数
+     */
+    public double pairsPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : checked.sum() * 1e9 / elapsed;
+    }
+
+    private VerificationReport run(long count, PairSource source) {
+        checked.reset();
+        mismatches.reset();
+        sampleCount.set(0);
+        samples = new VerificationReport.Mismatch[sampleLimit];
+        total = count;
+        startNanos = System.nanoTime();
+        pool.invoke(new Sweep(source, count, 0, (count + CHUNK - 1) / CHUNK));
+        long elapsed = System.nanoTime() - startNanos;
+
+        VerificationReport.Mismatch[] collected = samples;
+        List<VerificationReport.Mismatch> list = new ArrayList<>();
+        for (int i = 0; i < Math.min(sampleCount.get(), collected.length); i++) {
+            list.add(collected[i]);
+        }
+        return new VerificationReport(operation, checked.sum(), mismatches.sum(), elapsed, list);
+    }
+
+    /**
+     * 处理块号在[lo, hi)之间的块
+     */
+    private final class Sweep extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PairSource source;
+
+        private final long count;
+
+        private final long lo;
+
+        private final long hi;
+
+        Sweep(PairSource source, long count, long lo, long hi) {
+            this.source = source;
+            this.count = count;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > LEAF_CHUNKS) {
+                long mid = (lo + hi) >>> 1;
+                ForkJoinTask.invokeAll(new Sweep(source, count, lo, mid), new Sweep(source, count, mid, hi));
+                return;
+            }
+            FPU fpu = new FPU(fpuEngine);
+            ALU alu = new ALU(aluEngine);
+            int[] src = new int[CHUNK];
+            int[] dest = new int[CHUNK];
+            int[] out = new int[CHUNK];
+            for (long chunk = lo; chunk < hi; chunk++) {
+                int n = (int) Math.min(CHUNK, count - chunk * CHUNK);
+                source.fill(chunk, src, dest, n);
+                compare(fpu, alu, src, dest, out, n);
+                checked.add(n);
+            }
+        }
+
+    }
+
+    private void compare(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+        boolean batched = true;
+        try {
+            operation.batch(fpu, alu, src, dest, out, n);
+        } catch (ArithmeticException e) { // 块中有除数为0的通道，整块逐个重算
+            batched = false;
+        }
+        for (int i = 0; i < n; i++) {
+            long expected = operation.reference(src[i], dest[i]);
+            long actual = batched ? Operation.unsigned(out[i]) : operation.actual(fpu, alu, src[i], dest[i]);
+            if (!operation.same(expected, actual)) {
+                mismatches.increment();
+                int slot = sampleCount.getAndIncrement();
+                if (slot < sampleLimit) {
+                    samples[slot] = new VerificationReport.Mismatch(src[i], dest[i], expected, actual);
+                } else {
+                    sampleCount.set(sampleLimit); // 避免计数溢出
+                }
+            }
+        }
+    }
+
+    private static int operand(SplittableRandom random, boolean floating) {
+        switch (random.nextInt(8)) {
+            case 0:
+                int[] edges = floating ? FLOAT_EDGES : INT_EDGES;
+                return edges[random.nextInt(edges.length)];
+            case 1:
+                return floating ? random.nextInt() & 0x807FFFFF : random.nextInt(-256, 256); // 非规格化数或小整数
+            case 2:
+                if (floating) { // 极大或极小的阶码
+                    int exp = random.nextBoolean() ? random.nextInt(4) : 251 + random.nextInt(4);
+                    return (random.nextInt() & 0x807FFFFF) | (exp << 23);
+                }
+                return (random.nextBoolean() ? 1 : -1) << random.nextInt(32);
+            default:
+                return random.nextInt();
+        }
+    }
+
+    /**
+     * @return 阶码与other相差不超过28的随机有限数，对阶时会移出GRS位
+     */
+    private static int nearExponent(SplittableRandom random, int other) {
+        int exp = ((other >>> 23) & 0xFF) + random.nextInt(-28, 29);
+        exp = Math.max(0, Math.min(254, exp));
+        return (random.nextInt() & 0x807FFFFF) | (exp << 23);
+    }
+
+    /**
+     * 命令行入口，验证期间每5秒向标准错误输出进度，存在不一致时退出码为1
+     * <pre>
+     * DifferentialVerifier FPU_ADD exhaustive 3F800000 [src|dest] [serial]
+     * DifferentialVerifier ALU_MUL random &lt;seed&gt; &lt;count&gt; [serial]
+     * </pre>
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            System.err.println("usage: DifferentialVerifier <operation> exhaustive <partner-hex> [src|dest] [serial]");
+            System.err.println("       DifferentialVerifier <operation> random <seed> <count> [serial]");
+            System.exit(2);
+        }
+        Operation operation = Operation.valueOf(args[0]);
+        boolean serial = args[args.length - 1].equals("serial");
+        DifferentialVerifier verifier = new DifferentialVerifier(operation,
+                serial ? FPU.Engine.BIT_SERIAL : FPU.Engine.NATIVE, serial ? ALU.Engine.BIT_SERIAL : ALU.Engine.NATIVE,
+                ForkJoinPool.commonPool(), DEFAULT_SAMPLE_LIMIT);
+
+        VerificationReport[] report = new VerificationReport[1];
+        Thread worker = new Thread(() -> {
+            if (args[1].equals("exhaustive")) {
+                boolean partnerIsSrc = args.length < 4 || !args[3].equals("dest");
+                report[0] = verifier.exhaustive(Integer.parseUnsignedInt(args[2], 16), partnerIsSrc);
+            } else {
+                report[0] = verifier.random(Long.parseLong(args[2]), Long.parseLong(args[3]));
+            }
+        });
+        worker.start();
+        while (true) {
+            worker.join(5000);
+            if (!worker.isAlive()) {
+                break;
+            }
+            System.err.printf("%.2f%% checked=%d mismatches=%d %.3e pairs/s%n",
+                    verifier.progress() * 100, verifier.checked(), verifier.mismatches(), verifier.pairsPerSecond());
+        }
+        if (report[0] == null) { // 验证线程异常退出
+            System.exit(2);
+        }
+        System.out.println(report[0]);
+        System.exit(report[0].passed() ? 0 : 1);
+    }
+
+}
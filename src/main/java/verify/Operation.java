@@ -0,0 +1,212 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import util.DataType;
+
+/**
+ * 差分验证的运算：被测实现（FPU/ALU的批量接口）与参考实现（Java原生float/int运算）
+ * 运算结果用long表示，低32位为位模式，抛出ArithmeticException时为THROWS
+ */
+public enum Operation {
+
+    FPU_ADD(true) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            fpu.add(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return fpu.add(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(Float.floatToRawIntBits(Float.intBitsToFloat(dest) + Float.intBitsToFloat(src)));
+        }
+    },
+
+    FPU_SUB(true) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            fpu.sub(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return fpu.sub(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(Float.floatToRawIntBits(Float.intBitsToFloat(dest) - Float.intBitsToFloat(src)));
+        }
+    },
+
+    FPU_MUL(true) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            fpu.mul(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return fpu.mul(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(Float.floatToRawIntBits(Float.intBitsToFloat(dest) * Float.intBitsToFloat(src)));
+        }
+    },
+
+    /**
+     * 除数为0且被除数不为0（也不是NaN）时，FPU约定抛出ArithmeticException而不是返回Inf
+     */
+    FPU_DIV(true) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            fpu.div(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return fpu.div(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            float divisor = Float.intBitsToFloat(src);
+            float dividend = Float.intBitsToFloat(dest);
+            if (divisor == 0 && dividend != 0 && !Float.isNaN(dividend)) {
+                return THROWS;
+            }
+            return unsigned(Float.floatToRawIntBits(dividend / divisor));
+        }
+    },
+
+    ALU_ADD(false) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            alu.add(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return alu.add(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(dest + src);
+        }
+    },
+
+    ALU_SUB(false) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            alu.sub(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return alu.sub(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(dest - src);
+        }
+    },
+
+    ALU_MUL(false) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            alu.mul(src, dest, out, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return alu.mul(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return unsigned(dest * src);
+        }
+    },
+
+    ALU_DIV(false) {
+        @Override
+        void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n) {
+            alu.div(src, dest, out, null, 0, n);
+        }
+
+        @Override
+        int scalar(FPU fpu, ALU alu, int src, int dest) {
+            return alu.div(DataType.ofBits(src), DataType.ofBits(dest)).bits();
+        }
+
+        @Override
+        long reference(int src, int dest) {
+            return src == 0 ? THROWS : unsigned(dest / src);
+        }
+    };
+
+    /**
+     * 运算抛出ArithmeticException
+     */
+    static final long THROWS = -1L;
+
+    /**
+     * 是否按IEEE-754解释操作数
+     */
+    final boolean floating;
+
+    Operation(boolean floating) {
+        this.floating = floating;
+    }
+
+    /**
+     * 被测实现的批量运算，out[i] = dest[i] op src[i]，i取遍[0, n)
+     */
+    abstract void batch(FPU fpu, ALU alu, int[] src, int[] dest, int[] out, int n);
+
+    /**
+     * 被测实现的单次运算，批量运算抛出异常后逐个重算时使用
+     */
+    abstract int scalar(FPU fpu, ALU alu, int src, int dest);
+
+    /**
+     * @return 原生运算的结果，或THROWS
+     */
+    abstract long reference(int src, int dest);
+
+    /**
+     * @return 被测实现的结果，或THROWS
+     */
+    long actual(FPU fpu, ALU alu, int src, int dest) {
+        try {
+            return unsigned(scalar(fpu, alu, src, dest));
+        } catch (ArithmeticException e) {
+            return THROWS;
+        }
+    }
+
+    /**
+     * 浮点运算中所有NaN都视为相同
+     */
+    boolean same(long expected, long actual) {
+        if (expected == actual) {
+            return true;
+        }
+        return floating && expected != THROWS && actual != THROWS
+                && Float.isNaN(Float.intBitsToFloat((int) expected)) && Float.isNaN(Float.intBitsToFloat((int) actual));
+    }
+
+    static long unsigned(int bits) {
+        return bits & 0xFFFFFFFFL;
+    }
+
+}
@@ -0,0 +1,159 @@
+package verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次差分验证的结果：验证的操作数对个数、不一致的个数以及前若干个不一致的样例
+ */
+public final class VerificationReport {
+
+    /**
+     * 一个不一致的操作数对
+     */
+    public static final class Mismatch {
+
+        private final int src;
+
+        private final int dest;
+
+        private final long expected;
+
+        private final long actual;
+
+        Mismatch(int src, int dest, long expected, long actual) {
+            this.src = src;
+            this.dest = dest;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public int src() {
+            return src;
+        }
+
+        public int dest() {
+            return dest;
+        }
+
+        /**
+         * @return 原生运算的32位结果
+         * @throws IllegalStateException 原生运算约定抛出ArithmeticException
+         */
+        public int expected() {
+            return bits(expected);
+        }
+
+        /**
+         * @return 被测实现的32位结果
+         * @throws IllegalStateException 被测实现抛出了ArithmeticException
+         */
+        public int actual() {
+            return bits(actual);
+        }
+
+        public boolean expectedThrows() {
+            return expected == Operation.THROWS;
+        }
+
+        public boolean actualThrows() {
+            return actual == Operation.THROWS;
+        }
+
+        private static int bits(long outcome) {
+            if (outcome == Operation.THROWS) {
+                throw new IllegalStateException("ArithmeticException");
+            }
+            return (int) outcome;
+        }
+
+        private static String format(long outcome) {
+            return outcome == Operation.THROWS ? "ArithmeticException" : hex((int) outcome);
+        }
+
+        @Override
+        public String toString() {
+            return "src=" + hex(src) + " dest=" + hex(dest) + " expected=" + format(expected) + " actual=" + format(actual);
+        }
+
+    }
+
+    private final Operation operation;
+
+    private final long checked;
+
+    private final long mismatches;
+
+    private final long elapsedNanos;
+
+    private final List<Mismatch> samples;
+
+    VerificationReport(Operation operation, long checked, long mismatches, long elapsedNanos, List<Mismatch> samples) {
+        this.operation = operation;
+        this.checked = checked;
+        this.mismatches = mismatches;
+        this.elapsedNanos = elapsedNanos;
+        this.samples = Collections.unmodifiableList(new ArrayList<>(samples));
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    /**
+     * @return 验证的操作数对个数
+     */
+    public long checked() {
+        return checked;
+    }
+
+    /**
+     * @return 不一致的操作数对个数
+     */
+    public long mismatches() {
+        return mismatches;
+    }
+
+    public boolean passed() {
+        return mismatches == 0;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return 每秒验证的操作数对个数
+     */
+    public double pairsPerSecond() {
+        return elapsedNanos == 0 ? 0 : checked * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return 不一致的样例，个数不超过DifferentialVerifier的sampleLimit，顺序不确定
+     */
+    public List<Mismatch> samples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(operation).append(": checked=").append(checked)
+                .append(" mismatches=").append(mismatches)
+                .append(String.format(" elapsed=%.3fs throughput=%.3e pairs/s", elapsedNanos / 1e9, pairsPerSecond()));
+        for (Mismatch mismatch : samples) {
+            builder.append(System.lineSeparator()).append("  ").append(mismatch);
+        }
+        if (mismatches > samples.size()) {
+            builder.append(System.lineSeparator()).append("  ... ").append(mismatches - samples.size()).append(" more");
+        }
+        return builder.toString();
+    }
+
+    static String hex(int bits) {
+        return String.format("0x%08X", bits);
+    }
+
+}
@@ -0,0 +1,221 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import util.WorkloadRecorder;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 重放WorkloadRecorder录制的文件：内存映射后校验文件头和CRC32，按运算分组调用FPU/ALU的批量接口，
+ * 与录制的结果逐位比较（浮点运算中所有NaN视为相同）
+ * 报告中Mismatch的expected为录制的结果，actual为重放的结果；耗时只包括批量运算本身
+ */
+public final class WorkloadReplayer {
+
+    private static final int CHUNK = DifferentialVerifier.CHUNK;
+
+    private static final int DEFAULT_SAMPLE_LIMIT = 32;
+
+    private final FPU fpu;
+
+    private final ALU alu;
+
+    private final int sampleLimit;
+
+    /**
+     * 同一个运算的待重放记录和统计
+     */
+    private final class Lane {
+
+        private final Operation operation;
+
+        private final int[] src = new int[CHUNK];
+
+        private final int[] dest = new int[CHUNK];
+
+        private final long[] expected = new long[CHUNK];
+
+        private final int[] out = new int[CHUNK];
+
+        private final long[] actual = new long[CHUNK];
+
+        private int n;
+
+        private long checked;
+
+        private long mismatches;
+
+        private long elapsedNanos;
+
+        private final List<VerificationReport.Mismatch> samples = new ArrayList<>();
+
+        Lane(Operation operation) {
+            this.operation = operation;
+        }
+
+        void add(int src, int dest, long expected) {
+            this.src[n] = src;
+            this.dest[n] = dest;
+            this.expected[n] = expected;
+            if (++n == CHUNK) {
+                flush();
+            }
+        }
+
+        void flush() {
+            long start = System.nanoTime();
+            boolean batched = true;
+            try {
+                operation.batch(fpu, alu, src, dest, out, n);
+            } catch (ArithmeticException e) { // 有抛出异常的通道，整组逐个重算
+                batched = false;
+            }
+            for (int i = 0; i < n; i++) {
+                actual[i] = batched ? Operation.unsigned(out[i]) : operation.actual(fpu, alu, src[i], dest[i]);
+            }
+            elapsedNanos += System.nanoTime() - start;
+            for (int i = 0; i < n; i++) {
+                if (!operation.same(expected[i], actual[i])) {
+                    mismatches++;
+                    if (samples.size() < sampleLimit) {
+                        samples.add(new VerificationReport.Mismatch(src[i], dest[i], expected[i], actual[i]));
+                    }
+                }
+            }
+            checked += n;
+            n = 0;
+        }
+
+        VerificationReport report() {
+            return new VerificationReport(operation, checked, mismatches, elapsedNanos, samples);
+        }
+
+    }
+
+    /**
+     * 使用NATIVE引擎
+     */
+    public WorkloadReplayer() {
+        this(FPU.Engine.NATIVE, ALU.Engine.NATIVE, DEFAULT_SAMPLE_LIMIT);
+    }
+
+    /**
+     * @param sampleLimit 每个运算的报告中最多保留的不一致样例个数
+     */
+    public WorkloadReplayer(FPU.Engine fpuEngine, ALU.Engine aluEngine, int sampleLimit) {
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("sampleLimit: " + sampleLimit);
+        }
+        this.fpu = new FPU(fpuEngine);
+        this.alu = new ALU(aluEngine);
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * 依次重放录制文件
+     *
+     * @return 录制中出现过的每种运算的报告，按Operation的顺序排列
+     * @throws IllegalArgumentException 文件头、长度或校验和不正确
+     */
+    public List<VerificationReport> replay(Path... captures) throws IOException {
+        Operation[] operations = Operation.values();
+        Lane[] lanes = new Lane[operations.length];
+        for (Path capture : captures) {
+            try (FileChannel channel = FileChannel.open(capture, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                int count = validate(capture, buffer);
+                for (int i = 0; i < count; i++) {
+                    int pos = WorkloadRecorder.HEADER_BYTES + i * WorkloadRecorder.RECORD_BYTES;
+                    int word = buffer.getInt(pos);
+                    int op = word & WorkloadRecorder.OPERATION_MASK;
+                    if (op >= operations.length) {
+                        throw new IllegalArgumentException(capture + ": unknown operation " + op + " in record " + i);
+                    }
+                    if (lanes[op] == null) {
+                        lanes[op] = new Lane(operations[op]);
+                    }
+                    long expected = (word & WorkloadRecorder.THROWN) != 0
+                            ? Operation.THROWS : Operation.unsigned(buffer.getInt(pos + 12));
+                    lanes[op].add(buffer.getInt(pos + 4), buffer.getInt(pos + 8), expected);
+                }
+            }
+        }
+        List<VerificationReport> reports = new ArrayList<>();
+        for (Lane lane : lanes) {
+            if (lane != null) {
+                lane.flush();
+                reports.add(lane.report());
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * @return 记录个数
+     */
+    private static int validate(Path capture, MappedByteBuffer buffer) {
+        if (buffer.limit() < WorkloadRecorder.HEADER_BYTES || buffer.getInt(0) != WorkloadRecorder.MAGIC) {
+            throw new IllegalArgumentException(capture + ": not a workload capture");
+        }
+        if (buffer.getInt(4) != WorkloadRecorder.VERSION) {
+            throw new IllegalArgumentException(capture + ": unsupported version " + buffer.getInt(4));
+        }
+        int count = buffer.getInt(8);
+        if (count < 0 || buffer.limit() != WorkloadRecorder.HEADER_BYTES + (long) count * WorkloadRecorder.RECORD_BYTES) {
+            throw new IllegalArgumentException(capture + ": length does not match record count " + count);
+        }
+        CRC32 crc = new CRC32();
+        buffer.position(WorkloadRecorder.HEADER_BYTES);
+        crc.update(buffer);
+        if ((int) crc.getValue() != buffer.getInt(12)) {
+            throw new IllegalArgumentException(capture + ": checksum mismatch");
+        }
+        return count;
+    }
+
+    /**
+     * 命令行入口，存在不一致时退出码为1
+     * <pre>
+     * WorkloadReplayer workload-000000.bin workload-000001.bin ... [serial]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        boolean serial = args.length > 0 && args[args.length - 1].equals("serial");
+        int files = serial ? args.length - 1 : args.length;
+        if (files == 0) {
+            System.err.println("usage: WorkloadReplayer <capture>... [serial]");
+            System.exit(2);
+        }
+        Path[] captures = new Path[files];
+        for (int i = 0; i < files; i++) {
+            captures[i] = Paths.get(args[i]);
+        }
+        WorkloadReplayer replayer = new WorkloadReplayer(serial ? FPU.Engine.BIT_SERIAL : FPU.Engine.NATIVE,
+                serial ? ALU.Engine.BIT_SERIAL : ALU.Engine.NATIVE, DEFAULT_SAMPLE_LIMIT);
+        List<VerificationReport> reports = replayer.replay(captures);
+        long checked = 0;
+        long elapsed = 0;
+        boolean passed = true;
+        for (VerificationReport report : reports) {
+            System.out.println(report);
+            checked += report.checked();
+            elapsed += report.elapsedNanos();
+            passed &= report.passed();
+        }
+        System.out.printf("total: records=%d elapsed=%.3fs throughput=%.3e ops/s%n", checked, elapsed / 1e9,
+                elapsed == 0 ? 0 : checked * 1e9 / elapsed);
+        System.exit(passed ? 0 : 1);
+    }
+
+}
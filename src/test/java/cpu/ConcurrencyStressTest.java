@@ -0,0 +1,186 @@
+package cpu;
+
+import cpu.alu.ALU;
+import cpu.alu.DivRem;
+import cpu.fpu.FPU;
+import org.junit.Test;
+import util.DataType;
+import util.ResultCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多个线程共享同一个ALU/FPU，每个线程以不同的顺序计算同一组操作数，
+ * 结果必须与单线程下新建的部件逐位一致
+ */
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int PAIRS = 256;
+
+    private static final int ROUNDS = 3;
+
+    private final int[] intSrc = new int[PAIRS];
+
+    private final int[] intDest = new int[PAIRS];
+
+    private final int[] floatSrc = new int[PAIRS];
+
+    private final int[] floatDest = new int[PAIRS];
+
+    public ConcurrencyStressTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < PAIRS; i++) {
+            intSrc[i] = random.nextInt() >> random.nextInt(32);
+            intDest[i] = random.nextInt() >> random.nextInt(32);
+            if (intSrc[i] == 0) {
+                intSrc[i] = 3;
+            }
+            floatSrc[i] = random.nextInt(8) == 0 ? random.nextInt() & 0x807FFFFF : random.nextInt();
+            floatDest[i] = random.nextInt(8) == 0 ? random.nextInt() & 0x807FFFFF : random.nextInt();
+            if ((floatSrc[i] & 0x7FFFFFFF) == 0) {
+                floatSrc[i] = 0x3F800000;
+            }
+        }
+    }
+
+    /**
+     * 每个线程依次执行task(线程号)，收集所有失败信息
+     */
+    private interface Task {
+        void run(int thread, Queue<String> failures);
+    }
+
+    private void stress(Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await(); // 所有线程同时开始，尽量制造交错
+                    task.run(thread, failures);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(failures.size() + " failures, first: " + failures.peek(), failures.isEmpty());
+    }
+
+    /**
+     * 第thread个线程在第round轮访问的第k个下标，不同线程的访问顺序不同
+     */
+    private static int index(int thread, int round, int k) {
+        return (k * (2 * thread + 1) + round * 31 + thread * 17) & (PAIRS - 1);
+    }
+
+    @Test
+    public void sharedAluTest() throws Exception {
+        for (ALU.Engine engine : ALU.Engine.values()) {
+            ALU reference = new ALU(engine);
+            DataType[] add = new DataType[PAIRS];
+            DataType[] sub = new DataType[PAIRS];
+            DataType[] mul = new DataType[PAIRS];
+            DivRem[] div = new DivRem[PAIRS];
+            for (int i = 0; i < PAIRS; i++) {
+                DataType src = DataType.ofBits(intSrc[i]);
+                DataType dest = DataType.ofBits(intDest[i]);
+                add[i] = reference.add(src, dest);
+                sub[i] = reference.sub(src, dest);
+                mul[i] = reference.mul(src, dest);
+                div[i] = reference.divRem(src, dest);
+            }
+            for (ALU shared : new ALU[]{new ALU(engine), new ALU(engine, new ResultCache(64))}) {
+                stress((thread, failures) -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int k = 0; k < PAIRS; k++) {
+                            int i = index(thread, round, k);
+                            DataType src = DataType.ofBits(intSrc[i]);
+                            DataType dest = DataType.ofBits(intDest[i]);
+                            check(failures, engine + " add " + i, add[i], shared.add(src, dest));
+                            check(failures, engine + " sub " + i, sub[i], shared.sub(src, dest));
+                            check(failures, engine + " mul " + i, mul[i], shared.mul(src, dest));
+                            check(failures, engine + " divRem " + i, div[i], shared.divRem(src, dest));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void sharedAluBatchTest() throws Exception {
+        ALU shared = new ALU(ALU.Engine.BIT_SERIAL);
+        int[] quotient = new int[PAIRS];
+        int[] remainder = new int[PAIRS];
+        new ALU(ALU.Engine.NATIVE).div(intSrc, intDest, quotient, remainder, 0, PAIRS);
+        stress((thread, failures) -> {
+            int[] q = new int[PAIRS];
+            int[] r = new int[PAIRS];
+            shared.div(intSrc, intDest, q, r, 0, PAIRS);
+            for (int i = 0; i < PAIRS; i++) {
+                if (q[i] != quotient[i] || r[i] != remainder[i]) {
+                    failures.add("batch div " + i + ": " + q[i] + " rem " + r[i]);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void sharedFpuTest() throws Exception {
+        for (FPU.Engine engine : FPU.Engine.values()) {
+            FPU reference = new FPU(engine);
+            DataType[][] expected = new DataType[4][PAIRS];
+            for (int i = 0; i < PAIRS; i++) {
+                DataType src = DataType.ofBits(floatSrc[i]);
+                DataType dest = DataType.ofBits(floatDest[i]);
+                expected[0][i] = reference.add(src, dest);
+                expected[1][i] = reference.sub(src, dest);
+                expected[2][i] = reference.mul(src, dest);
+                expected[3][i] = reference.div(src, dest);
+            }
+            for (FPU shared : new FPU[]{new FPU(engine), new FPU(engine, new ResultCache(64))}) {
+                stress((thread, failures) -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int k = 0; k < PAIRS; k++) {
+                            int i = index(thread, round, k);
+                            DataType src = DataType.ofBits(floatSrc[i]);
+                            DataType dest = DataType.ofBits(floatDest[i]);
+                            check(failures, engine + " add " + i, expected[0][i], shared.add(src, dest));
+                            check(failures, engine + " sub " + i, expected[1][i], shared.sub(src, dest));
+                            check(failures, engine + " mul " + i, expected[2][i], shared.mul(src, dest));
+                            check(failures, engine + " div " + i, expected[3][i], shared.div(src, dest));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static void check(Queue<String> failures, String what, Object expected, Object actual) {
+        if (!expected.equals(actual)) {
+            failures.add(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package cpu.alu;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ALUBatchTest {
+
+    @Test
+    public void aluBatchTest() {
+        Random random = new Random(2023);
+        int size = 300;
+        int[] src = new int[size];
+        int[] dest = new int[size];
+        for (int i = 0; i < size; i++) {
+            src[i] = random.nextInt() >> random.nextInt(32);
+            dest[i] = random.nextInt() >> random.nextInt(32);
+            if (src[i] == 0) {
+                src[i] = 1;
+            }
+        }
+        for (ALU alu : new ALU[]{new ALU(), new ALU(ALU.Engine.NATIVE)}) {
+            int[] out = new int[size];
+            int[] remainder = new int[size];
+            alu.add(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(dest[i] + src[i], out[i]);
+            }
+            alu.sub(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(dest[i] - src[i], out[i]);
+            }
+            alu.mul(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(dest[i] * src[i], out[i]);
+            }
+            alu.div(src, dest, out, remainder, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(dest[i] / src[i], out[i]);
+                assertEquals(dest[i] % src[i], remainder[i]);
+            }
+        }
+    }
+
+    @Test
+    public void aluBatchInPlaceTest() {
+        int[] src = {3, -3, 7};
+        int[] dest = {10, 10, -50};
+        new ALU(ALU.Engine.NATIVE).div(src, dest, dest, src, 0, 3); // 商写回dest，余数写回src
+        assertArrayEquals(new int[]{3, -3, -7}, dest);
+        assertArrayEquals(new int[]{1, 1, -1}, src);
+    }
+
+}
@@ -0,0 +1,105 @@
+package cpu.alu;
+
+import org.junit.Test;
+import util.DataType;
+import util.ResultCache;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 比较BIT_SERIAL与NATIVE两种实现的运算结果
+ */
+public class ALUEngineTest {
+
+    private final ALU serial = new ALU();
+    private final ALU nativeAlu = new ALU(ALU.Engine.NATIVE);
+
+    private static final int[] EDGE = {0, 1, -1, 2, -2, 3, -3, 7, -7, 100, -100, 0x55555555, 0xAAAAAAAA,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1, Integer.MAX_VALUE - 1};
+
+    private int[][] operands() {
+        Random random = new Random(2023);
+        int[][] pairs = new int[EDGE.length * EDGE.length + 2000][];
+        int k = 0;
+        for (int a : EDGE) {
+            for (int b : EDGE) {
+                pairs[k++] = new int[]{a, b};
+            }
+        }
+        while (k < pairs.length) {
+            // 随机右移，使大小不同的操作数都能出现
+            pairs[k++] = new int[]{random.nextInt() >> random.nextInt(32), random.nextInt() >> random.nextInt(32)};
+        }
+        return pairs;
+    }
+
+    @Test
+    public void aluAddSubTest() {
+        for (int[] pair : operands()) {
+            DataType src = DataType.ofBits(pair[0]);
+            DataType dest = DataType.ofBits(pair[1]);
+            assertEquals(serial.add(src, dest).toString(), nativeAlu.add(src, dest).toString());
+            assertEquals(pair[1] + pair[0], nativeAlu.add(src, dest).bits());
+            assertEquals(serial.sub(src, dest).toString(), nativeAlu.sub(src, dest).toString());
+            assertEquals(pair[1] - pair[0], nativeAlu.sub(src, dest).bits());
+        }
+    }
+
+    @Test
+    public void aluMulTest() {
+        for (int[] pair : operands()) {
+            DataType src = DataType.ofBits(pair[0]);
+            DataType dest = DataType.ofBits(pair[1]);
+            assertEquals(serial.mul(src, dest).toString(), nativeAlu.mul(src, dest).toString());
+            assertEquals(pair[1] * pair[0], nativeAlu.mul(src, dest).bits());
+        }
+    }
+
+    @Test
+    public void aluDivTest() {
+        for (int[] pair : operands()) {
+            if (pair[0] == 0) {
+                continue;
+            }
+            DataType src = DataType.ofBits(pair[0]);
+            DataType dest = DataType.ofBits(pair[1]);
+            DivRem expect = serial.divRem(src, dest);
+            assertEquals(expect, nativeAlu.divRem(src, dest));
+            assertEquals(expect.quotient(), serial.div(src, dest));
+            assertEquals(pair[1] / pair[0], expect.quotient().bits());
+            assertEquals(pair[1] % pair[0], expect.remainder().bits());
+        }
+    }
+
+    @Test
+    public void aluDivExceptionTest() {
+        for (ALU alu : new ALU[]{serial, nativeAlu}) {
+            try {
+                alu.div(DataType.ofBits(0), DataType.ofBits(5));
+                fail();
+            } catch (ArithmeticException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void aluCachedDivTest() {
+        ALU cached = new ALU(ALU.Engine.BIT_SERIAL, new ResultCache(256));
+        for (int round = 0; round < 2; round++) { // 第二轮全部命中缓存
+            for (int[] pair : operands()) {
+                if (pair[0] == 0) {
+                    continue;
+                }
+                DataType src = DataType.ofBits(pair[0]);
+                DataType dest = DataType.ofBits(pair[1]);
+                DivRem ans = cached.divRem(src, dest);
+                assertEquals(pair[1] / pair[0], ans.quotient().bits());
+                assertEquals(pair[1] % pair[0], ans.remainder().bits());
+            }
+        }
+    }
+
+}
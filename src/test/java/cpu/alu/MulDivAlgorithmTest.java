@@ -0,0 +1,153 @@
+package cpu.alu;
+
+import org.junit.Test;
+import util.DataType;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 各种乘除法数据通路与Java的*、/、%比较，并检查开销模型
+ */
+public class MulDivAlgorithmTest {
+
+    private static final int[] EDGES = {0, 1, -1, 2, -2, 3, 7, -7, 0x7FFFFFFF, 0x80000000, 0x80000001, 0x40000000,
+            0x55555555, 0xAAAAAAAA, 0x0000FFFF, 0xFFFF0000, 123456789, -987654321};
+
+    private static int[] operands(int count, long seed) {
+        Random random = new Random(seed);
+        int[] operands = new int[count];
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    operands[i] = EDGES[random.nextInt(EDGES.length)];
+                    break;
+                case 1:
+                    operands[i] = random.nextInt() >> random.nextInt(32); // 各种位数
+                    break;
+                default:
+                    operands[i] = random.nextInt();
+            }
+        }
+        return operands;
+    }
+
+    @Test
+    public void multiplierTest() {
+        int[] src = operands(200000, 1);
+        int[] dest = operands(200000, 2);
+        for (MultiplierAlgorithm algorithm : MultiplierAlgorithm.values()) {
+            CycleCounter counter = new CycleCounter();
+            for (int i = 0; i < src.length; i++) {
+                assertEquals(algorithm + ": " + src[i] + " * " + dest[i],
+                        (long) src[i] * dest[i], algorithm.multiply(src[i], dest[i], counter));
+            }
+            assertEquals(src.length, counter.operations());
+        }
+    }
+
+    @Test
+    public void dividerTest() {
+        int[] src = operands(200000, 3);
+        int[] dest = operands(200000, 4);
+        for (DividerAlgorithm algorithm : DividerAlgorithm.values()) {
+            CycleCounter counter = new CycleCounter();
+            for (int i = 0; i < src.length; i++) {
+                if (src[i] == 0) {
+                    continue;
+                }
+                long ans = algorithm.divide(src[i], dest[i], counter);
+                String message = algorithm + ": " + dest[i] + " / " + src[i];
+                assertEquals(message, dest[i] / src[i], Divider.quotient(ans));
+                assertEquals(message, dest[i] % src[i], Divider.remainder(ans));
+            }
+            try {
+                algorithm.divide(0, 1, counter);
+                fail();
+            } catch (ArithmeticException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void bitSerialTest() {
+        // 基2 Booth和不恢复余数除法与BIT_SERIAL的ALU逐位一致
+        ALU serial = new ALU();
+        CycleCounter counter = new CycleCounter();
+        int[] src = operands(300, 5);
+        int[] dest = operands(300, 6);
+        for (int i = 0; i < src.length; i++) {
+            DataType a = DataType.ofBits(src[i]);
+            DataType b = DataType.ofBits(dest[i]);
+            assertEquals(serial.mul(a, b).bits(), (int) MultiplierAlgorithm.BOOTH_RADIX2.multiply(src[i], dest[i], counter));
+            if (src[i] != 0) {
+                DivRem expected = serial.divRem(a, b);
+                long ans = DividerAlgorithm.NON_RESTORING.divide(src[i], dest[i], counter);
+                assertEquals(expected.quotient().bits(), Divider.quotient(ans));
+                assertEquals(expected.remainder().bits(), Divider.remainder(ans));
+            }
+        }
+    }
+
+    @Test
+    public void costTest() {
+        CycleCounter counter = new CycleCounter();
+        MultiplierAlgorithm.BOOTH_RADIX2.multiply(3, 0x0F0F0F0F, counter); // 4段连续的1，每段一次减一次加
+        assertEquals(32, counter.cycles());
+        assertEquals(8, counter.adders());
+
+        counter.reset();
+        MultiplierAlgorithm.BOOTH_RADIX4.multiply(3, 0x0F0F0F0F, counter);
+        assertEquals(16, counter.cycles());
+        assertTrue(counter.adders() <= 16);
+
+        counter.reset();
+        MultiplierAlgorithm.WALLACE_TREE.multiply(3, 5, counter);
+        assertEquals(9, counter.cycles());
+        assertEquals(31, counter.adders());
+
+        counter.reset();
+        DividerAlgorithm.SRT_RADIX4.divide(7, 100, counter);
+        assertEquals(18, counter.cycles());
+        counter.reset();
+        DividerAlgorithm.NON_RESTORING.divide(7, 100, counter);
+        assertTrue(counter.cycles() >= 33 && counter.cycles() <= 36);
+        assertEquals(1, counter.operations());
+    }
+
+    @Test
+    public void aluTest() {
+        CycleCounter counter = new CycleCounter();
+        ALU alu = new ALU(MultiplierAlgorithm.WALLACE_TREE, DividerAlgorithm.SRT_RADIX4, counter);
+        assertEquals(-42, alu.mul(DataType.ofBits(6), DataType.ofBits(-7)).bits());
+        assertEquals(new DivRem(DataType.ofBits(-14), DataType.ofBits(-2)), alu.divRem(DataType.ofBits(7), DataType.ofBits(-100)));
+        assertEquals(2, counter.operations());
+
+        int[] src = operands(1000, 7);
+        int[] dest = operands(1000, 8);
+        int[] out = new int[1000];
+        alu.mul(src, dest, out, 0, 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(src[i] * dest[i], out[i]);
+            if (src[i] == 0) {
+                src[i] = 1;
+            }
+        }
+        int[] remainder = new int[1000];
+        alu.div(src, dest, out, remainder, 0, 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(dest[i] / src[i], out[i]);
+            assertEquals(dest[i] % src[i], remainder[i]);
+        }
+        assertEquals(2002, counter.operations());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullCounterTest() {
+        new ALU(MultiplierAlgorithm.BOOTH_RADIX4, DividerAlgorithm.SRT_RADIX4, null);
+    }
+
+}
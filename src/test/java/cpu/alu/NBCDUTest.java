@@ -0,0 +1,47 @@
+package cpu.alu;
+
+import org.junit.Test;
+import util.DataType;
+import util.NBCD;
+import util.Transformer;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class NBCDUTest {
+
+    private final NBCDU nbcdu = new NBCDU();
+
+    private static int wrap(int value) {
+        int magnitude = Math.abs(value) % (NBCD.MAX_MAGNITUDE + 1);
+        return value < 0 ? -magnitude : magnitude;
+    }
+
+    @Test
+    public void nbcdAddTest() {
+        DataType src = new DataType(Transformer.decimalToNBCD("100"));
+        DataType dest = new DataType(Transformer.decimalToNBCD("99"));
+        assertEquals(Transformer.decimalToNBCD("199"), nbcdu.add(src, dest).toString());
+        assertEquals(Transformer.decimalToNBCD("-1"), nbcdu.sub(src, dest).toString());
+        assertEquals("11000000000000000000000000000000", nbcdu.sub(src, src).toString());
+        assertEquals(NBCD.encode(0), nbcdu.add(NBCD.encode(9999999), NBCD.encode(1))); // 舍去最高位进位
+    }
+
+    @Test
+    public void nbcdRandomTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 100000; i++) {
+            int a = random.nextInt(2 * NBCD.MAX_MAGNITUDE + 1) - NBCD.MAX_MAGNITUDE;
+            int b = random.nextBoolean() ? random.nextInt(2 * NBCD.MAX_MAGNITUDE + 1) - NBCD.MAX_MAGNITUDE : random.nextInt(2000) - 1000;
+            assertEquals(NBCD.encode(wrap(b + a)), nbcdu.add(NBCD.encode(a), NBCD.encode(b)));
+            assertEquals(NBCD.encode(wrap(b - a)), nbcdu.sub(NBCD.encode(a), NBCD.encode(b)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nbcdIllegalTest() {
+        nbcdu.add(0xC000000A, NBCD.encode(1));
+    }
+
+}
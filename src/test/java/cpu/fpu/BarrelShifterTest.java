@@ -0,0 +1,59 @@
+package cpu.fpu;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 桶形移位与逐位移位的结果比较
+ */
+public class BarrelShifterTest {
+
+    /**
+     * 逐位右移，每次把移出的位或到最低位
+     */
+    private static String serialShiftRightJam(String operand, int n) {
+        for (int i = 0; i < n; i++) {
+            boolean sticky = operand.endsWith("1");
+            operand = "0" + operand.substring(0, operand.length() - 1);
+            if (sticky) {
+                operand = operand.substring(0, operand.length() - 1) + "1";
+            }
+        }
+        return operand;
+    }
+
+    private static String random(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        int zeros = random.nextInt(length + 1); // 前导0的个数也随机
+        for (int i = 0; i < length; i++) {
+            builder.append(i < zeros ? '0' : (char) ('0' + random.nextInt(2)));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void shiftRightJamTest() {
+        Random random = new Random(2023);
+        for (int length : new int[]{24, 27, 54}) {
+            for (int i = 0; i < 2000; i++) {
+                String operand = random(random, length);
+                int n = random.nextInt(length + 8);
+                assertEquals(operand + " >> " + n, serialShiftRightJam(operand, n), BarrelShifter.shiftRightJam(operand, n));
+            }
+        }
+        assertEquals("0000000001", BarrelShifter.shiftRightJam("1000000000", 200));
+        assertEquals("0000000000", BarrelShifter.shiftRightJam("0000000000", 3));
+    }
+
+    @Test
+    public void normalizeTest() {
+        assertEquals(27, BarrelShifter.leadingZeros("000000000000000000000000000"));
+        assertEquals(3, BarrelShifter.leadingZeros("000100000000000000000000001"));
+        assertEquals("100000000000000000000001000", BarrelShifter.shiftLeft("000100000000000000000000001", 3));
+        assertEquals("0101", BarrelShifter.shiftLeft("0101", 0));
+    }
+
+}
@@ -21,6 +21,14 @@ public class FPUAddTest {
         assertEquals("10000000001111111111111111111111", result.toString());
     }
 
+    @Test
+    public void fpuAddTest2() {
+        src = new DataType("01111111111111111111111111111111");
+        dest = new DataType("11111111100000000000000000000000");
+        result = fpu.add(src, dest);
+        assertEquals("01111111110000000000000000000000", result.toString());
+    }
+
     @Test
     public void fpuAddTest9() {
         float pZero = Float.parseFloat(Transformer.binaryToFloat("00000000000000000000000000000000"));
@@ -0,0 +1,85 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FPUBatchTest {
+
+    private final FPU serial = new FPU();
+    private final FPU nativeFpu = new FPU(FPU.Engine.NATIVE);
+
+    /**
+     * 规格化数中混入0、Inf、NaN和非规格化数
+     */
+    private static int[] operands(Random random, int size) {
+        int[] specials = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000, 0x00000003, 0x807FFFFF};
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = random.nextInt(5) == 0 ? specials[random.nextInt(specials.length)] : random.nextInt();
+        }
+        return result;
+    }
+
+    @Test
+    public void fpuBatchMatchesScalarTest() {
+        Random random = new Random(2023);
+        int size = 500;
+        int[] src = operands(random, size);
+        int[] dest = operands(random, size);
+        for (int i = 0; i < size; i++) {
+            if ((src[i] & 0x7FFFFFFF) == 0 && (dest[i] & 0x7FFFFFFF) != 0) { // 避免除数为0
+                src[i] = 0x3F800000;
+            }
+        }
+        int[] out = new int[size];
+        for (FPU fpu : new FPU[]{serial, nativeFpu}) {
+            fpu.add(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(nativeFpu.add(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits(), out[i]);
+            }
+            fpu.sub(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(nativeFpu.sub(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits(), out[i]);
+            }
+            fpu.mul(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(nativeFpu.mul(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits(), out[i]);
+            }
+            fpu.div(src, dest, out, 0, size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(nativeFpu.div(DataType.ofBits(src[i]), DataType.ofBits(dest[i])).bits(), out[i]);
+            }
+        }
+    }
+
+    @Test
+    public void fpuBatchRangeTest() {
+        int[] src = {0x3F800000, 0x40000000, 0x40400000, 0x40800000};
+        int[] dest = {0x3F800000, 0x3F800000, 0x3F800000, 0x3F800000};
+        int[] out = {-1, -1, -1, -1};
+        nativeFpu.add(src, dest, out, 1, 3);
+        assertArrayEquals(new int[]{-1, 0x40400000, 0x40800000, -1}, out);
+        nativeFpu.mul(src, dest, dest, 0, 4); // 结果写回dest
+        assertArrayEquals(src, dest);
+    }
+
+    @Test
+    public void fpuBatchDivExceptionTest() {
+        int[] src = {0x3F800000, 0x00000000, 0x3F800000};
+        int[] dest = {0x40000000, 0x40000000, 0x40000000};
+        int[] out = new int[3];
+        try {
+            nativeFpu.div(src, dest, out, 0, 3);
+            fail();
+        } catch (ArithmeticException e) {
+            assertArrayEquals(new int[]{0x40000000, 0, 0}, out);
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package cpu.fpu;
+
+import cpu.alu.ALU;
+import cpu.alu.DivRem;
+import org.junit.Test;
+import util.ArithmeticContext;
+import util.DataType;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 舍入模式与状态标志：定向舍入与在double上精确计算后再定向舍入的结果比较
+ */
+public class FPUContextTest {
+
+    private static final int[] MODES = {ArithmeticContext.RNE, ArithmeticContext.RTZ, ArithmeticContext.RUP, ArithmeticContext.RDN};
+
+    private static DataType f(float value) {
+        return DataType.ofBits(Float.floatToRawIntBits(value));
+    }
+
+    private static float value(DataType data) {
+        return Float.intBitsToFloat(data.bits());
+    }
+
+    /**
+     * 把精确值exact定向舍入到float
+     */
+    private static float round(double exact, int mode) {
+        float nearest = (float) exact;
+        if (nearest == exact) {
+            return nearest;
+        }
+        float down = nearest > exact ? Math.nextDown(nearest) : nearest;
+        float up = nearest < exact ? Math.nextUp(nearest) : nearest;
+        switch (mode) {
+            case ArithmeticContext.RTZ:
+                return exact > 0 ? down : up;
+            case ArithmeticContext.RUP:
+                return up;
+            case ArithmeticContext.RDN:
+                return down;
+            default:
+                return nearest;
+        }
+    }
+
+    private static float randomFloat(Random random) {
+        int bits = random.nextInt();
+        if (random.nextInt(4) == 0) {
+            bits &= 0x807FFFFF; // 非规格化数
+        }
+        return (bits & 0x7F800000) == 0x7F800000 ? 1.5f : Float.intBitsToFloat(bits);
+    }
+
+    @Test
+    public void nearestEvenTest() {
+        // RNE的上下文与不带上下文的结果相同；除法不带上下文时截断余数，单独在directedTest中检查
+        Random random = new Random(20);
+        FPU plain = new FPU();
+        ArithmeticContext context = new ArithmeticContext();
+        FPU serial = new FPU(FPU.Engine.BIT_SERIAL, null, context);
+        for (int i = 0; i < 5000; i++) {
+            DataType a = DataType.ofBits(random.nextInt());
+            DataType b = DataType.ofBits(random.nextInt());
+            assertEquals(plain.add(a, b), serial.add(a, b));
+            assertEquals(plain.sub(a, b), serial.sub(a, b));
+            assertEquals(plain.mul(a, b), serial.mul(a, b));
+            assertEquals(plain.sqrt(a), serial.sqrt(a));
+        }
+    }
+
+    @Test
+    public void directedTest() {
+        Random random = new Random(21);
+        for (int mode : MODES) {
+            ArithmeticContext context = new ArithmeticContext(mode, true);
+            FPU fpu = new FPU(FPU.Engine.NATIVE, null, context);
+            for (int i = 0; i < 50000; i++) {
+                float a = randomFloat(random);
+                float b = randomFloat(random);
+                String message = mode + ": " + a + ", " + b;
+
+                context.clearFlags();
+                double product = (double) a * b; // 48位乘积在double中是精确的
+                assertEquals(message, round(product, mode), value(fpu.mul(f(a), f(b))), 0);
+                assertEquals(message, (float) product != product, context.test(ArithmeticContext.INEXACT));
+
+                double sum = (double) a + b;
+                double t = sum - a;
+                if (a - (sum - t) == 0 && b - t == 0 && sum != 0) { // 和在double中是精确的
+                    context.clearFlags();
+                    assertEquals(message, round(sum, mode), value(fpu.add(f(a), f(b))), 0);
+                    assertEquals(message, (float) sum != sum, context.test(ArithmeticContext.INEXACT));
+                }
+
+                if (a != 0) {
+                    checkDiv(fpu, context, mode, a, b);
+                }
+
+                float x = Math.abs(a);
+                float root = (float) Math.sqrt(x);
+                double square = (double) root * root;
+                double exact = square == x ? root : square > x ? Math.nextDown((double) root) : Math.nextUp((double) root);
+                assertEquals(message, round(exact, mode), value(fpu.sqrt(f(x))), 0);
+            }
+        }
+    }
+
+    /**
+     * b / a与精确商定向舍入的结果比较，并检查INEXACT
+     * double商与精确商之间不会有float或两个相邻float的中点：非0的|b - q * a|至少是q * a的2^-49倍，
+     * 远大于double的舍入误差2^-53，因此double商可以代替精确商
+     */
+    private static void checkDiv(FPU fpu, ArithmeticContext context, int mode, float a, float b) {
+        String message = mode + ": " + b + " / " + a;
+        double quotient = (double) b / a;
+        context.clearFlags();
+        assertEquals(message, round(quotient, mode), value(fpu.div(f(a), f(b))), 0);
+        assertEquals(message, (float) quotient != quotient, context.test(ArithmeticContext.INEXACT));
+    }
+
+    @Test
+    public void directedDivTest() {
+        int[][] cases = {{0x35BEC0C4, 0x3D1E5CE1}, {0x3D06888B, 0x3D67A366}, {0x40400000, 0x3F800000},
+                {0x00000003, 0x00000001}, {0x00C00000, 0x00000001}, {0x00000001, 0x7F7FFFFF}, {0x7F7FFFFF, 0x00000001}};
+        for (int mode : MODES) {
+            ArithmeticContext context = new ArithmeticContext(mode, true);
+            for (FPU fpu : new FPU[]{new FPU(FPU.Engine.BIT_SERIAL, null, context), new FPU(FPU.Engine.NATIVE, null, context)}) {
+                for (int[] c : cases) {
+                    checkDiv(fpu, context, mode, Float.intBitsToFloat(c[0]), Float.intBitsToFloat(c[1]));
+                    checkDiv(fpu, context, mode, Float.intBitsToFloat(c[1]), Float.intBitsToFloat(c[0]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flagsTest() {
+        ArithmeticContext context = new ArithmeticContext(ArithmeticContext.RNE, false);
+        FPU fpu = new FPU(FPU.Engine.NATIVE, null, context);
+
+        assertEquals(Float.POSITIVE_INFINITY, value(fpu.div(f(0), f(1))), 0);
+        assertEquals(ArithmeticContext.DIVIDE_BY_ZERO, context.flags());
+        context.clearFlags();
+        assertEquals(Float.NEGATIVE_INFINITY, value(fpu.div(f(0), f(Float.NEGATIVE_INFINITY))), 0);
+        assertEquals(0, context.flags()); // Inf / 0不是除以0异常
+
+        assertTrue(Float.isNaN(value(fpu.div(f(0), f(0)))));
+        assertEquals(ArithmeticContext.INVALID, context.flags());
+        context.clearFlags();
+        assertTrue(Float.isNaN(value(fpu.add(DataType.ofBits(0x7FC00000), f(1)))));
+        assertEquals(0, context.flags()); // quiet NaN不产生无效运算
+        fpu.add(DataType.ofBits(0x7F800001), f(1));
+        assertEquals(ArithmeticContext.INVALID, context.flags());
+        context.clearFlags();
+        fpu.sqrt(f(-1));
+        assertEquals(ArithmeticContext.INVALID, context.flags());
+        context.clearFlags();
+
+        assertEquals(Float.POSITIVE_INFINITY, value(fpu.mul(f(2), f(Float.MAX_VALUE))), 0);
+        assertEquals(ArithmeticContext.OVERFLOW | ArithmeticContext.INEXACT, context.flags());
+        context.setRoundingMode(ArithmeticContext.RTZ);
+        assertEquals(Float.MAX_VALUE, value(fpu.mul(f(2), f(Float.MAX_VALUE))), 0);
+        context.setRoundingMode(ArithmeticContext.RUP);
+        assertEquals(-Float.MAX_VALUE, value(fpu.add(f(-Float.MAX_VALUE), f(-Float.MAX_VALUE))), 0);
+        context.clearFlags();
+
+        assertEquals(Float.MIN_VALUE, value(fpu.mul(f(0.5f), f(Float.MIN_VALUE))), 0);
+        assertEquals(ArithmeticContext.UNDERFLOW | ArithmeticContext.INEXACT, context.flags());
+        context.clearFlags();
+        context.setRoundingMode(ArithmeticContext.RNE);
+        assertEquals(0, value(fpu.mul(f(0.5f), f(Float.MIN_VALUE))), 0);
+        assertEquals(Float.MIN_NORMAL / 2, value(fpu.mul(f(0.5f), f(Float.MIN_NORMAL))), 0);
+        assertEquals(ArithmeticContext.UNDERFLOW | ArithmeticContext.INEXACT, context.flags()); // 只有前一次运算不精确
+        context.clearFlags();
+
+        context.setRoundingMode(ArithmeticContext.RDN);
+        assertEquals(0x80000000, fpu.sub(f(1), f(1)).bits());
+        assertEquals(0x80000000, fpu.add(f(-0f), f(0f)).bits());
+        assertEquals(0, context.flags());
+        assertEquals("RDN non-throwing []", context.toString());
+
+        context.setThrowing(true);
+        try {
+            fpu.div(f(0), f(1));
+            fail();
+        } catch (ArithmeticException ignored) {
+        }
+        assertTrue(context.test(ArithmeticContext.DIVIDE_BY_ZERO));
+        assertFalse(context.test(ArithmeticContext.INVALID));
+    }
+
+    @Test
+    public void batchTest() {
+        ArithmeticContext context = new ArithmeticContext(ArithmeticContext.RNE, false);
+        FPU fpu = new FPU(FPU.Engine.NATIVE, null, context);
+        int[] src = {Float.floatToRawIntBits(2), 0, Float.floatToRawIntBits(-0f)};
+        int[] dest = {Float.floatToRawIntBits(1), Float.floatToRawIntBits(1), Float.floatToRawIntBits(1)};
+        int[] out = new int[3];
+        fpu.div(src, dest, out, 0, 3);
+        assertEquals(0.5f, Float.intBitsToFloat(out[0]), 0);
+        assertEquals(0x7F800000, out[1]);
+        assertEquals(0xFF800000, out[2]);
+        assertEquals(ArithmeticContext.DIVIDE_BY_ZERO, context.flags());
+    }
+
+    @Test
+    public void aluTest() {
+        ArithmeticContext context = new ArithmeticContext(ArithmeticContext.RNE, false);
+        for (ALU.Engine engine : ALU.Engine.values()) {
+            context.clearFlags();
+            ALU alu = new ALU(engine, null, true, context);
+            DivRem ans = alu.divRem(DataType.ofBits(0), DataType.ofBits(17));
+            assertEquals(-1, ans.quotient().bits());
+            assertEquals(17, ans.remainder().bits());
+            assertEquals(ArithmeticContext.DIVIDE_BY_ZERO, context.flags());
+
+            int[] quotient = new int[2];
+            int[] remainder = new int[2];
+            alu.div(new int[]{3, 0}, new int[]{10, 5}, quotient, remainder, 0, 2);
+            assertEquals(3, quotient[0]);
+            assertEquals(-1, quotient[1]);
+            assertEquals(5, remainder[1]);
+        }
+        try {
+            new ALU(ALU.Engine.NATIVE, null, true, new ArithmeticContext()).div(DataType.ofBits(0), DataType.ofBits(1));
+            fail();
+        } catch (ArithmeticException ignored) {
+        }
+    }
+
+}
@@ -53,6 +53,14 @@ public class FPUDivTest {
         assertEquals(Transformer.floatToBinary("0.7"), result.toString());
     }
 
+    @Test
+    public void fpuDivTest6(){
+        dest = new DataType(Transformer.floatToBinary( "-3.0" ));
+        src = new DataType("01111111100000000000000000000000");
+        result = fpu.div(src, dest);
+        assertEquals("10000000000000000000000000000000", result.toString());
+    }
+
     @Test(expected = ArithmeticException.class)
     public void fpuDivExceptionTest(){
         dest = new DataType(Transformer.floatToBinary( "2.2" ));
@@ -0,0 +1,92 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+import util.IEEE754Float;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 迭代求商的除法与恢复余数法逐位比较
+ */
+public class FPUDivisionTest {
+
+    private static final DivisionAlgorithm[] ITERATIVE = {DivisionAlgorithm.NEWTON_RAPHSON, DivisionAlgorithm.GOLDSCHMIDT};
+
+    private final FPU reference = new FPU(FPU.Engine.NATIVE);
+
+    @Test
+    public void quotientTest() {
+        // 每隔7个取除数的尾数（含非规格化数），被除数取两端和随机值
+        Random random = new Random(2023);
+        for (DivisionAlgorithm division : ITERATIVE) {
+            for (int divisor = 1; divisor < 1 << 24; divisor += 7) {
+                int d = divisor << 3;
+                int[] dividends = {d, Math.min(2 * divisor - 1, 0xFFFFFF) << 3, ((random.nextInt(2 * divisor) & 0xFFFFFF) | 1) << 3};
+                for (int n : dividends) {
+                    if (n < 2L * d) {
+                        assertEquals(divisor + "/" + n, DivisionAlgorithm.RESTORING.quotient(d, n), division.quotient(d, n));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void divTest() {
+        Random random = new Random(2023);
+        for (DivisionAlgorithm division : ITERATIVE) {
+            FPU nativeFpu = new FPU(FPU.Engine.NATIVE, null, division);
+            for (int i = 0; i < 500000; i++) {
+                int src = random.nextInt() & (random.nextInt(4) == 0 ? 0x807FFFFF : 0xFFFFFFFF);
+                int dest = random.nextInt() & (random.nextInt(4) == 0 ? 0x807FFFFF : 0xFFFFFFFF);
+                if ((src & 0x7FFFFFFF) == 0) {
+                    continue;
+                }
+                assertEquals(Integer.toHexString(src) + "/" + Integer.toHexString(dest),
+                        reference.div(DataType.ofBits(src), DataType.ofBits(dest)).bits(),
+                        nativeFpu.div(DataType.ofBits(src), DataType.ofBits(dest)).bits());
+            }
+        }
+    }
+
+    @Test
+    public void serialTest() {
+        FPU serial = new FPU(FPU.Engine.BIT_SERIAL, null, DivisionAlgorithm.GOLDSCHMIDT);
+        int[][] cases = {{0x40400000, 0x3F800000}, {0x7F000000, 0x00800000}, {0x00000001, 0x3F800000}, {0x00000003, 0x7F7FFFFF}};
+        for (int[] c : cases) { // 1 / 3、商为非规格化数、除数为非规格化数
+            assertEquals(reference.div(DataType.ofBits(c[0]), DataType.ofBits(c[1])).bits(),
+                    serial.div(DataType.ofBits(c[0]), DataType.ofBits(c[1])).bits());
+        }
+        assertEquals(0x3F000000, serial.div(DataType.ofBits(0x40000000), DataType.ofBits(0x3F800000)).bits()); // 1 / 2
+        assertEquals(IEEE754Float.NaN, serial.div(new DataType(IEEE754Float.P_ZERO), new DataType(IEEE754Float.N_ZERO)).toString());
+        assertEquals(IEEE754Float.N_INF, serial.div(DataType.ofBits(0x00000001), DataType.ofBits(0xFF7FFFFF)).toString());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void divideByZeroTest() {
+        new FPU(FPU.Engine.BIT_SERIAL, null, DivisionAlgorithm.NEWTON_RAPHSON).div(DataType.ofBits(0), DataType.ofBits(0x3F800000));
+    }
+
+    @Test
+    public void batchTest() {
+        Random random = new Random(7);
+        int[] src = new int[4096];
+        int[] dest = new int[src.length];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = random.nextInt() | 0x00400000; // 不为0
+            dest[i] = random.nextInt();
+        }
+        int[] expected = new int[src.length];
+        reference.div(src, dest, expected, 0, src.length);
+        for (DivisionAlgorithm division : ITERATIVE) {
+            int[] out = new int[src.length];
+            new FPU(FPU.Engine.NATIVE, null, division).div(src, dest, out, 0, src.length);
+            assertArrayEquals(expected, out);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 比较BIT_SERIAL与NATIVE两种实现的运算结果
+ */
+public class FPUEngineTest {
+
+    private final FPU serial = new FPU();
+    private final FPU nativeFpu = new FPU(FPU.Engine.NATIVE);
+
+    private static final int[] INPUT = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000, 0x7FFFFFFF,
+            0x00000001, 0x00000002, 0x80400000, 0x007FFFFF, 0x00800000, 0x00800001, 0x7F000001, 0xFF000001, 0x7F7FFFFF,
+            0x4B189680, 0x3F99999A, 0x3F8CCCCD, 0x3F800000, 0x3F800001, 0x3F666666, 0x3F000000, 0x3DCCCCCD,
+            0xBDCCCCCD, 0xBF000000, 0xBF800000, 0xCB189680, 0x34000000, 0x4C000001};
+
+    /**
+     * 随机生成各类操作数：非规格化数、特殊值、极大/极小阶码、尾数全0或全1
+     */
+    private static int randomOperand(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return random.nextInt() & 0x807FFFFF;
+            case 1:
+                return (random.nextInt() & 0x80FFFFFF) | (random.nextInt(4) << 23);
+            case 2:
+                return (random.nextInt() & 0x807FFFFF) | ((250 + random.nextInt(5)) << 23);
+            case 3:
+                return (random.nextInt() & 0x80000000) | (random.nextInt(256) << 23) | (random.nextBoolean() ? 0x7FFFFF : 0);
+            default:
+                return random.nextInt();
+        }
+    }
+
+    private void check(int srcBits, int destBits) {
+        DataType src = DataType.ofBits(srcBits);
+        DataType dest = DataType.ofBits(destBits);
+        String message = "src=" + src + " dest=" + dest;
+        assertEquals(message, serial.add(src, dest).toString(), nativeFpu.add(src, dest).toString());
+        assertEquals(message, serial.sub(src, dest).toString(), nativeFpu.sub(src, dest).toString());
+        assertEquals(message, serial.mul(src, dest).toString(), nativeFpu.mul(src, dest).toString());
+        assertEquals(message, div(serial, src, dest), div(nativeFpu, src, dest));
+    }
+
+    private static String div(FPU fpu, DataType src, DataType dest) {
+        try {
+            return fpu.div(src, dest).toString();
+        } catch (ArithmeticException e) {
+            return "ArithmeticException";
+        }
+    }
+
+    @Test
+    public void fpuEngineGridTest() {
+        for (int src : INPUT) {
+            for (int dest : INPUT) {
+                check(src, dest);
+            }
+        }
+    }
+
+    @Test
+    public void fpuEngineRandomTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 3000; i++) {
+            int src = randomOperand(random);
+            int dest = randomOperand(random);
+            if (random.nextInt(4) == 0) { // 阶码相同，覆盖对消的情况
+                dest = (dest & 0x807FFFFF) | (src & 0x7F800000);
+            }
+            check(src, dest);
+        }
+    }
+
+    @Test
+    public void fpuEngineFloatTest() {
+        Random random = new Random(754);
+        for (int i = 0; i < 20000; i++) {
+            int src = randomOperand(random);
+            int dest = randomOperand(random);
+            float a = Float.intBitsToFloat(src);
+            float b = Float.intBitsToFloat(dest);
+            DataType x = DataType.ofBits(src);
+            DataType y = DataType.ofBits(dest);
+            assertEquals(Float.floatToIntBits(b + a), nativeFpu.add(x, y).bits());
+            assertEquals(Float.floatToIntBits(b * a), nativeFpu.mul(x, y).bits());
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void fpuEngineDivExceptionTest() {
+        nativeFpu.div(DataType.ofBits(0x80000000), DataType.ofBits(0x3F800000));
+    }
+
+    @Test
+    public void sharedConstantTest() {
+        for (FPU fpu : new FPU[]{serial, nativeFpu}) { // 特殊值和相消的结果是共享实例
+            assertSame(DataType.NaN, fpu.div(DataType.ZERO, DataType.ZERO));
+            assertSame(DataType.N_INF, fpu.mul(DataType.P_INF, DataType.ofBits(0xBF800000))); // Inf * -1
+            assertSame(DataType.ZERO, fpu.sub(DataType.ofBits(0x3F99999A), DataType.ofBits(0x3F99999A)));
+            assertSame(DataType.P_INF, fpu.add(DataType.ofBits(0x7F7FFFFF), DataType.ofBits(0x7F7FFFFF)));
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 与精确的参考值比较：a * b + c先用BigDecimal精确求和，再就近舍入到偶数得到float（在Java 8上也能运行）
+ * NaN只比较类别
+ */
+public class FPUFmaTest {
+
+    private final FPU fpu = new FPU(FPU.Engine.NATIVE);
+
+    private static final int[] SPECIALS = {0x00000000, 0x80000000, 0x7F800000, 0xFF800000, 0x7FC00000, 0x00000001,
+            0x80000001, 0x007FFFFF, 0x00800000, 0x7F7FFFFF, 0xFF7FFFFF, 0x3F800000, 0xBF800000, 0x33800000};
+
+    /**
+     * 2^128 - 2^103：绝对值不小于它的和舍入为Inf（与MAX_VALUE距离相等时舍入到尾数为偶数的Inf）
+     */
+    private static final BigDecimal OVERFLOW = new BigDecimal(Math.pow(2, 128) - Math.pow(2, 103));
+
+    static int reference(int a, int b, int c) {
+        float x = Float.intBitsToFloat(a);
+        float y = Float.intBitsToFloat(b);
+        float z = Float.intBitsToFloat(c);
+        double product = (double) x * y; // 24位乘24位，在double中是精确的
+        double approx = product + z;
+        if (Float.isNaN(x) || Float.isNaN(y) || Float.isNaN(z) || Float.isInfinite(x) || Float.isInfinite(y)
+                || Float.isInfinite(z)) {
+            float ans = (float) approx; // Inf和NaN由double运算决定
+            return Float.isNaN(ans) ? 0x7FC00000 : Float.floatToRawIntBits(ans);
+        }
+        BigDecimal exact = new BigDecimal(product).add(new BigDecimal(z));
+        if (exact.signum() == 0) { // 精确和为0时double加法给出的0的符号与IEEE-754相同
+            return Float.floatToRawIntBits((float) approx);
+        }
+        if (exact.abs().compareTo(OVERFLOW) >= 0) {
+            return exact.signum() > 0 ? 0x7F800000 : 0xFF800000;
+        }
+        // (float) approx与精确值最多相差1个单位，在它和两个相邻的float中选最近的
+        float guess = (float) approx;
+        if (Float.isInfinite(guess)) {
+            guess = Math.copySign(Float.MAX_VALUE, guess);
+        }
+        float best = guess;
+        BigDecimal bestDistance = null;
+        for (float candidate : new float[]{Math.nextDown(guess), guess, Math.nextUp(guess)}) {
+            if (Float.isInfinite(candidate)) {
+                continue;
+            }
+            BigDecimal distance = exact.subtract(new BigDecimal(candidate)).abs();
+            int order = bestDistance == null ? -1 : distance.compareTo(bestDistance);
+            if (order < 0 || order == 0 && (Float.floatToRawIntBits(candidate) & 1) == 0) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        return Float.floatToRawIntBits(best);
+    }
+
+    private void check(int a, int b, int c) {
+        int ans = fpu.fma(DataType.ofBits(a), DataType.ofBits(b), DataType.ofBits(c)).bits();
+        assertEquals(String.format("a=%08x b=%08x c=%08x", a, b, c), reference(a, b, c), ans);
+    }
+
+    private static int randomOperand(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return random.nextInt() & 0x807FFFFF;
+            case 1:
+                return SPECIALS[random.nextInt(SPECIALS.length)];
+            case 2:
+                return (random.nextInt() & 0x807FFFFF) | ((100 + random.nextInt(56)) << 23);
+            default:
+                return random.nextInt();
+        }
+    }
+
+    @Test
+    public void randomTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 200000; i++) {
+            check(randomOperand(random), randomOperand(random), randomOperand(random));
+        }
+    }
+
+    @Test
+    public void cancellationTest() {
+        // c接近-a*b，结果只剩乘积被舍去的低位
+        Random random = new Random(48);
+        for (int i = 0; i < 100000; i++) {
+            int a = randomOperand(random);
+            int b = randomOperand(random);
+            int c = Float.floatToRawIntBits(-(Float.intBitsToFloat(a) * Float.intBitsToFloat(b))) + random.nextInt(5) - 2;
+            check(a, b, c);
+        }
+    }
+
+    @Test
+    public void specialTest() {
+        for (int a : SPECIALS) {
+            for (int b : SPECIALS) {
+                for (int c : SPECIALS) {
+                    check(a, b, c);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void singleRoundingTest() {
+        // (1 + 2^-12)^2 - 1 - 2^-11 = 2^-24，分开舍入时乘积的低位丢失，结果为0
+        DataType a = DataType.ofBits(0x3F800800);
+        DataType c = DataType.ofBits(0xBF801000);
+        assertEquals(0x33800000, fpu.fma(a, a, c).bits());
+        assertEquals(0, fpu.add(c, fpu.mul(a, a)).bits());
+        assertEquals(0x33800000, new FPU().fma(a, a, c).bits());
+
+        int[] x = {0x3F800800, 0x40000000};
+        int[] y = {0x3F800800, 0x40400000};
+        int[] z = {0xBF801000, 0x3F800000};
+        int[] out = new int[2];
+        fpu.fma(x, y, z, out, 0, 2);
+        assertEquals(0x33800000, out[0]);
+        assertEquals(0x40E00000, out[1]);
+    }
+
+}
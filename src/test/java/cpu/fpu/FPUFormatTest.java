@@ -0,0 +1,185 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+import util.FloatFormat;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 参数化浮点格式：与double上的运算再舍入到目标格式比较（double的精度不小于2p+2，两次舍入是无害的）
+ */
+public class FPUFormatTest {
+
+    private final FPU serial = new FPU();
+    private final FPU nativeFpu = new FPU(FPU.Engine.NATIVE);
+
+    private static final FloatFormat E4M3 = FloatFormat.of(4, 3);
+
+    private static long randomOperand(FloatFormat format, Random random) {
+        long bits = random.nextLong() & ((1L << format.width()) - 1);
+        switch (random.nextInt(4)) {
+            case 0: // 非规格化数或0
+                return bits & (format.signMask() | ((1L << format.fractionBits()) - 1));
+            case 1: // 接近上溢
+                return bits | ((long) (format.maxExponent() - 1) << format.fractionBits()) & ~(1L << format.fractionBits());
+            default:
+                return bits;
+        }
+    }
+
+    private static double host(int op, double src, double dest) {
+        switch (op) {
+            case FormatDatapath.ADD:
+                return dest + src;
+            case FormatDatapath.SUB:
+                return dest - src;
+            case FormatDatapath.MUL:
+                return dest * src;
+            default:
+                return dest / src;
+        }
+    }
+
+    private static long apply(FPU fpu, int op, FloatFormat format, long src, long dest) {
+        switch (op) {
+            case FormatDatapath.ADD:
+                return fpu.add(format, src, dest);
+            case FormatDatapath.SUB:
+                return fpu.sub(format, src, dest);
+            case FormatDatapath.MUL:
+                return fpu.mul(format, src, dest);
+            default:
+                return fpu.div(format, src, dest);
+        }
+    }
+
+    private void check(FloatFormat format, int count) {
+        Random random = new Random(format.hashCode());
+        for (int i = 0; i < count; i++) {
+            long src = randomOperand(format, random);
+            long dest = randomOperand(format, random);
+            for (int op = FormatDatapath.ADD; op <= FormatDatapath.DIV; op++) {
+                double reference = host(op, format.toDouble(src), format.toDouble(dest));
+                String message = String.format("%s op%d src=%x dest=%x", format, op, src, dest);
+                try {
+                    long ans = apply(serial, op, format, src, dest);
+                    assertEquals(message, format.fromDouble(reference), ans);
+                    assertEquals(message, ans, apply(nativeFpu, op, format, src, dest));
+                } catch (ArithmeticException e) {
+                    assertTrue(message, op == FormatDatapath.DIV && format.toDouble(src) == 0 && Double.isInfinite(reference));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void binary16Test() {
+        check(FloatFormat.BINARY16, 20000);
+    }
+
+    @Test
+    public void bfloat16Test() {
+        check(FloatFormat.BFLOAT16, 20000);
+    }
+
+    @Test
+    public void customFormatTest() {
+        check(E4M3, 5000);
+        check(FloatFormat.of(6, 20), 5000);
+    }
+
+    @Test
+    public void binary64Test() {
+        // binary64没有更宽的参考格式，只比较通用路径与Java的double运算
+        Random random = new Random(64);
+        for (int i = 0; i < 20000; i++) {
+            long src = randomOperand(FloatFormat.BINARY64, random);
+            long dest = randomOperand(FloatFormat.BINARY64, random);
+            for (int op = FormatDatapath.ADD; op <= FormatDatapath.DIV; op++) {
+                double expected = host(op, Double.longBitsToDouble(src), Double.longBitsToDouble(dest));
+                if (Double.isInfinite(expected) && op == FormatDatapath.DIV && Double.longBitsToDouble(src) == 0) {
+                    continue;
+                }
+                long bits = Double.isNaN(expected) ? FloatFormat.BINARY64.quietNaN() : Double.doubleToRawLongBits(expected);
+                String message = String.format("op%d src=%x dest=%x", op, src, dest);
+                assertEquals(message, bits, apply(serial, op, FloatFormat.BINARY64, src, dest));
+                assertEquals(message, bits, apply(nativeFpu, op, FloatFormat.BINARY64, src, dest));
+            }
+        }
+    }
+
+    @Test
+    public void binary32Test() {
+        // binary32与DataType接口的结果相同，包括截断的除法
+        Random random = new Random(32);
+        for (int i = 0; i < 2000; i++) {
+            int src = random.nextInt();
+            int dest = random.nextInt();
+            assertEquals(nativeFpu.add(DataType.ofBits(src), DataType.ofBits(dest)).bits() & 0xFFFFFFFFL,
+                    serial.add(FloatFormat.BINARY32, src & 0xFFFFFFFFL, dest & 0xFFFFFFFFL));
+            assertEquals(nativeFpu.mul(DataType.ofBits(src), DataType.ofBits(dest)).bits() & 0xFFFFFFFFL,
+                    nativeFpu.mul(FloatFormat.BINARY32, src & 0xFFFFFFFFL, dest & 0xFFFFFFFFL));
+            if ((src & 0x7FFFFFFF) != 0) {
+                assertEquals(serial.div(DataType.ofBits(src), DataType.ofBits(dest)).bits() & 0xFFFFFFFFL,
+                        nativeFpu.div(FloatFormat.BINARY32, src & 0xFFFFFFFFL, dest & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    @Test
+    public void batchTest() {
+        Random random = new Random(16);
+        short[] src = new short[300];
+        short[] dest = new short[300];
+        short[] out = new short[300];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (short) random.nextInt();
+            dest[i] = (short) random.nextInt();
+        }
+        nativeFpu.mul(FloatFormat.BINARY16, src, dest, out, 10, 290);
+        assertEquals(0, out[9]);
+        for (int i = 10; i < 290; i++) {
+            assertEquals((short) serial.mul(FloatFormat.BINARY16, src[i] & 0xFFFF, dest[i] & 0xFFFF), out[i]);
+        }
+        try {
+            nativeFpu.add(FloatFormat.BINARY32, src, dest, out, 0, 1);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        long[] a = {0x3FF0000000000000L, 0x4000000000000000L};
+        long[] b = {0x3FF8000000000000L, 0x4008000000000000L};
+        long[] c = new long[2];
+        serial.sub(FloatFormat.BINARY64, a, b, c, 0, 2);
+        assertEquals(0.5, Double.longBitsToDouble(c[0]), 0);
+        assertEquals(1.0, Double.longBitsToDouble(c[1]), 0);
+    }
+
+    @Test
+    public void conversionTest() {
+        assertSame(FloatFormat.BINARY16, FloatFormat.of(5, 10));
+        assertEquals(0x3C00, FloatFormat.BINARY16.fromDouble(1.0));
+        assertEquals(0x7BFF, FloatFormat.BINARY16.fromDouble(65519.99));
+        assertEquals(0x7C00, FloatFormat.BINARY16.fromDouble(65520));
+        assertEquals(0x0001, FloatFormat.BINARY16.fromDouble(0x1p-24));
+        assertEquals(0x0000, FloatFormat.BINARY16.fromDouble(0x1p-25));
+        assertEquals(0x8001, FloatFormat.BINARY16.fromDouble(-0x1.0000000000001p-25));
+        assertEquals(0x3F80, FloatFormat.BFLOAT16.fromDouble(1.0));
+        assertEquals(FloatFormat.BINARY32.quietNaN(), 0x7FC00000L);
+        for (int half = 0; half < 0x10000; half++) {
+            if (FloatFormat.BINARY16.classify(half) != util.IEEE754Float.CLASS_NaN) {
+                float value = FormatDatapath.halfToFloat(half);
+                assertEquals(FloatFormat.BINARY16.toDouble(half), value, 0);
+                assertEquals(half, FormatDatapath.floatToHalf(value));
+                assertEquals(half, FloatFormat.BINARY16.fromDouble(value));
+            }
+        }
+    }
+
+}
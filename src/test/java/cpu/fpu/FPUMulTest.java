@@ -21,6 +21,14 @@ public class FPUMulTest {
 		assertEquals("01001011000010010101010001000000", result.toString());
 	}
 
+	@Test
+	public void fpuMulTest2(){
+		src = new DataType("00000000011111111111111111111111");
+		dest = new DataType("00111111100000000000000000000001");
+		result = fpu.mul(src, dest);
+		assertEquals("00000000100000000000000000000000", result.toString());
+	}
+
 	@Test
 	public void fpuMulTest9() {
 		float pZero = Float.parseFloat(Transformer.binaryToFloat("00000000000000000000000000000000"));
@@ -0,0 +1,82 @@
+package cpu.fpu;
+
+import org.junit.Test;
+import util.DataType;
+import util.IEEE754Float;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * sqrt与Math.sqrt舍入到float的结果比较（double的精度足以保证两次舍入无害），rsqrt检查误差上界
+ */
+public class FPUSqrtTest {
+
+    private final FPU serial = new FPU();
+    private final FPU nativeFpu = new FPU(FPU.Engine.NATIVE);
+
+    private static int expected(int bits) {
+        float ans = (float) Math.sqrt(Float.intBitsToFloat(bits));
+        return Float.isNaN(ans) ? 0x7FC00000 : Float.floatToRawIntBits(ans);
+    }
+
+    @Test
+    public void specialTest() {
+        assertEquals(IEEE754Float.P_ZERO, serial.sqrt(new DataType(IEEE754Float.P_ZERO)).toString());
+        assertEquals(IEEE754Float.N_ZERO, serial.sqrt(new DataType(IEEE754Float.N_ZERO)).toString());
+        assertEquals(IEEE754Float.P_INF, serial.sqrt(new DataType(IEEE754Float.P_INF)).toString());
+        assertEquals(IEEE754Float.NaN, serial.sqrt(new DataType(IEEE754Float.N_INF)).toString());
+        assertEquals(IEEE754Float.NaN, serial.sqrt(new DataType("10111111100000000000000000000000")).toString());
+        assertEquals(IEEE754Float.NaN, nativeFpu.sqrt(DataType.ofBits(0x80000001)).toString());
+        assertEquals(IEEE754Float.NaN, nativeFpu.sqrt(DataType.ofBits(0x7F800001)).toString());
+
+        assertEquals(IEEE754Float.P_INF, nativeFpu.rsqrt(new DataType(IEEE754Float.P_ZERO)).toString());
+        assertEquals(IEEE754Float.N_INF, nativeFpu.rsqrt(new DataType(IEEE754Float.N_ZERO)).toString());
+        assertEquals(IEEE754Float.P_ZERO, nativeFpu.rsqrt(new DataType(IEEE754Float.P_INF)).toString());
+        assertEquals(IEEE754Float.NaN, nativeFpu.rsqrt(new DataType(IEEE754Float.N_INF)).toString());
+        assertEquals(IEEE754Float.NaN, nativeFpu.rsqrt(DataType.ofBits(0xBF800000)).toString());
+    }
+
+    @Test
+    public void exactTest() {
+        assertEquals(0x40000000, serial.sqrt(DataType.ofBits(0x40800000)).bits()); // sqrt(4) = 2
+        assertEquals(0x3F000000, serial.sqrt(DataType.ofBits(0x3E800000)).bits()); // sqrt(0.25) = 0.5
+        assertEquals(expected(0x00000001), serial.sqrt(DataType.ofBits(0x00000001)).bits());
+        assertEquals(expected(0x7F7FFFFF), serial.sqrt(DataType.ofBits(0x7F7FFFFF)).bits());
+    }
+
+    @Test
+    public void nativeTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 500000; i++) {
+            int bits = random.nextInt() & (random.nextBoolean() ? 0x7FFFFFFF : 0x007FFFFF);
+            assertEquals(Integer.toHexString(bits), expected(bits), nativeFpu.sqrt(DataType.ofBits(bits)).bits());
+        }
+    }
+
+    @Test
+    public void serialTest() {
+        Random random = new Random(19);
+        for (int i = 0; i < 3000; i++) {
+            int bits = random.nextInt() & (random.nextBoolean() ? 0xFFFFFFFF : 0x007FFFFF);
+            assertEquals(Integer.toHexString(bits), expected(bits), serial.sqrt(DataType.ofBits(bits)).bits());
+        }
+    }
+
+    @Test
+    public void rsqrtTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500000; i++) {
+            int bits = random.nextInt() & 0x7FFFFFFF;
+            if ((bits & 0x7F800000) == 0x7F800000) {
+                continue;
+            }
+            double ans = Float.intBitsToFloat(nativeFpu.rsqrt(DataType.ofBits(bits)).bits());
+            double exact = 1 / Math.sqrt(Float.intBitsToFloat(bits));
+            assertTrue(Integer.toHexString(bits), Math.abs(ans - exact) < FloatDatapath.RSQRT_ERROR * exact);
+        }
+    }
+
+}
@@ -22,6 +22,16 @@ public class FPUSubTest {
         assertEquals("01000010000010001011100000000000", result.toString());
     }
 
+    @Test
+    public void fpuSubTest2(){
+        src = new DataType("00000000000000000000000000000000");
+        dest = new DataType("10000000000000000000000000000000");
+        result = fpu.sub(src, dest);
+        assertEquals("10000000000000000000000000000000", result.toString());
+        result = fpu.sub(dest, src);
+        assertEquals("00000000000000000000000000000000", result.toString());
+    }
+
     @Test
     public void fpuSubTest9() {
         float pZero = Float.parseFloat(Transformer.binaryToFloat("00000000000000000000000000000000"));
@@ -0,0 +1,124 @@
+package util;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArithmeticMetricsTest {
+
+    private final ArithmeticMetrics metrics = ArithmeticMetrics.getInstance();
+
+    private static final int[] INPUT = {0x00000000, 0x80000000, 0x7F800000, 0x7FC00000, 0x00000003, 0x807FFFFF,
+            0x00800000, 0x7F7FFFFF, 0x3F800000, 0x3F800001, 0xBF7FFFFF, 0x4B189680, 0x3DCCCCCD, 0x34000000};
+
+    @Before
+    public void setUp() {
+        metrics.reset();
+        metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    private static void run(FPU fpu) {
+        for (int a : INPUT) {
+            for (int b : INPUT) {
+                DataType src = DataType.ofBits(a);
+                DataType dest = DataType.ofBits(b);
+                fpu.add(src, dest);
+                fpu.sub(src, dest);
+                fpu.mul(src, dest);
+                try {
+                    fpu.div(src, dest);
+                } catch (ArithmeticException ignored) {
+                }
+            }
+        }
+    }
+
+    private String snapshot() {
+        return metrics.getOperationCounts() + " " + metrics.getOperandClassCounts() + " "
+                + metrics.getCornerCaseCounts() + " " + metrics.getExceptionCounts() + " "
+                + metrics.getSubnormalOperands() + " " + metrics.getRoundUps() + " " + metrics.getOverflows() + " "
+                + Arrays.toString(metrics.getAlignShiftHistogram()) + " " + Arrays.toString(metrics.getNormalizeShiftHistogram());
+    }
+
+    @Test
+    public void fpuEngineMetricsTest() {
+        run(new FPU(FPU.Engine.BIT_SERIAL));
+        String serial = snapshot();
+        metrics.reset();
+        run(new FPU(FPU.Engine.NATIVE));
+        assertEquals(serial, snapshot()); // 两种实现在相同的位置计数
+
+        int n = INPUT.length * INPUT.length;
+        Map<String, Long> operations = metrics.getOperationCounts();
+        assertEquals(n, (long) operations.get("FPU_ADD"));
+        assertEquals(0, (long) operations.get("ALU_ADD")); // FPU内部的ALU不计数
+        // 有0且没有NaN、Inf的44对操作数中，除数为0的20对抛出异常
+        assertEquals(44 - 20, (long) metrics.getOperandClassCounts().get("FPU_DIV.ZERO"));
+        assertTrue(metrics.getCornerCaseCounts().get("FPU_MUL") > 0);
+        assertTrue(metrics.getExceptionCounts().get("FPU_DIV") > 0);
+        assertTrue(metrics.getRoundUps() > 0);
+        assertTrue(metrics.getOverflows() > 0);
+        long latencies = 0;
+        for (long count : metrics.getLatencyHistogram("FPU_ADD", "NORMAL")) {
+            latencies += count;
+        }
+        assertEquals((long) metrics.getOperandClassCounts().get("FPU_ADD.NORMAL"), latencies);
+    }
+
+    @Test
+    public void aluMetricsTest() {
+        ALU alu = new ALU();
+        alu.div(DataType.ofBits(7), DataType.ofBits(100));
+        try {
+            alu.div(DataType.ofBits(0), DataType.ofBits(100));
+            fail();
+        } catch (ArithmeticException ignored) {
+        }
+        new ALU(ALU.Engine.NATIVE).add(new int[]{1, 2, 3}, new int[]{4, 5, 6}, new int[3], 0, 3);
+        Map<String, Long> operations = metrics.getOperationCounts();
+        assertEquals(1, (long) operations.get("ALU_DIV")); // 除法内部的加减法不计数
+        assertEquals(0, (long) operations.get("ALU_SUB"));
+        assertEquals(3, (long) operations.get("ALU_ADD"));
+        assertEquals(1, (long) metrics.getExceptionCounts().get("ALU_DIV"));
+
+        metrics.setEnabled(false);
+        alu.mul(DataType.ofBits(7), DataType.ofBits(100));
+        assertEquals(0, (long) metrics.getOperationCounts().get("ALU_MUL"));
+    }
+
+    @Test
+    public void jmxTest() throws Exception {
+        ObjectName name = ArithmeticMetrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(name, ArithmeticMetrics.register());
+        new FPU(FPU.Engine.NATIVE).mul(DataType.ofBits(0x3F800000), DataType.ofBits(0x40000000));
+        assertEquals(true, server.getAttribute(name, "Enabled"));
+        assertEquals(0L, server.getAttribute(name, "Overflows"));
+        long[] histogram = (long[]) server.invoke(name, "getLatencyHistogram", new Object[]{"FPU_MUL", "NORMAL"},
+                new String[]{String.class.getName(), String.class.getName()});
+        assertEquals(1, Arrays.stream(histogram).sum());
+        server.setAttribute(name, new javax.management.Attribute("Enabled", false));
+        assertEquals(false, ArithmeticMetrics.active());
+        assertArrayEquals(new long[28], metrics.getAlignShiftHistogram());
+    }
+
+}
@@ -0,0 +1,100 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataTypeTest {
+
+    @Test
+    public void dataTypeStringTest() {
+        DataType data = new DataType("11000000101000000000000000000001");
+        assertEquals(0xC0A00001, data.bits());
+        assertEquals("11000000101000000000000000000001", data.toString());
+    }
+
+    @Test
+    public void dataTypePaddingTest() {
+        assertEquals("00000000000000000000000010000001", new DataType("10000001").toString());
+        assertEquals("00000000000000001000000000000001", new DataType("1000000000000001").toString());
+    }
+
+    @Test
+    public void dataTypeOfBitsTest() {
+        int[] input = {0, 1, -1, 0x80000000, 0x7FFFFFFF, 0x7F800000, 0x7FC00000, 0x00800001, 0x12345678};
+        for (int bits : input) {
+            DataType data = DataType.ofBits(bits);
+            assertEquals(bits, data.bits());
+            assertEquals(Transformer.intToBinary(String.valueOf(bits)), data.toString());
+            assertEquals(bits, new DataType(data.toString()).bits());
+        }
+    }
+
+    @Test
+    public void dataTypeFieldTest() {
+        DataType data = DataType.ofBits(Float.floatToIntBits(-0.15625f));
+        assertEquals(1, data.sign());
+        assertEquals(124, data.exponent());
+        assertEquals(0x200000, data.fraction());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void dataTypeIllegalLengthTest() {
+        new DataType("0101");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void dataTypeIllegalCharTest() {
+        new DataType("00000000000000000000000000000002"); // 32位，长度合法，只有字符非法
+    }
+
+    @Test
+    public void dataTypeEqualsTest() {
+        DataType data = new DataType("11000000101000000000000000000001");
+        assertEquals(DataType.ofBits(0xC0A00001), data);
+        assertEquals(DataType.ofBits(0xC0A00001).hashCode(), data.hashCode());
+        assertNotEquals(DataType.ofBits(0xC0A00000), data);
+        assertNotEquals("11000000101000000000000000000001", data);
+    }
+
+    @Test
+    public void dataTypeUnpackTest() {
+        DataType data = DataType.ofBits(Float.floatToIntBits(-0.15625f));
+        UnpackedFloat unpacked = data.unpack();
+        assertSame(unpacked, data.unpack());
+        assertEquals(1, unpacked.sign());
+        assertEquals(-3, unpacked.exponent());
+        assertEquals(0xA00000, unpacked.significand());
+        assertEquals(IEEE754Float.CLASS_NORMAL, unpacked.category());
+        assertEquals("01111100", unpacked.exponentString());
+        assertEquals("101000000000000000000000000", unpacked.significandString());
+
+        UnpackedFloat subnormal = DataType.ofBits(0x00000005).unpack();
+        assertTrue(subnormal.isSubnormal());
+        assertEquals(-126, subnormal.exponent());
+        assertEquals(5, subnormal.significand());
+        assertEquals("00000001", subnormal.exponentString());
+        assertEquals("000000000000000000000101000", subnormal.significandString());
+        assertEquals(IEEE754Float.CLASS_NaN, DataType.ofBits(0x7FC00000).unpack().category());
+    }
+
+    @Test
+    public void dataTypeSharedTest() {
+        assertSame(DataType.ZERO, DataType.ofBits(0));
+        assertSame(DataType.NEGATIVE_ONE, DataType.valueOf(BinaryIntegers.NegativeOne));
+        assertSame(DataType.ofBits(-128), DataType.ofBits(-128));
+        assertSame(DataType.ofBits(1023), DataType.valueOf("0000001111111111"));
+        assertSame(DataType.N_ZERO, DataType.valueOf(IEEE754Float.N_ZERO));
+        assertSame(DataType.P_INF, DataType.ofBits(0x7F800000));
+        assertSame(DataType.N_INF, DataType.valueOf(IEEE754Float.N_INF));
+        assertSame(DataType.NaN, DataType.valueOf(IEEE754Float.NaN));
+        assertNotSame(DataType.ofBits(1024), DataType.ofBits(1024));
+        assertNotSame(DataType.ZERO, new DataType(BinaryIntegers.ZERO)); // 构造方法总是新建实例
+        assertEquals(DataType.ZERO, new DataType(BinaryIntegers.ZERO));
+    }
+
+}
@@ -0,0 +1,89 @@
+package util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FloatParserTest {
+
+    private static void check(int expected, String text) {
+        assertEquals(text, Integer.toHexString(expected), Integer.toHexString(FloatParser.parseBits(text)));
+    }
+
+    @Test
+    public void parseTest() {
+        check(0x3F800000, "1");
+        check(0x3F800000, "1.0");
+        check(0xBE800000, "-.25");
+        check(0x3DCCCCCD, "0.1");
+        check(0x3DCCCCCD, "  1e-1\t");
+        check(0x4B189680, "10000000");
+        check(0x80000000, "-0.000");
+        check(0x00000000, "0e999999999");
+        check(0x7F7FFFFF, "3.4028234663852886e38");
+        check(0x7F800000, "3.4028236e38");
+        check(0xFF800000, "-1e39");
+        check(0x00000001, "1.4e-45");
+        check(0x00000000, "7.006e-46"); // 小于最小非规格化数的一半
+        check(0x00000001, "7.01e-46");
+        check(0x00800000, "1.17549435e-38");
+        check(0x007FFFFF, "1.1754942e-38");
+        check(0x3F800001, "1.00000011920928955078125"); // 1 + 2^-23
+        check(0x3F800000, "1.000000059604644775390625"); // 1 + 2^-24，中点舍入到偶数
+        check(0x3F800002, "1.000000178813934326171875"); // 1 + 3 * 2^-24，中点舍入到偶数
+        check(0x3F800001, "1.00000005960464477539062500000000000000000001"); // 中点之上
+        check(0x7FC00000, "NaN");
+        check(0x7F800000, "+Infinity");
+        check(0xFF800000, "-inf");
+    }
+
+    @Test
+    public void parseRandomTest() {
+        Random random = new Random(2023);
+        for (int i = 0; i < 200000; i++) {
+            int bits = random.nextInt();
+            if ((bits & 0x7F800000) == 0x7F800000) {
+                continue;
+            }
+            float f = Float.intBitsToFloat(bits);
+            check(bits, Float.toString(f));
+            check(bits, new BigDecimal(f).toString()); // 精确的十进制表示
+        }
+    }
+
+    @Test
+    public void parseIllegalTest() {
+        for (String text : new String[]{"", " ", "-", ".", "1e", "1e+", "1.2.3", "1,0", "abc", "0x10", "1f", "--1"}) {
+            try {
+                FloatParser.parseBits(text);
+                fail(text);
+            } catch (NumberFormatException e) {
+                // 格式不合法
+            }
+        }
+    }
+
+    @Test
+    public void parseAllTest() {
+        byte[] buf = "#1.5,-2,3e2\r\n\n0.1, NaN ,-0\n4".getBytes(StandardCharsets.US_ASCII);
+        int[] out = new int[8];
+        assertEquals(7, FloatParser.parseAll(buf, 1, buf.length, (byte) ',', out, 1));
+        assertArrayEquals(new int[]{0, 0x3FC00000, 0xC0000000, 0x43960000, 0x3DCCCCCD, 0x7FC00000, 0x80000000, 0x40800000}, out);
+        assertEquals(0x43960000, FloatParser.parseBits(buf, 8, 11));
+    }
+
+    @Test
+    public void floatToBinaryTest() {
+        assertEquals("00111111100000000000000000000000", Transformer.floatToBinary("1.0"));
+        assertEquals("00000000000000000000000000000001", Transformer.floatToBinary("1.4E-45"));
+        assertEquals("Nan", Transformer.floatToBinary("NaN"));
+        assertEquals("-Inf", Transformer.floatToBinary("-1e50"));
+    }
+
+}
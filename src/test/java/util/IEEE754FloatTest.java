@@ -0,0 +1,38 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IEEE754FloatTest {
+
+    @Test
+    public void classifySpecialTest() {
+        assertEquals(IEEE754Float.CLASS_P_ZERO, IEEE754Float.classify(new DataType(IEEE754Float.P_ZERO).bits()));
+        assertEquals(IEEE754Float.CLASS_N_ZERO, IEEE754Float.classify(new DataType(IEEE754Float.N_ZERO).bits()));
+        assertEquals(IEEE754Float.CLASS_P_INF, IEEE754Float.classify(new DataType(IEEE754Float.P_INF).bits()));
+        assertEquals(IEEE754Float.CLASS_N_INF, IEEE754Float.classify(new DataType(IEEE754Float.N_INF).bits()));
+        assertEquals(IEEE754Float.CLASS_NaN, IEEE754Float.classify(new DataType(IEEE754Float.NaN).bits()));
+        assertEquals(IEEE754Float.CLASS_NaN, IEEE754Float.classify(0xFFFFFFFF));
+        assertEquals(IEEE754Float.CLASS_NaN, IEEE754Float.classify(0x7F800001));
+    }
+
+    @Test
+    public void classifyFiniteTest() {
+        assertEquals(IEEE754Float.CLASS_SUBNORMAL, IEEE754Float.classify(0x00000001));
+        assertEquals(IEEE754Float.CLASS_SUBNORMAL, IEEE754Float.classify(0x807FFFFF));
+        assertEquals(IEEE754Float.CLASS_NORMAL, IEEE754Float.classify(0x00800000));
+        assertEquals(IEEE754Float.CLASS_NORMAL, IEEE754Float.classify(0xFF7FFFFF));
+        assertEquals(IEEE754Float.CLASS_NORMAL, IEEE754Float.classify(Float.floatToIntBits(-0.1f)));
+    }
+
+    @Test
+    public void classifyMatchesRegularTest() {
+        int[] input = {0x7F800000, 0x7F800001, 0x7FFFFFFF, 0xFFC00000, 0x7F7FFFFF, 0x00000000};
+        for (int bits : input) {
+            boolean isNaN = IEEE754Float.classify(bits) == IEEE754Float.CLASS_NaN;
+            assertEquals(isNaN, DataType.ofBits(bits).toString().matches(IEEE754Float.NaN_Regular));
+        }
+    }
+
+}
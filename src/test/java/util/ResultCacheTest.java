@@ -0,0 +1,107 @@
+package util;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+
+    @Test
+    public void cacheTest() {
+        ResultCache cache = new ResultCache(100);
+        assertEquals(128, cache.capacity());
+        assertEquals(ResultCache.MISS, cache.get(ResultCache.FPU_ADD, 1, 2));
+        cache.put(ResultCache.FPU_ADD, 1, 2, -3);
+        assertEquals(0xFFFFFFFDL, cache.get(ResultCache.FPU_ADD, 1, 2));
+        assertEquals(ResultCache.MISS, cache.get(ResultCache.FPU_SUB, 1, 2)); // 运算不同
+        assertEquals(ResultCache.MISS, cache.get(ResultCache.FPU_ADD, 2, 1)); // 操作数顺序不同
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+
+        for (int i = 0; i < 10000; i++) {
+            cache.put(ResultCache.ALU_MUL, i, i, i);
+        }
+        assertTrue(cache.evictions() >= 10000 - 128);
+        int present = 0;
+        for (int i = 0; i < 10000; i++) {
+            long value = cache.get(ResultCache.ALU_MUL, i, i);
+            if (value != ResultCache.MISS) {
+                assertEquals(i, value);
+                present++;
+            }
+        }
+        assertTrue(present <= 128);
+        cache.clear();
+        assertEquals(0, cache.hits());
+        assertEquals(ResultCache.MISS, cache.get(ResultCache.ALU_MUL, 9999, 9999));
+    }
+
+    @Test
+    public void cachedUnitTest() {
+        ResultCache cache = new ResultCache(4096);
+        FPU fpu = new FPU(FPU.Engine.NATIVE);
+        FPU cachedFpu = new FPU(FPU.Engine.BIT_SERIAL, cache);
+        ALU alu = new ALU(ALU.Engine.NATIVE);
+        ALU cachedAlu = new ALU(ALU.Engine.NATIVE, cache);
+        Random random = new Random(2023);
+        int[] operands = new int[16];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = random.nextInt() | 1;
+        }
+        for (int n = 0; n < 2000; n++) { // 操作数对反复出现
+            DataType src = DataType.ofBits(operands[random.nextInt(operands.length)]);
+            DataType dest = DataType.ofBits(operands[random.nextInt(operands.length)]);
+            assertEquals(fpu.mul(src, dest), cachedFpu.mul(src, dest));
+            assertEquals(fpu.div(src, dest), cachedFpu.div(src, dest));
+            assertEquals(alu.mul(src, dest), cachedAlu.mul(src, dest));
+            assertEquals(alu.div(src, dest), cachedAlu.div(src, dest));
+        }
+        assertTrue(cache.hitRate() > 0.5);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        // 小容量使各线程频繁写同一组；命中的结果必须是这对操作数的值，不能读到写了一半的槽位
+        ResultCache cache = new ResultCache(64);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int n = 0; n < 200000; n++) {
+                        int src = random.nextInt(256);
+                        int dest = random.nextInt(256);
+                        int op = ResultCache.FPU_ADD + random.nextInt(2);
+                        long value = cache.get(op, src, dest);
+                        if (value == ResultCache.MISS) {
+                            cache.put(op, src, dest, src * 31 + dest * op);
+                        } else {
+                            assertEquals(src * 31 + dest * op, value);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(800000, cache.hits() + cache.misses());
+        assertNotEquals(0, cache.hits());
+    }
+
+}
@@ -0,0 +1,98 @@
+package util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransformerTest {
+
+    private static String expectedBinary(int value, int bits) {
+        String s = Integer.toBinaryString(value & (int) ((1L << bits) - 1));
+        return "00000000000000000000000000000000".substring(32 - bits + s.length()) + s;
+    }
+
+    private static String expectedHex(int value, int bits) {
+        String s = Integer.toHexString(value & (int) ((1L << bits) - 1)).toUpperCase();
+        return "00000000".substring(8 - bits / 4 + s.length()) + s;
+    }
+
+    @Test
+    public void intToBinaryTest() {
+        assertEquals("00000000000000000000000000000000", Transformer.intToBinary("0"));
+        assertEquals("11111111111111111111111111111111", Transformer.intToBinary("-1"));
+        assertEquals("10000000000000000000000000000000", Transformer.intToBinary("-2147483648"));
+        assertEquals("01111111111111111111111111111111", Transformer.intToBinary("2147483647"));
+        assertEquals("11111111111111111111111111110110", Transformer.intToBinary("-10"));
+    }
+
+    @Test
+    public void formatTest() {
+        Random random = new Random(2023);
+        char[] chars = new char[40];
+        byte[] bytes = new byte[40];
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 1000; n++) {
+            int value = random.nextInt();
+            for (int bits = 8; bits <= 32; bits <<= 1) {
+                String binary = expectedBinary(value, bits);
+                assertEquals(3 + bits, Transformer.formatBinary(value, bits, chars, 3));
+                assertEquals(binary, new String(chars, 3, bits));
+                assertEquals(5 + bits, Transformer.formatBinary(value, bits, bytes, 5));
+                assertEquals(binary, new String(bytes, 5, bits, StandardCharsets.US_ASCII));
+                sb.setLength(0);
+                assertEquals(binary, Transformer.appendBinary(sb, value, bits).toString());
+
+                String hex = expectedHex(value, bits);
+                assertEquals(bits / 4, Transformer.formatHex(value, bits, chars, 0));
+                assertEquals(hex, new String(chars, 0, bits / 4));
+                assertEquals(1 + bits / 4, Transformer.formatHex(value, bits, bytes, 1));
+                assertEquals(hex, new String(bytes, 1, bits / 4, StandardCharsets.US_ASCII));
+                sb.setLength(0);
+                assertEquals("0x" + hex, Transformer.appendHex(sb.append("0x"), value, bits).toString());
+            }
+        }
+    }
+
+    @Test
+    public void nbcdTest() {
+        assertEquals("11000000000000000000000000000000", Transformer.decimalToNBCD("0"));
+        assertEquals("11010000000000000001001000110100", Transformer.decimalToNBCD("-1234"));
+        assertEquals("11001001100110011001100110011001", Transformer.decimalToNBCD("9999999"));
+        assertEquals("-1234", Transformer.NBCDToDecimal("11010000000000000001001000110100"));
+        for (int value = -NBCD.MAX_MAGNITUDE; value <= NBCD.MAX_MAGNITUDE; value += 997) {
+            assertEquals(value, NBCD.decode(NBCD.encode(value)));
+            assertEquals(String.valueOf(value), Transformer.NBCDToDecimal(Transformer.decimalToNBCD(String.valueOf(value))));
+        }
+        assertEquals(false, NBCD.isValid(0xC00000A0));
+        assertEquals(false, NBCD.isValid(0xE0000000));
+    }
+
+    @Test
+    public void shortNbcdTest() {
+        // 不足32位的NBCD串：符号取前4位，之后有几位数字就解析几位
+        assertEquals("1", Transformer.NBCDToDecimal("11000001"));
+        assertEquals("-1", Transformer.NBCDToDecimal("11010001"));
+        assertEquals("-123", Transformer.NBCDToDecimal("1101000100100011"));
+        assertEquals("0", Transformer.NBCDToDecimal("110100000000"));
+        assertEquals("9999999", Transformer.NBCDToDecimal("110010011001100110011001100110011001")); // 只读7位数字
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void emptyNbcdTest() {
+        Transformer.NBCDToDecimal("1100");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void illegalNbcdCharTest() {
+        Transformer.NBCDToDecimal("11000002");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void formatWidthTest() {
+        Transformer.formatHex(1, 12, new char[3], 0);
+    }
+
+}
@@ -0,0 +1,50 @@
+package verify;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AllocationProfilerTest {
+
+    @Test
+    public void allocationBudgetTest() throws IOException {
+        Properties budget = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/allocation-budget.properties")) {
+            assertNotNull("allocation-budget.properties not found", in);
+            budget.load(in);
+        }
+        AllocationProfiler profiler = new AllocationProfiler();
+        List<AllocationProfiler.Result> results = profiler.check(budget,
+                AllocationProfiler.DEFAULT_ITERATIONS, AllocationProfiler.DEFAULT_ITERATIONS);
+        String report = AllocationProfiler.report(results);
+        for (AllocationProfiler.Result result : results) {
+            assertTrue(report, result.withinBudget());
+        }
+    }
+
+    @Test
+    public void reportTest() throws IOException {
+        AllocationProfiler profiler = new AllocationProfiler();
+        // 写入复用的char[]不分配内存
+        assertEquals(0, profiler.measure("Transformer.formatBinary", 20000, 20000), 1);
+        Properties budget = new Properties();
+        budget.setProperty("DataType.toString", "0");
+        List<AllocationProfiler.Result> results = profiler.check(budget, 100, 100);
+        assertEquals(profiler.names().size(), results.size());
+        for (AllocationProfiler.Result result : results) {
+            assertFalse(result.withinBudget());
+        }
+        String report = AllocationProfiler.report(results);
+        assertTrue(report.contains("OVER BUDGET"));
+        assertTrue(report.contains("NO BUDGET"));
+    }
+
+}
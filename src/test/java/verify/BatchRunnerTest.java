@@ -0,0 +1,111 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import org.junit.Test;
+import util.Transformer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchRunnerTest {
+
+    private static String binary(int value) {
+        return Transformer.appendBinary(new StringBuilder(), value, 32).toString();
+    }
+
+    private static String hex(int value) {
+        return Transformer.appendHex(new StringBuilder(), value, 32).toString();
+    }
+
+    @Test
+    public void multiSegmentTest() throws IOException {
+        // 约3MB，跨越多个段；混用二进制、十六进制、0x前缀、CRLF和空行
+        Random random = new Random(2023);
+        int n = 50_000;
+        int[] src = new int[n];
+        int[] dest = new int[n];
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            src[i] = random.nextInt();
+            dest[i] = random.nextInt();
+            switch (i % 4) {
+                case 0:
+                    input.append(binary(src[i])).append(' ').append(binary(dest[i])).append('\n');
+                    break;
+                case 1:
+                    input.append(hex(src[i])).append('\t').append("0x").append(hex(dest[i])).append("\r\n");
+                    break;
+                case 2:
+                    input.append("0X").append(hex(src[i])).append(", ").append(binary(dest[i])).append("\n\n");
+                    break;
+                default:
+                    input.append(binary(src[i])).append(',').append(hex(dest[i]).toLowerCase()).append('\n');
+            }
+        }
+        input.setLength(input.length() - 1); // 最后一行没有换行符
+        Path in = Files.createTempFile("batch", ".in");
+        Path out = Files.createTempFile("batch", ".out");
+        try {
+            Files.write(in, input.toString().getBytes(StandardCharsets.US_ASCII));
+            assertEquals(n, new BatchRunner(Operation.FPU_MUL, FPU.Engine.NATIVE, ALU.Engine.NATIVE, 3, false).run(in, out));
+            List<String> lines = Files.readAllLines(out, StandardCharsets.US_ASCII);
+            assertEquals(n, lines.size());
+            FPU fpu = new FPU(FPU.Engine.NATIVE);
+            for (int i = 0; i < n; i++) {
+                assertEquals(binary(Operation.FPU_MUL.scalar(fpu, null, src[i], dest[i])), lines.get(i));
+            }
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+    @Test
+    public void divideByZeroTest() throws IOException {
+        Path in = Files.createTempFile("batch", ".in");
+        Path out = Files.createTempFile("batch", ".out");
+        try {
+            Files.write(in, "00000003 00000007\n00000000 00000007\nFFFFFFFE 00000007\n".getBytes(StandardCharsets.US_ASCII));
+            for (ALU.Engine engine : ALU.Engine.values()) {
+                new BatchRunner(Operation.ALU_DIV, FPU.Engine.NATIVE, engine, 2, true).run(in, out);
+                assertEquals("00000002\nxxxxxxxx\nFFFFFFFD\n",
+                        new String(Files.readAllBytes(out), StandardCharsets.US_ASCII));
+            }
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+    @Test
+    public void malformedTest() throws IOException {
+        Path in = Files.createTempFile("batch", ".in");
+        Path out = Files.createTempFile("batch", ".out");
+        try {
+            for (String bad : new String[]{"00000003 0000007\n", "0000000G 00000007\n", "00000003\n",
+                    "00000003 00000007 00000001\n", "0000000000000000000000000000002 00000007\n"}) {
+                Files.write(in, ("00000001 00000002\n" + bad).getBytes(StandardCharsets.US_ASCII));
+                try {
+                    new BatchRunner(Operation.ALU_ADD).run(in, out);
+                    fail(bad);
+                } catch (IllegalArgumentException e) {
+                    // 第二行出错
+                    assertTrue(bad + ": " + e.getMessage(), e.getMessage().matches(".*offset (1[89]|[2-9][0-9])"));
+                }
+            }
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DifferentialVerifierTest {
+
+    @Test
+    public void randomPassTest() {
+        for (Operation operation : new Operation[]{Operation.FPU_ADD, Operation.FPU_SUB, Operation.FPU_MUL,
+                Operation.ALU_ADD, Operation.ALU_SUB, Operation.ALU_MUL, Operation.ALU_DIV}) {
+            VerificationReport report = new DifferentialVerifier(operation).random(2023, 100_000);
+            assertEquals(report.toString(), 0, report.mismatches());
+            assertEquals(100_000, report.checked());
+        }
+    }
+
+    @Test
+    public void serialEngineTest() {
+        DifferentialVerifier verifier = new DifferentialVerifier(Operation.FPU_MUL, FPU.Engine.BIT_SERIAL,
+                ALU.Engine.BIT_SERIAL, ForkJoinPool.commonPool(), 8);
+        VerificationReport report = verifier.random(7, 3000);
+        assertTrue(report.toString(), report.passed());
+        assertEquals(3000, verifier.checked());
+        assertEquals(1.0, verifier.progress(), 0);
+    }
+
+    @Test
+    public void exhaustiveRangeTest() {
+        // 除数为0：被除数为0时结果为NaN，其余情况抛出ArithmeticException
+        VerificationReport report = new DifferentialVerifier(Operation.FPU_DIV).exhaustive(0x80000000, true, 0x7F7FF000L, 0x7F801000L);
+        assertTrue(report.toString(), report.passed());
+        assertEquals(0x2000, report.checked());
+
+        report = new DifferentialVerifier(Operation.ALU_DIV).exhaustive(0, true, 0, 10_000);
+        assertTrue(report.toString(), report.passed());
+    }
+
+    @Test
+    public void mismatchReportTest() {
+        // FPU.div的商是截断的结果，随机操作数中一定有与原生运算不一致的
+        DifferentialVerifier verifier = new DifferentialVerifier(Operation.FPU_DIV, FPU.Engine.NATIVE,
+                ALU.Engine.NATIVE, ForkJoinPool.commonPool(), 4);
+        VerificationReport report = verifier.random(1, 50_000);
+        assertFalse(report.passed());
+        assertEquals(4, report.samples().size());
+        for (VerificationReport.Mismatch mismatch : report.samples()) {
+            long expected = Operation.FPU_DIV.reference(mismatch.src(), mismatch.dest());
+            assertFalse(Operation.FPU_DIV.same(expected, Operation.FPU_DIV.actual(new FPU(), new ALU(), mismatch.src(), mismatch.dest())));
+        }
+        // 相同的种子得到相同的结果
+        assertEquals(report.mismatches(), verifier.random(1, 50_000).mismatches());
+    }
+
+}
@@ -0,0 +1,156 @@
+package verify;
+
+import cpu.alu.ALU;
+import cpu.fpu.FPU;
+import org.junit.Test;
+import util.ArithmeticMetrics;
+import util.DataType;
+import util.WorkloadRecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WorkloadReplayerTest {
+
+    @Test
+    public void operationCodeTest() {
+        // 录制文件中的运算编号就是Operation的序号
+        assertEquals(ArithmeticMetrics.FPU_ADD, Operation.FPU_ADD.ordinal());
+        assertEquals(ArithmeticMetrics.FPU_DIV, Operation.FPU_DIV.ordinal());
+        assertEquals(ArithmeticMetrics.ALU_ADD, Operation.ALU_ADD.ordinal());
+        assertEquals(ArithmeticMetrics.ALU_DIV, Operation.ALU_DIV.ordinal());
+    }
+
+    @Test
+    public void recordReplayTest() throws IOException {
+        Path directory = Files.createTempDirectory("workload");
+        try {
+            FPU fpu = new FPU(FPU.Engine.BIT_SERIAL);
+            ALU alu = new ALU(ALU.Engine.NATIVE);
+            Random random = new Random(2023);
+            int[] src = new int[1000];
+            int[] dest = new int[1000];
+            int[] out = new int[1000];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = random.nextInt();
+                dest[i] = random.nextInt();
+            }
+            WorkloadRecorder recorder = WorkloadRecorder.start(directory, 700, 2);
+            try {
+                assertTrue(WorkloadRecorder.active());
+                for (int i = 0; i < 100; i++) {
+                    fpu.add(DataType.ofBits(src[i]), DataType.ofBits(dest[i])); // 内部ALU的加减法不被录制
+                }
+                alu.mul(src, dest, out, 0, src.length); // 批量接口逐个录制
+                try {
+                    fpu.div(DataType.ofBits(0), DataType.ofBits(0x3F800000));
+                    fail();
+                } catch (ArithmeticException ignored) {
+                }
+                alu.divRem(DataType.ofBits(7), DataType.ofBits(-100));
+                assertEquals(1102, recorder.recorded());
+            } finally {
+                recorder.close();
+            }
+            assertFalse(WorkloadRecorder.active());
+            List<Path> files = recorder.files();
+            // 700条一个文件，共2个文件，没有删除
+            assertEquals(2, files.size());
+            try (Stream<Path> listed = Files.list(directory)) {
+                assertEquals(2, listed.count());
+            }
+
+            List<VerificationReport> reports = new WorkloadReplayer().replay(files.toArray(new Path[0]));
+            assertEquals(4, reports.size());
+            long total = 0;
+            for (VerificationReport report : reports) {
+                assertTrue(report.toString(), report.passed());
+                total += report.checked();
+            }
+            assertEquals(1102, total);
+            assertEquals(Operation.FPU_ADD, reports.get(0).operation());
+            assertEquals(Operation.ALU_MUL, reports.get(2).operation());
+            assertEquals(1000, reports.get(2).checked());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void rotationTest() throws IOException {
+        Path directory = Files.createTempDirectory("workload");
+        try {
+            ALU alu = new ALU(ALU.Engine.NATIVE);
+            WorkloadRecorder recorder = WorkloadRecorder.start(directory, 10, 3);
+            for (int i = 0; i < 55; i++) {
+                alu.add(DataType.ofBits(i), DataType.ofBits(i));
+            }
+            recorder.close();
+            List<Path> files = recorder.files();
+            // 每个文件10条，共6个文件，只保留最后3个：30~39、40~49、50~54
+            assertEquals(3, files.size());
+            assertEquals("workload-000005.bin", files.get(2).getFileName().toString());
+            List<VerificationReport> reports = new WorkloadReplayer().replay(files.toArray(new Path[0]));
+            assertEquals(25, reports.get(0).checked());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void corruptionTest() throws IOException {
+        Path directory = Files.createTempDirectory("workload");
+        try {
+            WorkloadRecorder recorder = WorkloadRecorder.start(directory, 100, 1);
+            new ALU(ALU.Engine.NATIVE).mul(DataType.ofBits(6), DataType.ofBits(7));
+            recorder.close();
+            Path file = recorder.files().get(0);
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(42, buffer.getInt(WorkloadRecorder.HEADER_BYTES + 12));
+
+            buffer.putInt(WorkloadRecorder.HEADER_BYTES + 12, 43);
+            Files.write(file, bytes);
+            try {
+                new WorkloadReplayer().replay(file);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("checksum"));
+            }
+
+            // 修正校验和后，篡改的结果作为不一致报告出来
+            CRC32 crc = new CRC32();
+            crc.update(bytes, WorkloadRecorder.HEADER_BYTES, bytes.length - WorkloadRecorder.HEADER_BYTES);
+            buffer.putInt(12, (int) crc.getValue());
+            Files.write(file, bytes);
+            VerificationReport report = new WorkloadReplayer().replay(file).get(0);
+            assertEquals(1, report.mismatches());
+            assertEquals(43, report.samples().get(0).expected());
+            assertEquals(42, report.samples().get(0).actual());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+}